@@ -0,0 +1,286 @@
+package io.horizen.tokenization.benchmark;
+
+import com.horizen.box.Box;
+import com.horizen.box.BoxSerializer;
+import com.horizen.box.NoncedBox;
+import com.horizen.box.RegularBox;
+import com.horizen.box.data.NoncedBoxData;
+import com.horizen.box.data.NoncedBoxDataSerializer;
+import com.horizen.box.data.RegularBoxData;
+import com.horizen.companion.SidechainBoxesDataCompanion;
+import com.horizen.companion.SidechainProofsCompanion;
+import com.horizen.companion.SidechainTransactionsCompanion;
+import com.horizen.proof.Proof;
+import com.horizen.proof.ProofSerializer;
+import com.horizen.proof.Signature25519;
+import com.horizen.proposition.Proposition;
+import com.horizen.secret.PrivateKey25519;
+import com.horizen.secret.PrivateKey25519Creator;
+import com.horizen.storage.IODBStorageUtil;
+import com.horizen.storage.Storage;
+import com.horizen.transaction.BoxTransaction;
+import com.horizen.transaction.TransactionSerializer;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.horizen.tokenization.token.box.*;
+import io.horizen.tokenization.token.box.data.*;
+import io.horizen.tokenization.token.info.TokenBuyOrderInfo;
+import io.horizen.tokenization.token.info.TokenSellOrderInfo;
+import io.horizen.tokenization.token.proof.CarRegistryProofsIdsEnum;
+import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
+import io.horizen.tokenization.token.proof.SellOrderSpendingProofSerializer;
+import io.horizen.tokenization.token.proposition.SellOrderProposition;
+import io.horizen.tokenization.token.services.StateBoxesReader;
+import io.horizen.tokenization.token.services.TokenIdAllocator;
+import io.horizen.tokenization.token.transaction.*;
+import org.bouncycastle.pqc.math.linearalgebra.ByteUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Shared data of the benchmarks: keys, config, temporary storages, signed transactions and stubbed node views.
+ * All the data derive from fixed seeds, so every run measures the same workload without any network or node.
+ */
+final class BenchmarkFixtures {
+
+    static final String TOKEN_TYPE = "ART";
+    static final long FEE = 100;
+    static final long PRICE = 1000;
+    static final long TIMESTAMP = 1577836800000L;
+
+    private BenchmarkFixtures() {
+    }
+
+    static PrivateKey25519 secret(int index) {
+        byte[] seed = String.format("token-benchmark-key-%d", index).getBytes();
+        return PrivateKey25519Creator.getInstance().generateSecret(seed);
+    }
+
+    static String propositionHex(PrivateKey25519 secret) {
+        return ByteUtils.toHexString(secret.publicImage().bytes());
+    }
+
+    static Config config(List<PrivateKey25519> creators) {
+        return config(creators, Collections.singletonList(TOKEN_TYPE));
+    }
+
+    /**
+     * Config of the token application allowing the given creators to mint an unlimited number of tokens of the given types.
+     * The boxes reserved by the API are released immediately, so the same wallet boxes can pay any number of requests.
+     */
+    static Config config(List<PrivateKey25519> creators, Collection<String> types) {
+        StringBuilder propositions = new StringBuilder();
+        for (PrivateKey25519 creator : creators) {
+            if (propositions.length() > 0) {
+                propositions.append(", ");
+            }
+            propositions.append('"').append(propositionHex(creator)).append('"');
+        }
+        StringBuilder typeLimits = new StringBuilder();
+        for (String type : types) {
+            typeLimits.append(String.format("\"%s\" = %d%n", type, Integer.MAX_VALUE));
+        }
+        return ConfigFactory.parseString(String.format(
+                "token {\n" +
+                "  creatorPropositions = [%s]\n" +
+                "  typeLimit {\n%s}\n" +
+                "  boxReservation.timeout = 0ms\n" +
+                "}", propositions, typeLimits));
+    }
+
+    // Canonical ids are stored with the compact encoding, the other ones with the legacy encoding.
+    static String tokenId(boolean canonical, long sequence) {
+        return canonical ? TokenIdAllocator.formatId(1, sequence) : String.format("legacy-token-%d", sequence);
+    }
+
+    static File tempDirectory(String name) {
+        try {
+            return Files.createTempDirectory("token-benchmark-" + name).toFile();
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't create the benchmark storage directory.", e);
+        }
+    }
+
+    static Storage storage(File directory) {
+        return IODBStorageUtil.getStorage(directory);
+    }
+
+    // State without any box: the benchmarks feed the state changes directly to the services.
+    static StateBoxesReader emptyStateBoxes() {
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getAll", args -> Collections.emptyList());
+        return new StateBoxesReader(stub(Storage.class, answers), boxSerializers());
+    }
+
+    private static HashMap<Byte, BoxSerializer<Box<Proposition>>> boxSerializers() {
+        HashMap<Byte, BoxSerializer<Box<Proposition>>> customBoxSerializers = new HashMap<>();
+        customBoxSerializers.put(TokenBoxesIdsEnum.TokenBoxId.id(), (BoxSerializer) TokenBoxSerializer.getSerializer());
+        customBoxSerializers.put(TokenBoxesIdsEnum.TokenSellOrderBoxId.id(), (BoxSerializer) TokenSellOrderBoxSerializer.getSerializer());
+        return customBoxSerializers;
+    }
+
+    static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
+        directory.delete();
+    }
+
+    static byte[] version(Random random) {
+        byte[] version = new byte[32];
+        random.nextBytes(version);
+        return version;
+    }
+
+    static SidechainTransactionsCompanion transactionsCompanion() {
+        HashMap<Byte, NoncedBoxDataSerializer<NoncedBoxData<Proposition, NoncedBox<Proposition>>>> customBoxDataSerializers = new HashMap<>();
+        customBoxDataSerializers.put(TokenBoxesDataIdsEnum.TokenBoxDataId.id(), (NoncedBoxDataSerializer) TokenBoxDataSerializer.getSerializer());
+        customBoxDataSerializers.put(TokenBoxesDataIdsEnum.TokenSellOrderBoxDataId.id(), (NoncedBoxDataSerializer) TokenSellOrderBoxDataSerializer.getSerializer());
+
+        HashMap<Byte, ProofSerializer<Proof<Proposition>>> customProofSerializers = new HashMap<>();
+        customProofSerializers.put(CarRegistryProofsIdsEnum.SellOrderSpendingProofId.id(), (ProofSerializer) SellOrderSpendingProofSerializer.getSerializer());
+
+        HashMap<Byte, TransactionSerializer<BoxTransaction<Proposition, Box<Proposition>>>> customTransactionSerializers = new HashMap<>();
+        customTransactionSerializers.put(TokenTransactionsIdsEnum.CreateTokensTransactionId.id(), (TransactionSerializer) CreateTokensTransactionSerializer.getSerializer());
+        customTransactionSerializers.put(TokenTransactionsIdsEnum.SellTokenTransactionId.id(), (TransactionSerializer) SellTokenTransactionSerializer.getSerializer());
+        customTransactionSerializers.put(TokenTransactionsIdsEnum.BuyTokenTransactionId.id(), (TransactionSerializer) BuyTokenTransactionSerializer.getSerializer());
+        customTransactionSerializers.put(TokenTransactionsIdsEnum.SellTokensTransactionId.id(), (TransactionSerializer) SellTokensTransactionSerializer.getSerializer());
+        customTransactionSerializers.put(TokenTransactionsIdsEnum.BuyTokensTransactionId.id(), (TransactionSerializer) BuyTokensTransactionSerializer.getSerializer());
+
+        return new SidechainTransactionsCompanion(customTransactionSerializers,
+                new SidechainBoxesDataCompanion(customBoxDataSerializers), new SidechainProofsCompanion(customProofSerializers));
+    }
+
+    static RegularBox regularBox(PrivateKey25519 owner, long value, long nonce) {
+        return new RegularBox(new RegularBoxData(owner.publicImage(), value), nonce);
+    }
+
+    static TokenBox tokenBox(PrivateKey25519 owner, String id, long nonce) {
+        return new TokenBoxData(owner.publicImage(), id, TOKEN_TYPE).getBox(nonce);
+    }
+
+    static TokenSellOrderBox sellOrderBox(PrivateKey25519 owner, PrivateKey25519 buyer, String id, long nonce) {
+        SellOrderProposition proposition = new SellOrderProposition(owner.publicImage().pubKeyBytes(), buyer.publicImage().pubKeyBytes());
+        return new TokenSellOrderBoxData(proposition, PRICE, id, TOKEN_TYPE).getBox(nonce);
+    }
+
+    // The change of the payment box, sent back to its owner.
+    private static List<RegularBoxData> change(PrivateKey25519 payer, RegularBox paymentBox, long amountToPay) {
+        List<RegularBoxData> outputs = new ArrayList<>();
+        if (paymentBox.value() > amountToPay) {
+            outputs.add(new RegularBoxData(payer.publicImage(), paymentBox.value() - amountToPay));
+        }
+        return outputs;
+    }
+
+    static CreateTokensTransaction createTokensTransaction(PrivateKey25519 creator, RegularBox paymentBox, List<String> ids) {
+        return createTokensTransaction(creator, paymentBox, ids, TOKEN_TYPE);
+    }
+
+    static CreateTokensTransaction createTokensTransaction(PrivateKey25519 creator, RegularBox paymentBox, List<String> ids,
+                                                           String type) {
+        List<byte[]> inputIds = Collections.singletonList(paymentBox.id());
+        List<RegularBoxData> outputs = change(creator, paymentBox, FEE);
+        TokenBoxData[] tokenBoxData = new TokenBoxData[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            tokenBoxData[i] = new TokenBoxData(creator.publicImage(), ids.get(i), type);
+        }
+        byte[] messageToSign = new CreateTokensTransaction(inputIds, Collections.nCopies(1, null), outputs,
+                tokenBoxData, FEE, TIMESTAMP).messageToSign();
+        return new CreateTokensTransaction(inputIds, Collections.singletonList(creator.sign(messageToSign)), outputs,
+                tokenBoxData, FEE, TIMESTAMP);
+    }
+
+    static SellTokenTransaction sellTokenTransaction(PrivateKey25519 owner, RegularBox paymentBox, TokenBox tokenBox,
+                                                     PrivateKey25519 buyer) {
+        List<byte[]> inputIds = Collections.singletonList(paymentBox.id());
+        List<RegularBoxData> outputs = change(owner, paymentBox, FEE);
+        TokenSellOrderInfo fakeInfo = new TokenSellOrderInfo(tokenBox, null, PRICE, buyer.publicImage());
+        byte[] messageToSign = new SellTokenTransaction(inputIds, Collections.nCopies(1, null), outputs,
+                fakeInfo, FEE, TIMESTAMP).messageToSign();
+        TokenSellOrderInfo info = new TokenSellOrderInfo(tokenBox, owner.sign(messageToSign), PRICE, buyer.publicImage());
+        return new SellTokenTransaction(inputIds, Collections.singletonList(owner.sign(messageToSign)), outputs,
+                info, FEE, TIMESTAMP);
+    }
+
+    static SellTokensTransaction sellTokensTransaction(PrivateKey25519 owner, RegularBox paymentBox, List<TokenBox> tokenBoxes,
+                                                       PrivateKey25519 buyer) {
+        List<byte[]> inputIds = Collections.singletonList(paymentBox.id());
+        List<RegularBoxData> outputs = change(owner, paymentBox, FEE);
+        List<TokenSellOrderInfo> fakeInfos = new ArrayList<>();
+        for (TokenBox tokenBox : tokenBoxes) {
+            fakeInfos.add(new TokenSellOrderInfo(tokenBox, null, PRICE, buyer.publicImage()));
+        }
+        byte[] messageToSign = new SellTokensTransaction(inputIds, Collections.nCopies(1, null), outputs,
+                fakeInfos, FEE, TIMESTAMP).messageToSign();
+        Signature25519 signature = owner.sign(messageToSign);
+        List<TokenSellOrderInfo> infos = new ArrayList<>();
+        for (TokenBox tokenBox : tokenBoxes) {
+            infos.add(new TokenSellOrderInfo(tokenBox, signature, PRICE, buyer.publicImage()));
+        }
+        return new SellTokensTransaction(inputIds, Collections.singletonList(signature), outputs, infos, FEE, TIMESTAMP);
+    }
+
+    static BuyTokenTransaction buyTokenTransaction(PrivateKey25519 buyer, RegularBox paymentBox, TokenSellOrderBox sellOrderBox) {
+        List<byte[]> inputIds = Collections.singletonList(paymentBox.id());
+        List<RegularBoxData> outputs = change(buyer, paymentBox, sellOrderBox.getPrice() + FEE);
+        TokenBuyOrderInfo fakeInfo = new TokenBuyOrderInfo(sellOrderBox,
+                new SellOrderSpendingProof(new byte[SellOrderSpendingProof.SIGNATURE_LENGTH], false));
+        byte[] messageToSign = new BuyTokenTransaction(inputIds, Collections.nCopies(1, null), outputs,
+                fakeInfo, FEE, TIMESTAMP).messageToSign();
+        Signature25519 signature = buyer.sign(messageToSign);
+        TokenBuyOrderInfo info = new TokenBuyOrderInfo(sellOrderBox, new SellOrderSpendingProof(signature.bytes(), false));
+        return new BuyTokenTransaction(inputIds, Collections.singletonList(signature), outputs, info, FEE, TIMESTAMP);
+    }
+
+    static BuyTokensTransaction buyTokensTransaction(PrivateKey25519 buyer, RegularBox paymentBox, List<TokenSellOrderBox> sellOrderBoxes) {
+        long amountToPay = FEE;
+        List<TokenBuyOrderInfo> fakeInfos = new ArrayList<>();
+        for (TokenSellOrderBox sellOrderBox : sellOrderBoxes) {
+            amountToPay += sellOrderBox.getPrice();
+            fakeInfos.add(new TokenBuyOrderInfo(sellOrderBox,
+                    new SellOrderSpendingProof(new byte[SellOrderSpendingProof.SIGNATURE_LENGTH], false)));
+        }
+        List<byte[]> inputIds = Collections.singletonList(paymentBox.id());
+        List<RegularBoxData> outputs = change(buyer, paymentBox, amountToPay);
+        byte[] messageToSign = new BuyTokensTransaction(inputIds, Collections.nCopies(1, null), outputs,
+                fakeInfos, FEE, TIMESTAMP).messageToSign();
+        Signature25519 signature = buyer.sign(messageToSign);
+        List<TokenBuyOrderInfo> infos = new ArrayList<>();
+        for (TokenSellOrderBox sellOrderBox : sellOrderBoxes) {
+            infos.add(new TokenBuyOrderInfo(sellOrderBox, new SellOrderSpendingProof(signature.bytes(), false)));
+        }
+        return new BuyTokensTransaction(inputIds, Collections.singletonList(signature), outputs, infos, FEE, TIMESTAMP);
+    }
+
+    /**
+     * Implement the given SDK interface answering the listed methods by name: the node view interfaces are large and
+     * only a few methods are used by the code under measurement, any other call fails loudly.
+     */
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                default:
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed.");
+            }
+        }));
+    }
+}
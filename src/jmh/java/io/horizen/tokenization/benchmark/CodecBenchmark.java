@@ -0,0 +1,223 @@
+package io.horizen.tokenization.benchmark;
+
+import com.horizen.box.RegularBox;
+import com.horizen.secret.PrivateKey25519;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import io.horizen.tokenization.token.box.data.TokenBoxData;
+import io.horizen.tokenization.token.box.data.TokenSellOrderBoxData;
+import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
+import io.horizen.tokenization.token.proposition.SellOrderProposition;
+import io.horizen.tokenization.token.transaction.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization and parsing of every custom box, box data, proposition, proof and transaction.
+ * The "legacy" encoding uses free form token IDs, the "compact" one the canonical IDs assigned by the allocator.
+ * The compact v2 encoding exists only in the application storages, so the boxes are measured with their storage
+ * encoding ('typedBytes()'); box data, propositions, proofs and transactions always use the legacy encoding.
+ * The transactions are serialized through their serializer: bytes() is memoized and would measure the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"legacy", "compact"})
+    public String encoding;
+
+    // Number of tokens sold or bought by the SellTokensTransaction and BuyTokensTransaction.
+    @Param({"1", "100"})
+    public int tokensPerTransaction;
+
+    private TokenBoxData tokenBoxData;
+    private TokenSellOrderBoxData sellOrderBoxData;
+    private TokenBox tokenBox;
+    private TokenSellOrderBox sellOrderBox;
+    private SellOrderProposition sellOrderProposition;
+    private SellOrderSpendingProof sellOrderSpendingProof;
+    private CreateTokensTransaction createTokensTransaction;
+    private SellTokenTransaction sellTokenTransaction;
+    private BuyTokenTransaction buyTokenTransaction;
+    private SellTokensTransaction sellTokensTransaction;
+    private BuyTokensTransaction buyTokensTransaction;
+
+    private byte[] tokenBoxDataBytes;
+    private byte[] sellOrderBoxDataBytes;
+    private byte[] tokenBoxBytes;
+    private byte[] sellOrderBoxBytes;
+    private byte[] sellOrderPropositionBytes;
+    private byte[] sellOrderSpendingProofBytes;
+    private byte[] createTokensTransactionBytes;
+    private byte[] sellTokenTransactionBytes;
+    private byte[] buyTokenTransactionBytes;
+    private byte[] sellTokensTransactionBytes;
+    private byte[] buyTokensTransactionBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        boolean canonical = "compact".equals(encoding);
+        PrivateKey25519 owner = BenchmarkFixtures.secret(0);
+        PrivateKey25519 buyer = BenchmarkFixtures.secret(1);
+        RegularBox paymentBox = BenchmarkFixtures.regularBox(owner, 1000000000L, 1);
+
+        tokenBox = BenchmarkFixtures.tokenBox(owner, BenchmarkFixtures.tokenId(canonical, 1), 2);
+        tokenBoxData = new TokenBoxData(owner.publicImage(), tokenBox.getID(), tokenBox.getType());
+        sellOrderBox = BenchmarkFixtures.sellOrderBox(owner, buyer, BenchmarkFixtures.tokenId(canonical, 2), 3);
+        sellOrderBoxData = sellOrderBox.getBoxData();
+        sellOrderProposition = sellOrderBox.proposition();
+        sellOrderSpendingProof = new SellOrderSpendingProof(buyer.sign(sellOrderBox.id()).bytes(), false);
+
+        List<String> ids = new ArrayList<>();
+        List<TokenBox> tokenBoxes = new ArrayList<>();
+        List<TokenSellOrderBox> sellOrderBoxes = new ArrayList<>();
+        for (int i = 0; i < tokensPerTransaction; i++) {
+            ids.add(BenchmarkFixtures.tokenId(canonical, 100 + i));
+            tokenBoxes.add(BenchmarkFixtures.tokenBox(owner, BenchmarkFixtures.tokenId(canonical, 1000 + i), 1000 + i));
+            sellOrderBoxes.add(BenchmarkFixtures.sellOrderBox(owner, buyer, BenchmarkFixtures.tokenId(canonical, 2000 + i), 2000 + i));
+        }
+        createTokensTransaction = BenchmarkFixtures.createTokensTransaction(owner, paymentBox, ids);
+        sellTokenTransaction = BenchmarkFixtures.sellTokenTransaction(owner, paymentBox, tokenBox, buyer);
+        buyTokenTransaction = BenchmarkFixtures.buyTokenTransaction(buyer, paymentBox, sellOrderBox);
+        sellTokensTransaction = BenchmarkFixtures.sellTokensTransaction(owner, paymentBox, tokenBoxes, buyer);
+        buyTokensTransaction = BenchmarkFixtures.buyTokensTransaction(buyer, paymentBox, sellOrderBoxes);
+
+        tokenBoxDataBytes = tokenBoxData.bytes();
+        sellOrderBoxDataBytes = sellOrderBoxData.bytes();
+        tokenBoxBytes = tokenBox.typedBytes();
+        sellOrderBoxBytes = sellOrderBox.typedBytes();
+        sellOrderPropositionBytes = sellOrderProposition.bytes();
+        sellOrderSpendingProofBytes = sellOrderSpendingProof.bytes();
+        createTokensTransactionBytes = createTokensTransaction.bytes();
+        sellTokenTransactionBytes = sellTokenTransaction.bytes();
+        buyTokenTransactionBytes = buyTokenTransaction.bytes();
+        sellTokensTransactionBytes = sellTokensTransaction.bytes();
+        buyTokensTransactionBytes = buyTokensTransaction.bytes();
+
+        System.out.println(String.format("%nEncoded sizes (%s, %d tokens per transaction): TokenBoxData %d, TokenSellOrderBoxData %d, " +
+                        "TokenBox %d, TokenSellOrderBox %d, SellOrderProposition %d, SellOrderSpendingProof %d, " +
+                        "CreateTokensTransaction %d, SellTokenTransaction %d, BuyTokenTransaction %d, " +
+                        "SellTokensTransaction %d, BuyTokensTransaction %d bytes",
+                encoding, tokensPerTransaction, tokenBoxDataBytes.length, sellOrderBoxDataBytes.length,
+                tokenBoxBytes.length, sellOrderBoxBytes.length, sellOrderPropositionBytes.length, sellOrderSpendingProofBytes.length,
+                createTokensTransactionBytes.length, sellTokenTransactionBytes.length, buyTokenTransactionBytes.length,
+                sellTokensTransactionBytes.length, buyTokensTransactionBytes.length));
+    }
+
+    @Benchmark
+    public byte[] serializeTokenBoxData() {
+        return tokenBoxData.bytes();
+    }
+
+    @Benchmark
+    public Object parseTokenBoxData() {
+        return tokenBoxData.serializer().parseBytes(tokenBoxDataBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeTokenSellOrderBoxData() {
+        return sellOrderBoxData.bytes();
+    }
+
+    @Benchmark
+    public Object parseTokenSellOrderBoxData() {
+        return sellOrderBoxData.serializer().parseBytes(sellOrderBoxDataBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeTokenBox() {
+        return tokenBox.typedBytes();
+    }
+
+    @Benchmark
+    public Object parseTokenBox() {
+        return TokenBox.parseTypedBytes(tokenBoxBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeTokenSellOrderBox() {
+        return sellOrderBox.typedBytes();
+    }
+
+    @Benchmark
+    public Object parseTokenSellOrderBox() {
+        return TokenSellOrderBox.parseTypedBytes(sellOrderBoxBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeSellOrderProposition() {
+        return sellOrderProposition.bytes();
+    }
+
+    @Benchmark
+    public Object parseSellOrderProposition() {
+        return sellOrderProposition.serializer().parseBytes(sellOrderPropositionBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeSellOrderSpendingProof() {
+        return sellOrderSpendingProof.bytes();
+    }
+
+    @Benchmark
+    public Object parseSellOrderSpendingProof() {
+        return sellOrderSpendingProof.serializer().parseBytes(sellOrderSpendingProofBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeCreateTokensTransaction() {
+        return createTokensTransaction.serializer().toBytes(createTokensTransaction);
+    }
+
+    @Benchmark
+    public Object parseCreateTokensTransaction() {
+        return createTokensTransaction.serializer().parseBytes(createTokensTransactionBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeSellTokenTransaction() {
+        return sellTokenTransaction.serializer().toBytes(sellTokenTransaction);
+    }
+
+    @Benchmark
+    public Object parseSellTokenTransaction() {
+        return sellTokenTransaction.serializer().parseBytes(sellTokenTransactionBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeBuyTokenTransaction() {
+        return buyTokenTransaction.serializer().toBytes(buyTokenTransaction);
+    }
+
+    @Benchmark
+    public Object parseBuyTokenTransaction() {
+        return buyTokenTransaction.serializer().parseBytes(buyTokenTransactionBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeSellTokensTransaction() {
+        return sellTokensTransaction.serializer().toBytes(sellTokensTransaction);
+    }
+
+    @Benchmark
+    public Object parseSellTokensTransaction() {
+        return sellTokensTransaction.serializer().parseBytes(sellTokensTransactionBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeBuyTokensTransaction() {
+        return buyTokensTransaction.serializer().toBytes(buyTokensTransaction);
+    }
+
+    @Benchmark
+    public Object parseBuyTokensTransaction() {
+        return buyTokensTransaction.serializer().parseBytes(buyTokensTransactionBytes);
+    }
+}
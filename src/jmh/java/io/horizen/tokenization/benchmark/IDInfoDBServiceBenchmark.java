@@ -0,0 +1,132 @@
+package io.horizen.tokenization.benchmark;
+
+import com.horizen.storage.Storage;
+import com.typesafe.config.Config;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
+import io.horizen.tokenization.token.services.IDInfoDBService;
+import io.horizen.tokenization.token.services.MempoolIndex;
+import io.horizen.tokenization.token.services.TokenSupplyDBService;
+import io.horizen.tokenization.token.services.TokenIdSequenceDBService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IDInfoDBService lookups, updates and rollbacks against an IODB storage in a temporary directory, pre-filled with
+ * the given number of token IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IDInfoDBServiceBenchmark {
+
+    // Number of IDs stored by each version of the pre-filled storage.
+    private static final int IDS_PER_VERSION = 1000;
+
+    @Param({"10000", "100000"})
+    public int storedIds;
+
+    // Number of IDs added by each measured update.
+    @Param({"1", "100"})
+    public int idsPerUpdate;
+
+    private File directory;
+    private File supplyDirectory;
+    private File sequenceDirectory;
+    private Storage storage;
+    private Storage supplyStorage;
+    private Storage sequenceStorage;
+    private IDInfoDBService service;
+    private Random random;
+    private String[] existingIds;
+    private String[] missingIds;
+    private byte[] lastVersion;
+    private long nextSequence;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Config config = BenchmarkFixtures.config(Collections.singletonList(BenchmarkFixtures.secret(0)));
+        directory = BenchmarkFixtures.tempDirectory("id-info");
+        supplyDirectory = BenchmarkFixtures.tempDirectory("supply");
+        sequenceDirectory = BenchmarkFixtures.tempDirectory("sequences");
+        storage = BenchmarkFixtures.storage(directory);
+        supplyStorage = BenchmarkFixtures.storage(supplyDirectory);
+        sequenceStorage = BenchmarkFixtures.storage(sequenceDirectory);
+        service = new IDInfoDBService(storage, new TokenSupplyDBService(supplyStorage, config),
+                new TokenIdSequenceDBService(sequenceStorage), new MempoolIndex(), new TokenMetrics(), config);
+        random = new Random(42);
+
+        existingIds = new String[storedIds];
+        missingIds = new String[storedIds];
+        for (int i = 0; i < storedIds; i += IDS_PER_VERSION) {
+            Set<String> ids = new HashSet<>();
+            for (int j = i; j < Math.min(storedIds, i + IDS_PER_VERSION); j++) {
+                existingIds[j] = BenchmarkFixtures.tokenId(true, j + 1);
+                ids.add(existingIds[j]);
+            }
+            lastVersion = BenchmarkFixtures.version(random);
+            service.updateAll(lastVersion, ids, typeCount(ids.size()));
+        }
+        for (int i = 0; i < storedIds; i++) {
+            missingIds[i] = BenchmarkFixtures.tokenId(true, storedIds + i + 1);
+        }
+        nextSequence = 2L * storedIds + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+        supplyStorage.close();
+        sequenceStorage.close();
+        BenchmarkFixtures.deleteDirectory(directory);
+        BenchmarkFixtures.deleteDirectory(supplyDirectory);
+        BenchmarkFixtures.deleteDirectory(sequenceDirectory);
+    }
+
+    private static HashMap<String, Integer> typeCount(int count) {
+        HashMap<String, Integer> typeToAdd = new HashMap<>();
+        typeToAdd.put(BenchmarkFixtures.TOKEN_TYPE, count);
+        return typeToAdd;
+    }
+
+    private Set<String> newIds() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < idsPerUpdate; i++) {
+            ids.add(BenchmarkFixtures.tokenId(true, nextSequence++));
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public boolean validateExistingId() {
+        cursor = (cursor + 1) % storedIds;
+        return service.validateId(existingIds[cursor], false);
+    }
+
+    @Benchmark
+    public boolean validateMissingId() {
+        cursor = (cursor + 1) % storedIds;
+        return service.validateId(missingIds[cursor], false);
+    }
+
+    // The storage grows along the measurement, by idsPerUpdate IDs for each call.
+    @Benchmark
+    public void updateAll() {
+        Set<String> ids = newIds();
+        service.updateAll(BenchmarkFixtures.version(random), ids, typeCount(ids.size()));
+    }
+
+    // A new version is applied and immediately rolled back, so the storage size stays constant.
+    @Benchmark
+    public void updateAllAndRollback() {
+        Set<String> ids = newIds();
+        service.updateAll(BenchmarkFixtures.version(random), ids, typeCount(ids.size()));
+        service.rollback(lastVersion);
+    }
+}
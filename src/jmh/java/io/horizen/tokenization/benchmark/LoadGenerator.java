@@ -0,0 +1,386 @@
+package io.horizen.tokenization.benchmark;
+
+import com.horizen.box.Box;
+import com.horizen.box.RegularBox;
+import com.horizen.node.NodeMemoryPool;
+import com.horizen.proposition.Proposition;
+import com.horizen.secret.PrivateKey25519;
+import com.horizen.state.SidechainStateReader;
+import com.horizen.storage.Storage;
+import com.horizen.transaction.BoxTransaction;
+import com.horizen.utils.ByteArrayWrapper;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValue;
+import io.horizen.tokenization.TokenApplicationState;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
+import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
+import io.horizen.tokenization.token.proof.VerifiedSignatureCache;
+import io.horizen.tokenization.token.services.*;
+import io.horizen.tokenization.token.transaction.CreateTokensTransaction;
+import io.horizen.tokenization.token.transaction.SellTokenTransaction;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Offline load generator driving the token application state end to end, the way a node does:
+ * - signed CreateTokens, SellToken and BuyToken transactions are generated with the configured mix and token types,
+ *   and admitted to a simulated mempool through TokenApplicationState.validate(transaction);
+ * - once the mempool holds the configured depth plus a block, the oldest transactions are taken as a block, validated
+ *   together and applied with onApplyChanges, updating the IODB CarInfoStorage and sell orders storage.
+ * Sell orders are created only for tokens minted in previous blocks, and accepted only once applied, so every
+ * transaction is valid. The generation and signing of the transactions is not measured.
+ * At the end the throughput, the latency percentiles of admission, block validation and block application, and the
+ * allocation rate of all the JVM threads are printed.
+ *
+ * Parameters are given as HOCON "key=value" arguments, e.g.:
+ * java -cp target/benchmarks.jar io.horizen.tokenization.benchmark.LoadGenerator blocks=500 mix.buy=2 mempoolDepth=5000
+ */
+public final class LoadGenerator {
+
+    private static final String DEFAULTS =
+            "blocks = 200\n" +
+            "warmupBlocks = 20\n" +
+            "transactionsPerBlock = 100\n" +
+            "mempoolDepth = 1000\n" +
+            "tokensPerMint = 1\n" +
+            "traders = 8\n" +
+            "seed = 42\n" +
+            "mix { create = 1, sell = 1, buy = 1 }\n" +
+            "types { ART = 0.6, MUSIC = 0.3, GAME = 0.1 }\n" +
+            "dataDir = \"\"\n";
+
+    private enum Kind { Create, Sell, Buy }
+
+    private final Config params;
+    private final Random random;
+    private final List<PrivateKey25519> traders = new ArrayList<>();
+    private final Map<ByteArrayWrapper, PrivateKey25519> secrets = new HashMap<>();
+    private final List<String> types = new ArrayList<>();
+    private final double[] typeWeights;
+    private final double[] kindWeights;
+    private final long[] sequences;
+
+    // Boxes of the applied state, and the ones not yet opened by a pending transaction.
+    private final Map<ByteArrayWrapper, Box> closedBoxes = new HashMap<>();
+    private final List<TokenBox> freeTokens = new ArrayList<>();
+    private final List<TokenSellOrderBox> freeSellOrders = new ArrayList<>();
+    private final Deque<BoxTransaction<Proposition, Box<Proposition>>> mempool = new ArrayDeque<>();
+    private long paymentNonce;
+
+    private final File dataDir;
+    private final boolean temporaryDataDir;
+    private final Storage idInfoStorage;
+    private final Storage sellOrderStorage;
+    private final Storage supplyStorage;
+    private final Storage sequenceStorage;
+    private final IDInfoDBService idInfoDBService;
+    private final TokenApplicationState state;
+    private final SidechainStateReader stateReader;
+    private final NodeMemoryPool memoryPool;
+
+    private LoadGenerator(Config params) {
+        this.params = params;
+        this.random = new Random(params.getLong("seed"));
+        for (int i = 0; i < params.getInt("traders"); i++) {
+            PrivateKey25519 trader = BenchmarkFixtures.secret(i);
+            traders.add(trader);
+            secrets.put(new ByteArrayWrapper(trader.publicImage().pubKeyBytes()), trader);
+        }
+        this.sequences = new long[traders.size()];
+
+        List<Double> weights = new ArrayList<>();
+        // Sorted, so the same seed always gives the same workload.
+        for (Map.Entry<String, ConfigValue> entry : new TreeMap<>(params.getObject("types")).entrySet()) {
+            types.add(entry.getKey());
+            weights.add(((Number) entry.getValue().unwrapped()).doubleValue());
+        }
+        this.typeWeights = weights.stream().mapToDouble(Double::doubleValue).toArray();
+        this.kindWeights = new double[]{params.getDouble("mix.create"), params.getDouble("mix.sell"), params.getDouble("mix.buy")};
+
+        String dataDirPath = params.getString("dataDir");
+        this.temporaryDataDir = dataDirPath.isEmpty();
+        this.dataDir = temporaryDataDir ? BenchmarkFixtures.tempDirectory("load") : new File(dataDirPath);
+        File carInfoStore = new File(dataDir, "cars");
+        File tokenSellOrderStore = new File(dataDir, "tokenSellOrders");
+        File tokenSupplyStore = new File(dataDir, "tokenSupply");
+        File tokenIdSequenceStore = new File(dataDir, "tokenIdSequences");
+        carInfoStore.mkdirs();
+        tokenSellOrderStore.mkdirs();
+        tokenSupplyStore.mkdirs();
+        tokenIdSequenceStore.mkdirs();
+        this.idInfoStorage = BenchmarkFixtures.storage(carInfoStore);
+        this.sellOrderStorage = BenchmarkFixtures.storage(tokenSellOrderStore);
+        this.supplyStorage = BenchmarkFixtures.storage(tokenSupplyStore);
+        this.sequenceStorage = BenchmarkFixtures.storage(tokenIdSequenceStore);
+
+        Config config = BenchmarkFixtures.config(traders, types);
+        TokenMetrics metrics = new TokenMetrics();
+        VerifiedSignatureCache signatureCache = new VerifiedSignatureCache(config);
+        SellOrderSpendingProof.setSignatureCache(signatureCache);
+        TokenSupplyDBService tokenSupplyDBService = new TokenSupplyDBService(supplyStorage, config);
+        StateBoxesReader stateBoxesReader = BenchmarkFixtures.emptyStateBoxes();
+        TokenIdSequenceDBService tokenIdSequenceDBService = new TokenIdSequenceDBService(sequenceStorage);
+        this.idInfoDBService = new IDInfoDBService(idInfoStorage, tokenSupplyDBService,
+                tokenIdSequenceDBService, new MempoolIndex(), metrics, config);
+        this.state = new TokenApplicationState(idInfoDBService, new TokenValidationService(idInfoDBService, new CreatorAuthorization(config), config),
+                new SellOrderDBService(sellOrderStorage, stateBoxesReader), metrics);
+        // A reused data dir already holds some tokens: continue their sequences.
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = tokenIdSequenceDBService.getHighestSequence(i + 1);
+        }
+
+        Map<String, Function<Object[], Object>> stateAnswers = new HashMap<>();
+        stateAnswers.put("getClosedBox", args -> Optional.ofNullable(closedBoxes.get(new ByteArrayWrapper((byte[]) args[0]))));
+        this.stateReader = BenchmarkFixtures.stub(SidechainStateReader.class, stateAnswers);
+        Map<String, Function<Object[], Object>> memoryPoolAnswers = new HashMap<>();
+        memoryPoolAnswers.put("getTransactions", args -> new ArrayList<>(mempool));
+        this.memoryPool = BenchmarkFixtures.stub(NodeMemoryPool.class, memoryPoolAnswers);
+    }
+
+    public static void main(String[] args) {
+        Config params = ConfigFactory.parseString(String.join("\n", args))
+                .withFallback(ConfigFactory.parseString(DEFAULTS))
+                .resolve();
+        LoadGenerator generator = new LoadGenerator(params);
+        try {
+            generator.run();
+        } finally {
+            generator.close();
+        }
+    }
+
+    private void run() {
+        int warmupBlocks = params.getInt("warmupBlocks");
+        int blocks = params.getInt("blocks");
+        int transactionsPerBlock = params.getInt("transactionsPerBlock");
+        int mempoolDepth = params.getInt("mempoolDepth");
+
+        Stats admission = new Stats();
+        Stats blockValidation = new Stats();
+        Stats blockApply = new Stats();
+        int[] measuredKinds = new int[Kind.values().length];
+        long measuredTokens = 0;
+        long measuredNanos = 0;
+        long allocatedBefore = 0;
+        long rejected = 0;
+
+        for (int block = 0; block < warmupBlocks + blocks; block++) {
+            boolean measured = block >= warmupBlocks;
+            if (block == warmupBlocks) {
+                allocatedBefore = allocatedBytes();
+            }
+
+            // Fill the mempool, admitting each transaction as the node does on submission.
+            while (mempool.size() < mempoolDepth + transactionsPerBlock) {
+                Kind kind = nextKind();
+                BoxTransaction<Proposition, Box<Proposition>> transaction = generate(kind);
+                long start = System.nanoTime();
+                boolean valid = transaction.transactionSemanticValidity() && state.validate(stateReader, transaction);
+                long elapsed = System.nanoTime() - start;
+                if (!valid) {
+                    rejected++;
+                    continue;
+                }
+                mempool.addLast(transaction);
+                if (measured) {
+                    admission.add(elapsed);
+                    measuredNanos += elapsed;
+                }
+            }
+            idInfoDBService.updateMempoolIndex(memoryPool);
+
+            // Forge the next block with the oldest transactions.
+            List<BoxTransaction<Proposition, Box<Proposition>>> transactions = new ArrayList<>(transactionsPerBlock);
+            List<Box<Proposition>> newBoxes = new ArrayList<>();
+            List<byte[]> boxIdsToRemove = new ArrayList<>();
+            for (int i = 0; i < transactionsPerBlock; i++) {
+                BoxTransaction<Proposition, Box<Proposition>> transaction = mempool.pollFirst();
+                transactions.add(transaction);
+                newBoxes.addAll((List) transaction.newBoxes());
+                for (ByteArrayWrapper boxId : transaction.boxIdsToOpen()) {
+                    boxIdsToRemove.add(boxId.data());
+                }
+                if (measured) {
+                    measuredKinds[kindOf(transaction).ordinal()]++;
+                    if (CreateTokensTransaction.class.isInstance(transaction)) {
+                        measuredTokens += transaction.newBoxes().stream().filter(TokenBox.class::isInstance).count();
+                    }
+                }
+            }
+
+            long start = System.nanoTime();
+            if (!state.validateTransactions(stateReader, transactions)) {
+                throw new IllegalStateException(String.format("Block %d is not valid.", block));
+            }
+            long validated = System.nanoTime();
+            state.onApplyChanges(stateReader, BenchmarkFixtures.version(random), newBoxes, boxIdsToRemove).get();
+            long applied = System.nanoTime();
+            if (measured) {
+                blockValidation.add(validated - start);
+                blockApply.add(applied - validated);
+                measuredNanos += applied - start;
+            }
+
+            applyToClosedBoxes(newBoxes, boxIdsToRemove);
+        }
+
+        long allocated = allocatedBytes() - allocatedBefore;
+        int measuredTransactions = blocks * transactionsPerBlock;
+        double seconds = measuredNanos / 1e9;
+        System.out.println(String.format("Load: %d blocks of %d transactions after %d warmup blocks, mempool depth %d, " +
+                        "mix create/sell/buy %s/%s/%s, types %s",
+                blocks, transactionsPerBlock, warmupBlocks, mempoolDepth,
+                kindWeights[0], kindWeights[1], kindWeights[2], params.getObject("types").unwrapped()));
+        System.out.println(String.format("Applied: %d CreateTokens (%d tokens), %d SellToken, %d BuyToken; %d rejected at admission",
+                measuredKinds[Kind.Create.ordinal()], measuredTokens, measuredKinds[Kind.Sell.ordinal()],
+                measuredKinds[Kind.Buy.ordinal()], rejected));
+        System.out.println(String.format("Throughput: %.1f tx/s, %.1f minted tokens/s, %.1f trades/s",
+                measuredTransactions / seconds, measuredTokens / seconds,
+                (measuredKinds[Kind.Sell.ordinal()] + measuredKinds[Kind.Buy.ordinal()]) / seconds));
+        System.out.println("Admission latency (us):        " + admission.percentiles(1e3));
+        System.out.println("Block validation latency (ms): " + blockValidation.percentiles(1e6));
+        System.out.println("Block apply latency (ms):      " + blockApply.percentiles(1e6));
+        System.out.println(String.format("Allocation: %.1f MB/s, %.1f KB/tx (transaction generation included)",
+                allocated / seconds / (1024 * 1024), allocated / (double) measuredTransactions / 1024));
+    }
+
+    private void close() {
+        idInfoStorage.close();
+        sellOrderStorage.close();
+        supplyStorage.close();
+        sequenceStorage.close();
+        if (temporaryDataDir) {
+            BenchmarkFixtures.deleteDirectory(dataDir);
+        }
+    }
+
+    private Kind nextKind() {
+        Kind kind = Kind.values()[pick(kindWeights)];
+        // Trades need boxes of the applied state: mint until some are available.
+        if (kind == Kind.Buy && freeSellOrders.isEmpty()) {
+            kind = Kind.Sell;
+        }
+        if (kind == Kind.Sell && freeTokens.isEmpty()) {
+            kind = Kind.Create;
+        }
+        return kind;
+    }
+
+    private static Kind kindOf(BoxTransaction<Proposition, Box<Proposition>> transaction) {
+        if (CreateTokensTransaction.class.isInstance(transaction)) {
+            return Kind.Create;
+        }
+        return SellTokenTransaction.class.isInstance(transaction) ? Kind.Sell : Kind.Buy;
+    }
+
+    private int pick(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double value = random.nextDouble() * total;
+        for (int i = 0; i < weights.length - 1; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private BoxTransaction<Proposition, Box<Proposition>> generate(Kind kind) {
+        switch (kind) {
+            case Create: {
+                int creator = random.nextInt(traders.size());
+                List<String> ids = new ArrayList<>();
+                for (int i = 0; i < params.getInt("tokensPerMint"); i++) {
+                    ids.add(TokenIdAllocator.formatId(creator + 1, ++sequences[creator]));
+                }
+                String type = types.get(pick(typeWeights));
+                return (BoxTransaction) BenchmarkFixtures.createTokensTransaction(traders.get(creator),
+                        payment(traders.get(creator)), ids, type);
+            }
+            case Sell: {
+                TokenBox tokenBox = freeTokens.remove(random.nextInt(freeTokens.size()));
+                PrivateKey25519 owner = secrets.get(new ByteArrayWrapper(tokenBox.proposition().pubKeyBytes()));
+                PrivateKey25519 buyer = traders.get(random.nextInt(traders.size()));
+                return (BoxTransaction) BenchmarkFixtures.sellTokenTransaction(owner, payment(owner), tokenBox, buyer);
+            }
+            default: {
+                TokenSellOrderBox sellOrderBox = freeSellOrders.remove(random.nextInt(freeSellOrders.size()));
+                PrivateKey25519 buyer = secrets.get(new ByteArrayWrapper(sellOrderBox.proposition().getBuyerPublicKeyBytes()));
+                return (BoxTransaction) BenchmarkFixtures.buyTokenTransaction(buyer, payment(buyer), sellOrderBox);
+            }
+        }
+    }
+
+    // A new regular box of the given owner, as received from some payment of an earlier block.
+    private RegularBox payment(PrivateKey25519 owner) {
+        RegularBox box = BenchmarkFixtures.regularBox(owner, 1000000000L, ++paymentNonce);
+        closedBoxes.put(new ByteArrayWrapper(box.id()), box);
+        return box;
+    }
+
+    private void applyToClosedBoxes(List<Box<Proposition>> newBoxes, List<byte[]> boxIdsToRemove) {
+        for (byte[] boxId : boxIdsToRemove) {
+            closedBoxes.remove(new ByteArrayWrapper(boxId));
+        }
+        // The regular outputs are never spent by the generated transactions: payments use new boxes.
+        for (Box<Proposition> box : newBoxes) {
+            if (TokenBox.class.isInstance(box)) {
+                closedBoxes.put(new ByteArrayWrapper(box.id()), box);
+                freeTokens.add(TokenBox.class.cast(box));
+            } else if (TokenSellOrderBox.class.isInstance(box)) {
+                closedBoxes.put(new ByteArrayWrapper(box.id()), box);
+                freeSellOrders.add(TokenSellOrderBox.class.cast(box));
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (long allocated : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    private static final class Stats {
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private String percentiles(double unit) {
+            if (size == 0) {
+                return "no samples";
+            }
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return String.format("p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f (%d samples)",
+                    percentile(sorted, 0.5) / unit, percentile(sorted, 0.9) / unit, percentile(sorted, 0.99) / unit,
+                    percentile(sorted, 0.999) / unit, sorted[size - 1] / unit, size);
+        }
+
+        private static long percentile(long[] sorted, double rank) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(rank * sorted.length) - 1)];
+        }
+    }
+}
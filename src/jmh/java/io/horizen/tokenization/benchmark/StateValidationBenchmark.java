@@ -0,0 +1,169 @@
+package io.horizen.tokenization.benchmark;
+
+import com.horizen.box.Box;
+import com.horizen.box.BoxUnlocker;
+import com.horizen.box.RegularBox;
+import com.horizen.proposition.Proposition;
+import com.horizen.secret.PrivateKey25519;
+import com.horizen.state.SidechainStateReader;
+import com.horizen.storage.Storage;
+import com.horizen.transaction.BoxTransaction;
+import com.horizen.utils.ByteArrayWrapper;
+import com.typesafe.config.Config;
+import io.horizen.tokenization.TokenApplicationState;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
+import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
+import io.horizen.tokenization.token.proof.VerifiedSignatureCache;
+import io.horizen.tokenization.token.services.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Block validation of the token application state, for blocks of 1 to 10k transactions.
+ * The blocks mix in equal parts CreateTokensTransactions, SellTokenTransactions and BuyTokenTransactions, all with
+ * valid signatures and inputs present in a stubbed state.
+ * As the SDK state does, the proofs of the transaction inputs are verified before the application state validates the
+ * block: the SellOrderSpendingProofs go through the verified signatures cache, the Signature25519 proofs are always
+ * verified.
+ * With cachedSignatures=true the transactions are first admitted as mempool transactions, so the block validation finds
+ * their signatures and token checks cached. With cachedSignatures=false the verified signatures cache is emptied before
+ * each validation and the token checks were never cached, as for a block whose transactions were never seen in the mempool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StateValidationBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int transactions;
+
+    @Param({"true", "false"})
+    public boolean cachedSignatures;
+
+    private File idInfoDirectory;
+    private File sellOrderDirectory;
+    private File supplyDirectory;
+    private File sequenceDirectory;
+    private Storage idInfoStorage;
+    private Storage sellOrderStorage;
+    private Storage supplyStorage;
+    private Storage sequenceStorage;
+    private VerifiedSignatureCache signatureCache;
+    private TokenApplicationState state;
+    private SidechainStateReader stateReader;
+    private List<BoxTransaction<Proposition, Box<Proposition>>> block;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PrivateKey25519 creator = BenchmarkFixtures.secret(0);
+        PrivateKey25519 buyer = BenchmarkFixtures.secret(1);
+        Config config = BenchmarkFixtures.config(Collections.singletonList(creator));
+
+        idInfoDirectory = BenchmarkFixtures.tempDirectory("state-ids");
+        sellOrderDirectory = BenchmarkFixtures.tempDirectory("state-sell-orders");
+        supplyDirectory = BenchmarkFixtures.tempDirectory("state-supply");
+        sequenceDirectory = BenchmarkFixtures.tempDirectory("state-sequences");
+        idInfoStorage = BenchmarkFixtures.storage(idInfoDirectory);
+        sellOrderStorage = BenchmarkFixtures.storage(sellOrderDirectory);
+        supplyStorage = BenchmarkFixtures.storage(supplyDirectory);
+        sequenceStorage = BenchmarkFixtures.storage(sequenceDirectory);
+        TokenMetrics metrics = new TokenMetrics();
+        signatureCache = new VerifiedSignatureCache(config);
+        SellOrderSpendingProof.setSignatureCache(signatureCache);
+        TokenSupplyDBService tokenSupplyDBService = new TokenSupplyDBService(supplyStorage, config);
+        StateBoxesReader stateBoxesReader = BenchmarkFixtures.emptyStateBoxes();
+        IDInfoDBService idInfoDBService = new IDInfoDBService(idInfoStorage, tokenSupplyDBService,
+                new TokenIdSequenceDBService(sequenceStorage), new MempoolIndex(), metrics, config);
+        state = new TokenApplicationState(idInfoDBService, new TokenValidationService(idInfoDBService, new CreatorAuthorization(config), config),
+                new SellOrderDBService(sellOrderStorage, stateBoxesReader), metrics);
+
+        Map<ByteArrayWrapper, Box> closedBoxes = new HashMap<>();
+        block = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            String id = BenchmarkFixtures.tokenId(true, i + 1);
+            BoxTransaction transaction;
+            switch (i % 3) {
+                case 0: {
+                    RegularBox paymentBox = BenchmarkFixtures.regularBox(creator, 1000000L, i);
+                    closedBoxes.put(new ByteArrayWrapper(paymentBox.id()), paymentBox);
+                    transaction = BenchmarkFixtures.createTokensTransaction(creator, paymentBox, Collections.singletonList(id));
+                    break;
+                }
+                case 1: {
+                    RegularBox paymentBox = BenchmarkFixtures.regularBox(creator, 1000000L, i);
+                    TokenBox tokenBox = BenchmarkFixtures.tokenBox(creator, id, i);
+                    closedBoxes.put(new ByteArrayWrapper(paymentBox.id()), paymentBox);
+                    closedBoxes.put(new ByteArrayWrapper(tokenBox.id()), tokenBox);
+                    transaction = BenchmarkFixtures.sellTokenTransaction(creator, paymentBox, tokenBox, buyer);
+                    break;
+                }
+                default: {
+                    RegularBox paymentBox = BenchmarkFixtures.regularBox(buyer, 1000000L, i);
+                    TokenSellOrderBox sellOrderBox = BenchmarkFixtures.sellOrderBox(creator, buyer, id, i);
+                    closedBoxes.put(new ByteArrayWrapper(paymentBox.id()), paymentBox);
+                    closedBoxes.put(new ByteArrayWrapper(sellOrderBox.id()), sellOrderBox);
+                    transaction = BenchmarkFixtures.buyTokenTransaction(buyer, paymentBox, sellOrderBox);
+                    break;
+                }
+            }
+            block.add(transaction);
+        }
+
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getClosedBox", args -> Optional.ofNullable(closedBoxes.get(new ByteArrayWrapper((byte[]) args[0]))));
+        stateReader = BenchmarkFixtures.stub(SidechainStateReader.class, answers);
+
+        signatureCache.clear();
+        if (!validateBlock()) {
+            throw new IllegalStateException("The benchmark block is not valid.");
+        }
+        if (cachedSignatures) {
+            for (BoxTransaction<Proposition, Box<Proposition>> transaction : block) {
+                state.validate(stateReader, transaction);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        idInfoStorage.close();
+        sellOrderStorage.close();
+        supplyStorage.close();
+        sequenceStorage.close();
+        BenchmarkFixtures.deleteDirectory(idInfoDirectory);
+        BenchmarkFixtures.deleteDirectory(sellOrderDirectory);
+        BenchmarkFixtures.deleteDirectory(supplyDirectory);
+        BenchmarkFixtures.deleteDirectory(sequenceDirectory);
+    }
+
+    @Benchmark
+    public boolean validateBlock() {
+        // Emptying the cache is negligible compared with the Ed25519 verification of the whole block.
+        if (!cachedSignatures) {
+            signatureCache.clear();
+        }
+        return verifyProofs() && state.validateTransactions(stateReader, block);
+    }
+
+    private boolean verifyProofs() {
+        for (BoxTransaction<Proposition, Box<Proposition>> transaction : block) {
+            byte[] message = transaction.messageToSign();
+            for (BoxUnlocker<Proposition> unlocker : transaction.unlockers()) {
+                Optional<Box> closedBox = stateReader.getClosedBox(unlocker.closedBoxId());
+                if (!closedBox.isPresent() || !unlocker.boxKey().isValid(closedBox.get().proposition(), message)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,195 @@
+package io.horizen.tokenization.benchmark;
+
+import com.horizen.api.http.ApiResponse;
+import com.horizen.api.http.ErrorResponse;
+import com.horizen.box.Box;
+import com.horizen.box.RegularBox;
+import com.horizen.companion.SidechainTransactionsCompanion;
+import com.horizen.node.*;
+import com.horizen.proposition.Proposition;
+import com.horizen.secret.PrivateKey25519;
+import com.horizen.secret.Secret;
+import com.horizen.storage.Storage;
+import com.typesafe.config.Config;
+import io.horizen.tokenization.token.api.TokenApi;
+import io.horizen.tokenization.token.api.request.CreateTokenSellOrderRequest;
+import io.horizen.tokenization.token.api.request.CreateTokensRequest;
+import io.horizen.tokenization.token.api.request.SpendTokenSellOrderRequest;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
+import io.horizen.tokenization.token.services.*;
+import org.bouncycastle.pqc.math.linearalgebra.ByteUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Transaction building paths of the TokenApi, from the request to the hex encoded signed transaction, against a
+ * stubbed node view: a wallet with the given number of payment boxes, an empty mempool and a state holding a sell order
+ * addressed to the wallet. The route handlers are called directly, without the HTTP layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TokenApiBenchmark {
+
+    @Param({"10", "1000"})
+    public int walletBoxes;
+
+    // Number of tokens minted by each createTokens request.
+    @Param({"1", "100"})
+    public int tokensPerRequest;
+
+    private final List<File> directories = new ArrayList<>();
+    private final List<Storage> storages = new ArrayList<>();
+    private TokenApi tokenApi;
+    private SidechainNodeView view;
+    private Method createTokens;
+    private Method createTokenSellOrder;
+    private Method acceptTokenSellOrder;
+    private CreateTokensRequest createTokensRequest;
+    private CreateTokenSellOrderRequest createTokenSellOrderRequest;
+    private SpendTokenSellOrderRequest acceptTokenSellOrderRequest;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        PrivateKey25519 owner = BenchmarkFixtures.secret(0);
+        PrivateKey25519 seller = BenchmarkFixtures.secret(1);
+        Config config = BenchmarkFixtures.config(Collections.singletonList(owner));
+        SidechainTransactionsCompanion companion = BenchmarkFixtures.transactionsCompanion();
+        Random random = new Random(42);
+
+        MempoolIndex mempoolIndex = new MempoolIndex();
+        TokenMetrics metrics = new TokenMetrics();
+        TokenSupplyDBService tokenSupplyDBService = new TokenSupplyDBService(storage("api-supply"), config);
+        TokenIdSequenceDBService tokenIdSequenceDBService = new TokenIdSequenceDBService(storage("api-sequences"));
+        IDInfoDBService idInfoDBService = new IDInfoDBService(storage("api-ids"), tokenSupplyDBService, tokenIdSequenceDBService,
+                mempoolIndex, metrics, config);
+        TokenWalletDBService tokenWalletDBService = new TokenWalletDBService(storage("api-token-wallet"));
+        SellOrderDBService sellOrderDBService = new SellOrderDBService(storage("api-sell-orders"), BenchmarkFixtures.emptyStateBoxes());
+        CoinSelectionService coinSelectionService = new CoinSelectionService(new WalletCoinIndex(),
+                new BoxReservationRegistry(mempoolIndex, config), config);
+        CreatorAuthorization creatorAuthorization = new CreatorAuthorization(config);
+        TokenIdAllocator tokenIdAllocator = new TokenIdAllocator(idInfoDBService, tokenIdSequenceDBService,
+                mempoolIndex, creatorAuthorization);
+        BulkMintService bulkMintService = new BulkMintService(companion, idInfoDBService, coinSelectionService, tokenIdAllocator,
+                creatorAuthorization, config);
+        tokenApi = new TokenApi(companion, idInfoDBService, coinSelectionService, tokenWalletDBService,
+                sellOrderDBService, bulkMintService, tokenIdAllocator, tokenSupplyDBService, creatorAuthorization, metrics, config);
+
+        List<Box<Proposition>> paymentBoxes = new ArrayList<>();
+        for (int i = 0; i < walletBoxes; i++) {
+            paymentBoxes.add((Box) BenchmarkFixtures.regularBox(owner, 1000000L + random.nextInt(1000000), i));
+        }
+        TokenBox tokenBox = BenchmarkFixtures.tokenBox(owner, BenchmarkFixtures.tokenId(true, 1), 1);
+        TokenSellOrderBox sellOrderBox = BenchmarkFixtures.sellOrderBox(seller, owner, BenchmarkFixtures.tokenId(true, 2), 2);
+
+        Map<String, Function<Object[], Object>> walletAnswers = new HashMap<>();
+        walletAnswers.put("boxesOfType", args -> RegularBox.class.equals(args[0]) ? paymentBoxes :
+                TokenBox.class.equals(args[0]) ? Collections.singletonList((Box) tokenBox) : Collections.emptyList());
+        walletAnswers.put("secretByPublicKey", args -> owner.publicImage().equals(args[0]) ? Optional.of((Secret) owner) : Optional.empty());
+        walletAnswers.put("allSecrets", args -> Collections.singletonList((Secret) owner));
+        NodeWallet wallet = BenchmarkFixtures.stub(NodeWallet.class, walletAnswers);
+
+        Map<String, Function<Object[], Object>> memoryPoolAnswers = new HashMap<>();
+        memoryPoolAnswers.put("getTransactions", args -> Collections.emptyList());
+        NodeMemoryPool memoryPool = BenchmarkFixtures.stub(NodeMemoryPool.class, memoryPoolAnswers);
+
+        Map<String, Function<Object[], Object>> stateAnswers = new HashMap<>();
+        stateAnswers.put("getClosedBox", args -> Arrays.equals(sellOrderBox.id(), (byte[]) args[0]) ?
+                Optional.of((Box) sellOrderBox) : Optional.empty());
+        NodeState state = BenchmarkFixtures.stub(NodeState.class, stateAnswers);
+
+        Map<String, Function<Object[], Object>> viewAnswers = new HashMap<>();
+        viewAnswers.put("getNodeWallet", args -> wallet);
+        viewAnswers.put("getNodeMemoryPool", args -> memoryPool);
+        viewAnswers.put("getNodeState", args -> state);
+        view = BenchmarkFixtures.stub(SidechainNodeView.class, viewAnswers);
+
+        createTokens = handler("createTokens", CreateTokensRequest.class);
+        createTokenSellOrder = handler("createTokenSellOrder", CreateTokenSellOrderRequest.class);
+        acceptTokenSellOrder = handler("acceptTokenSellOrder", SpendTokenSellOrderRequest.class);
+
+        createTokensRequest = new CreateTokensRequest();
+        createTokensRequest.setType(BenchmarkFixtures.TOKEN_TYPE);
+        createTokensRequest.setNumberOfTokens(tokensPerRequest);
+        createTokensRequest.setProposition(BenchmarkFixtures.propositionHex(owner));
+        createTokensRequest.fee = BenchmarkFixtures.FEE;
+
+        createTokenSellOrderRequest = new CreateTokenSellOrderRequest();
+        createTokenSellOrderRequest.setTokenBoxId(ByteUtils.toHexString(tokenBox.id()));
+        createTokenSellOrderRequest.setBuyerProposition(BenchmarkFixtures.propositionHex(seller));
+        createTokenSellOrderRequest.setSellPrice(BenchmarkFixtures.PRICE);
+        createTokenSellOrderRequest.fee = BenchmarkFixtures.FEE;
+
+        acceptTokenSellOrderRequest = new SpendTokenSellOrderRequest();
+        acceptTokenSellOrderRequest.setTokenSellOrderId(ByteUtils.toHexString(sellOrderBox.id()));
+        acceptTokenSellOrderRequest.setFee(BenchmarkFixtures.FEE);
+
+        // Fail fast if some request is rejected: the benchmark would measure just the error path.
+        checkResponse(createTokens());
+        checkResponse(createTokenSellOrder());
+        checkResponse(acceptTokenSellOrder());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storages.forEach(Storage::close);
+        directories.forEach(BenchmarkFixtures::deleteDirectory);
+    }
+
+    private Storage storage(String name) {
+        File directory = BenchmarkFixtures.tempDirectory(name);
+        Storage storage = BenchmarkFixtures.storage(directory);
+        directories.add(directory);
+        storages.add(storage);
+        return storage;
+    }
+
+    // The route handlers are private: they are reached only through the routes of the API group.
+    private static Method handler(String name, Class<?> requestClass) throws NoSuchMethodException {
+        Method method = TokenApi.class.getDeclaredMethod(name, SidechainNodeView.class, requestClass);
+        method.setAccessible(true);
+        return method;
+    }
+
+    private ApiResponse invoke(Method handler, Object request) {
+        try {
+            return (ApiResponse) handler.invoke(tokenApi, view, request);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Can't invoke the API handler " + handler.getName(), e);
+        }
+    }
+
+    private static void checkResponse(ApiResponse response) {
+        if (response instanceof ErrorResponse) {
+            ErrorResponse error = (ErrorResponse) response;
+            throw new IllegalStateException("API request rejected: " + error.description(),
+                    error.exception().isDefined() ? error.exception().get() : null);
+        }
+    }
+
+    @Benchmark
+    public ApiResponse createTokens() {
+        return invoke(createTokens, createTokensRequest);
+    }
+
+    @Benchmark
+    public ApiResponse createTokenSellOrder() {
+        return invoke(createTokenSellOrder, createTokenSellOrderRequest);
+    }
+
+    @Benchmark
+    public ApiResponse acceptTokenSellOrder() {
+        return invoke(acceptTokenSellOrder, acceptTokenSellOrderRequest);
+    }
+}
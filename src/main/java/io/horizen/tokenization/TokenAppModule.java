@@ -19,8 +19,11 @@ import com.typesafe.config.Config;
 import io.horizen.tokenization.token.api.TokenApi;
 import io.horizen.tokenization.token.box.*;
 import io.horizen.tokenization.token.box.data.*;
+import io.horizen.tokenization.token.jfr.TokenEvents;
 import io.horizen.tokenization.token.proof.CarRegistryProofsIdsEnum;
+import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
 import io.horizen.tokenization.token.proof.SellOrderSpendingProofSerializer;
+import io.horizen.tokenization.token.services.VersionRetention;
 import io.horizen.tokenization.token.transaction.*;
 import com.horizen.proof.Proof;
 import com.horizen.proof.ProofSerializer;
@@ -30,11 +33,14 @@ import com.horizen.secret.SecretSerializer;
 import com.horizen.settings.SettingsReader;
 import com.horizen.state.ApplicationState;
 import com.horizen.storage.IODBStorageUtil;
+import com.horizen.storage.IODBStoreAdapter;
 import com.horizen.storage.Storage;
 import com.horizen.transaction.BoxTransaction;
 import com.horizen.transaction.TransactionSerializer;
 import com.horizen.utils.Pair;
 import com.horizen.wallet.ApplicationWallet;
+import io.iohk.iodb.LSMStore;
+import io.iohk.iodb.LSMStore$;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -51,6 +57,7 @@ public class TokenAppModule
     public TokenAppModule(String userSettingsFileName) {
         this.settingsReader = new SettingsReader(userSettingsFileName, Optional.empty());
         this.config = this.settingsReader.getConfig();
+        TokenEvents.configure(this.config);
     }
 
     @Override
@@ -83,6 +90,8 @@ public class TokenAppModule
         customTransactionSerializers.put(TokenTransactionsIdsEnum.CreateTokensTransactionId.id(), (TransactionSerializer) CreateTokensTransactionSerializer.getSerializer());
         customTransactionSerializers.put(TokenTransactionsIdsEnum.SellTokenTransactionId.id(), (TransactionSerializer) SellTokenTransactionSerializer.getSerializer());
         customTransactionSerializers.put(TokenTransactionsIdsEnum.BuyTokenTransactionId.id(), (TransactionSerializer) BuyTokenTransactionSerializer.getSerializer());
+        customTransactionSerializers.put(TokenTransactionsIdsEnum.SellTokensTransactionId.id(), (TransactionSerializer) SellTokensTransactionSerializer.getSerializer());
+        customTransactionSerializers.put(TokenTransactionsIdsEnum.BuyTokensTransactionId.id(), (TransactionSerializer) BuyTokensTransactionSerializer.getSerializer());
 
         // Create companions that will allow to serialize and deserialize any kind of core and custom types specified.
         SidechainBoxesDataCompanion sidechainBoxesDataCompanion = new SidechainBoxesDataCompanion(customBoxDataSerializers);
@@ -100,6 +109,13 @@ public class TokenAppModule
         File historyStore = new File(dataDirPath + "/history");
         File consensusStore = new File(dataDirPath + "/consensusData");
         File carInfoStore = new File(dataDirPath + "/cars");
+        File tokenWalletStore = new File(dataDirPath + "/tokenWallet");
+        File tokenSellOrderStore = new File(dataDirPath + "/tokenSellOrders");
+        File tokenSupplyStore = new File(dataDirPath + "/tokenSupply");
+        File tokenIdSequenceStore = new File(dataDirPath + "/tokenIdSequences");
+
+        // The token storages keep on disk only the versions the token services track.
+        int tokenStorageVersions = VersionRetention.retainedVersions(this.config);
 
         // No core API endpoints to be disabled:
         List<Pair<String, String>> rejectedApiPaths = new ArrayList<>();
@@ -162,7 +178,19 @@ public class TokenAppModule
                 .toInstance(IODBStorageUtil.getStorage(consensusStore));
         bind(Storage.class)
                 .annotatedWith(Names.named("CarInfoStorage"))
-                .toInstance(IODBStorageUtil.getStorage(carInfoStore));
+                .toInstance(getTokenStorage(carInfoStore, tokenStorageVersions));
+        bind(Storage.class)
+                .annotatedWith(Names.named("TokenWalletStorage"))
+                .toInstance(getTokenStorage(tokenWalletStore, tokenStorageVersions));
+        bind(Storage.class)
+                .annotatedWith(Names.named("TokenSellOrderStorage"))
+                .toInstance(getTokenStorage(tokenSellOrderStore, tokenStorageVersions));
+        bind(Storage.class)
+                .annotatedWith(Names.named("TokenSupplyStorage"))
+                .toInstance(getTokenStorage(tokenSupplyStore, tokenStorageVersions));
+        bind(Storage.class)
+                .annotatedWith(Names.named("TokenIdSequenceStorage"))
+                .toInstance(getTokenStorage(tokenIdSequenceStore, tokenStorageVersions));
 
         bind(new TypeLiteral<List<Pair<String, String>>> () {})
                 .annotatedWith(Names.named("RejectedApiPaths"))
@@ -171,6 +199,21 @@ public class TokenAppModule
         bind(SidechainTransactionsCompanion.class)
                 .annotatedWith(Names.named("SidechainTransactionsCompanion"))
                 .toInstance(transactionsCompanion);
+
+        // The proofs parsed from the network check their signatures through the shared VerifiedSignatureCache.
+        requestStaticInjection(SellOrderSpendingProof.class);
+    }
+
+    // Same store of IODBStorageUtil.getStorage, but with a bounded version history: the other LSMStore parameters
+    // keep their default values.
+    private static Storage getTokenStorage(File storagePath, int keepVersions) {
+        storagePath.mkdirs();
+        LSMStore$ defaults = LSMStore$.MODULE$;
+        return new IODBStoreAdapter(new LSMStore(storagePath, 32,
+                defaults.$lessinit$greater$default$3(), defaults.$lessinit$greater$default$4(),
+                defaults.$lessinit$greater$default$5(), defaults.$lessinit$greater$default$6(),
+                defaults.$lessinit$greater$default$7(), keepVersions,
+                defaults.$lessinit$greater$default$9(), defaults.$lessinit$greater$default$10()));
     }
 
     // Add car registry specific API endpoints:
@@ -1,136 +1,177 @@
 package io.horizen.tokenization;
 
 import com.google.inject.Inject;
-import com.google.inject.name.Named;
 import com.horizen.block.SidechainBlock;
 import com.horizen.box.Box;
 import com.horizen.proposition.Proposition;
 import com.horizen.state.ApplicationState;
 import com.horizen.state.SidechainStateReader;
 import com.horizen.transaction.BoxTransaction;
-import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.jfr.BlockValidationEvent;
+import io.horizen.tokenization.token.jfr.StateApplyEvent;
+import io.horizen.tokenization.token.jfr.StateRollbackEvent;
+import io.horizen.tokenization.token.jfr.TokenEvents;
+import io.horizen.tokenization.token.metrics.Timer;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
 import io.horizen.tokenization.token.services.IDInfoDBService;
+import io.horizen.tokenization.token.services.SellOrderDBService;
+import io.horizen.tokenization.token.services.TokenValidationError;
+import io.horizen.tokenization.token.services.TokenValidationService;
 import io.horizen.tokenization.token.transaction.CreateTokensTransaction;
 import org.bouncycastle.pqc.math.linearalgebra.ByteUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.util.Failure;
 import scala.util.Success;
 import scala.util.Try;
 
 import java.util.*;
 
 import scala.collection.JavaConverters;
-import com.typesafe.config.Config;
 
 public class TokenApplicationState implements ApplicationState {
 
 	private IDInfoDBService IDInfoDbService;
-	private Config config;
-	private int maxToken;
-    private ArrayList<String> creator;
-    private HashMap<String, Integer> maxTokenPerType;
+	private TokenValidationService tokenValidationService;
+	private SellOrderDBService sellOrderDbService;
+	private TokenMetrics metrics;
+	private Timer validateBlockTimer;
+	private Timer validateTransactionTimer;
+	private Timer applyTimer;
+	private Timer rollbackTimer;
+	protected Logger log = LoggerFactory.getLogger(TokenApplicationState.class.getName());
 
 	@Inject
-	public TokenApplicationState(IDInfoDBService IDInfoDbService, @Named("ConfigTokenizationApp") Config config) {
+	public TokenApplicationState(IDInfoDBService IDInfoDbService, TokenValidationService tokenValidationService,
+                                 SellOrderDBService sellOrderDbService, TokenMetrics metrics) {
 	    this.IDInfoDbService = IDInfoDbService;
-	    this.config = config;
-        this.maxToken = Integer.valueOf(this.config.getObject("token").get("maxNumber").render());
-        this.creator = (ArrayList<String>) this.config.getObject("token").get("creatorPropositions").unwrapped();
-        this.maxTokenPerType = (HashMap<String,Integer>) this.config.getObject("token").get("typeLimit").unwrapped();
+	    this.tokenValidationService = tokenValidationService;
+	    this.sellOrderDbService = sellOrderDbService;
+	    this.metrics = metrics;
+	    this.validateBlockTimer = metrics.stateTimer("validate_block");
+	    this.validateTransactionTimer = metrics.stateTimer("validate_transaction");
+	    this.applyTimer = metrics.stateTimer("apply");
+	    this.rollbackTimer = metrics.stateTimer("rollback");
     }
 
     @Override
     public boolean validate(SidechainStateReader stateReader, SidechainBlock block) {
-        //We check that there are no multiple transactions declaring the same VIN inside the block
-        HashMap<String, Integer> typeCount = new HashMap<String, Integer>();
-        for (BoxTransaction<Proposition, Box<Proposition>> t :  JavaConverters.seqAsJavaList(block.transactions())){
-            if (CreateTokensTransaction.class.isInstance(t)){
-                for (Box box : t.newBoxes()) {
-                    if (TokenBox.class.isInstance(box)) {
-                        // Check that only the propositions specified in the config are able to create tokens
-                        if (!this.creator.contains(ByteUtils.toHexString(box.proposition().bytes()))) {
-                            System.out.println("Error during block validation: this proposition is not allowed to create tokens!");
-                            return false;
-                        }
-                        // Check that token ID is not already used
-                        if (! IDInfoDbService.validateId(IDInfoDbService.extractIdFromBox(box), Optional.empty())){
-                            System.out.println("Error during block validation: The token ID already exists!");
-                            return false;
-                        }
-                        String type = IDInfoDbService.extractTypeFromBox(box);
-                        if (typeCount.containsKey(type)) {
-                            typeCount.put(type, typeCount.get(type)+1);
-                        }
-                        else {
-                            typeCount.put(type, 1);
-                        }                    }
-                }
+        return validateTransactions(String.valueOf(block.id()), block.timestamp(), stateReader,
+                JavaConverters.seqAsJavaList(block.transactions()));
+    }
 
+    /**
+     * Validate the given transactions as the content of a single block, forged now.
+     */
+    public boolean validateTransactions(SidechainStateReader stateReader, List<BoxTransaction<Proposition, Box<Proposition>>> transactions) {
+        return validateTransactions("", currentTimestamp(), stateReader, transactions);
+    }
+
+    private boolean validateTransactions(String blockId, long timestamp, SidechainStateReader stateReader,
+                                         List<BoxTransaction<Proposition, Box<Proposition>>> transactions) {
+        BlockValidationEvent event = TokenEvents.beginBlockValidation();
+        long start = System.nanoTime();
+        boolean valid = false;
+        try {
+            valid = validateBlockTransactions(timestamp, stateReader, transactions);
+            return valid;
+        } finally {
+            validateBlockTimer.recordSince(start);
+            if (event != null) {
+                event.finish(blockId, transactions, valid);
             }
-            // Check that the max limit of token is not reached
-            for (String key : typeCount.keySet()) {
-                if(IDInfoDbService.getTypeCount(key) + typeCount.get(key) > this.maxTokenPerType.get(key)) {
-                    System.out.println("Error: Exceed the maximum number of tokens that can be created inside the block!");
-                    return false;
-                }
+        }
+    }
+
+    private boolean validateBlockTransactions(long timestamp, SidechainStateReader stateReader,
+                                              List<BoxTransaction<Proposition, Box<Proposition>>> transactions) {
+        //We check all the tokens declared inside the block together, so that there are no multiple transactions
+        //declaring the same token ID and the type limits take into account all the block transactions.
+        List<CreateTokensTransaction> createTokensTransactions = new ArrayList<>();
+        for (BoxTransaction<Proposition, Box<Proposition>> t : transactions){
+            if (CreateTokensTransaction.class.isInstance(t)){
+                createTokensTransactions.add(CreateTokensTransaction.class.cast(t));
             }
         }
+        Optional<TokenValidationError> error = tokenValidationService.validate(createTokensTransactions, timestamp);
+        if (error.isPresent()) {
+            reject(error.get(), "block");
+            return false;
+        }
         return true;
-	}
+    }
 
     @Override
     public boolean validate(SidechainStateReader stateReader, BoxTransaction<Proposition, Box<Proposition>> transaction) {
-        // we go though all CarDeclarationTransactions and verify that each CarBox reflects to unique Car.
-        if (CreateTokensTransaction.class.isInstance(transaction)){
-            HashMap<String, Integer> typeCount = new HashMap<String, Integer>();
-            for (Box box : transaction.newBoxes()) {
-                if (TokenBox.class.isInstance(box)) {
-                    // Check that only the propositions specified in the config are able to create tokens
-                    if (!this.creator.contains(ByteUtils.toHexString(box.proposition().bytes()))) {
-                        System.out.println("Error during transaction validation: this proposition is not allowed to create tokens!");
-                        return false;
-                    }
-
-                    // Check that token ID is not already used
-                    if (! IDInfoDbService.validateId(IDInfoDbService.extractIdFromBox(box), Optional.empty())){
-                        System.out.println("Error during transaction validation: The token ID already exists!");
-                        return false;
-                    }
-                    String type = IDInfoDbService.extractTypeFromBox(box);
-                    if (typeCount.containsKey(type)) {
-                        typeCount.put(type, typeCount.get(type)+1);
-                    }
-                    else {
-                        typeCount.put(type, 1);
-                    }
-                }
-            }
-            // Check that the max limit of token is not reached
-            for (String key : typeCount.keySet()) {
-                if(IDInfoDbService.getTypeCount(key) + typeCount.get(key) > this.maxTokenPerType.get(key)) {
-                    System.out.println("Error: Exceed the maximum number of tokens that can be created inside the transaction!");
+        long start = System.nanoTime();
+        try {
+            // we go though all CreateTokensTransactions and verify that each TokenBox reflects to unique token.
+            if (CreateTokensTransaction.class.isInstance(transaction)){
+                Optional<TokenValidationError> error = tokenValidationService.validateTransaction(
+                        CreateTokensTransaction.class.cast(transaction), currentTimestamp());
+                if (error.isPresent()) {
+                    reject(error.get(), "transaction");
                     return false;
                 }
             }
+            return true;
+        } finally {
+            validateTransactionTimer.recordSince(start);
         }
-        return true;
+    }
+
+    // The transactions out of a block are checked as if they were in a block forged now, with the timestamp in seconds.
+    private static long currentTimestamp() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private void reject(TokenValidationError error, String scope) {
+        log.info("Error during " + scope + " validation: " + error.description());
+        metrics.rejections(error.name(), scope).increment();
     }
 
     @Override
     public Try<ApplicationState> onApplyChanges(SidechainStateReader stateReader,
                                                 byte[] version,
                                                 List<Box<Proposition>> newBoxes, List<byte[]> boxIdsToRemove) {
+        StateApplyEvent event = TokenEvents.beginStateApply();
+        long start = System.nanoTime();
         //we update the Car info database. The data from it will be used during validation.
 
         //collect the vin to be added: the ones declared in new boxes
         Set<String> idToAdd = IDInfoDbService.extractIdFromBoxes(newBoxes);
         HashMap<String,Integer> typeToAdd = IDInfoDbService.extractTypeFromBoxes(newBoxes);
         IDInfoDbService.updateAll(version, idToAdd,typeToAdd);
+        //the cached mempool validation results refer to the previous version
+        tokenValidationService.invalidateCache();
+
+        //we track the open sell orders: the wallet is not notified about them, as they are locked by a SellOrderProposition
+        sellOrderDbService.update(version, newBoxes, boxIdsToRemove);
+        applyTimer.recordSince(start);
+        if (event != null) {
+            event.finish(ByteUtils.toHexString(version), newBoxes.size(), boxIdsToRemove.size());
+        }
         return new Success<>(this);
     }
 
 
     @Override
     public Try<ApplicationState> onRollback(byte[] version) {
-        IDInfoDbService.rollback(version);
+        StateRollbackEvent event = TokenEvents.beginStateRollback();
+        long start = System.nanoTime();
+        try {
+            IDInfoDbService.rollback(version);
+        } catch (IllegalStateException e) {
+            // Nothing was rolled back, so the token storages are still aligned with each other and with the state.
+            log.error("Token storages rollback failed: " + e.getMessage());
+            return new Failure<>(e);
+        }
+        tokenValidationService.invalidateCache();
+        sellOrderDbService.rollback(version);
+        rollbackTimer.recordSince(start);
+        if (event != null) {
+            event.finish(ByteUtils.toHexString(version));
+        }
         return new Success<>(this);
     }
 }
@@ -1,17 +1,29 @@
 package io.horizen.tokenization;
 
+import com.google.inject.Inject;
 import com.horizen.box.Box;
 import com.horizen.proposition.Proposition;
 import com.horizen.secret.Secret;
 import com.horizen.wallet.ApplicationWallet;
+import io.horizen.tokenization.token.services.TokenWalletDBService;
+import io.horizen.tokenization.token.services.WalletCoinIndex;
 
 import java.util.List;
 
-// There is no custom logic for Car registry Wallet now.
-// TODO: in ApplicationWallet collect related CarSellOrderBoxes: both as owner and as buyer.
-// TODO: introduce the getters for such custom data and add specific API routes for users to see this info.
+// The wallet keeps the coin index used by the coin selection and the db of the owned TokenBoxes.
+// TokenSellOrderBoxes are locked by a SellOrderProposition, so the wallet is never notified about them:
+// they are collected by the SellOrderDBService from the state changes, and filtered by the wallet keys in the API.
 public class TokenApplicationWallet implements ApplicationWallet {
 
+    private final WalletCoinIndex coinIndex;
+    private final TokenWalletDBService tokenWalletDBService;
+
+    @Inject
+    public TokenApplicationWallet(WalletCoinIndex coinIndex, TokenWalletDBService tokenWalletDBService) {
+        this.coinIndex = coinIndex;
+        this.tokenWalletDBService = tokenWalletDBService;
+    }
+
     @Override
     public void onAddSecret(Secret secret) {
         // No custom secret logic supposed in Car Registry App
@@ -24,11 +36,14 @@ public class TokenApplicationWallet implements ApplicationWallet {
 
     @Override
     public void onChangeBoxes(byte[] version, List<Box<Proposition>> boxesToUpdate, List<byte[]> boxIdsToRemove) {
-        // TODO: here we should detect and process new SellOrderBoxes and remove opened SellOrderBoxes.
+        coinIndex.onChangeBoxes(boxesToUpdate, boxIdsToRemove);
+        tokenWalletDBService.update(version, boxesToUpdate, boxIdsToRemove);
     }
 
     @Override
     public void onRollback(byte[] version) {
-        // TODO: rollback car sell orders database to certain point.
+        // The restored boxes are not notified, so the coin index will be loaded again from the wallet.
+        coinIndex.invalidate();
+        tokenWalletDBService.rollback(version);
     }
 }
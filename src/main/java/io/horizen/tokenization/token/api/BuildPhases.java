@@ -0,0 +1,51 @@
+package io.horizen.tokenization.token.api;
+
+import io.horizen.tokenization.token.jfr.ApiBuildEvent;
+import io.horizen.tokenization.token.jfr.TokenEvents;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
+
+// BuildPhases times the phases of the building of a transaction by a route: each phase is recorded in the route
+// metrics and, when enabled, as a JFR event. Beginning a phase ends the current one, and closing ends the last one,
+// so a route opens it in a try-with-resources block to record the phase it failed in too.
+final class BuildPhases implements AutoCloseable {
+
+    static final String WALLET_LOOKUP = "wallet_lookup";
+    static final String COIN_SELECTION = "coin_selection";
+    static final String SIGNING = "signing";
+    static final String SERIALIZATION = "serialization";
+
+    private final TokenMetrics metrics;
+    private final String route;
+    private String phase;
+    private long start;
+    private ApiBuildEvent event;
+
+    BuildPhases(TokenMetrics metrics, String route) {
+        this.metrics = metrics;
+        this.route = route;
+    }
+
+    void begin(String phase) {
+        end();
+        this.phase = phase;
+        this.event = TokenEvents.beginApiBuild();
+        this.start = System.nanoTime();
+    }
+
+    void end() {
+        if (phase == null) {
+            return;
+        }
+        metrics.apiTimer(route, phase).recordSince(start);
+        if (event != null) {
+            event.finish(route, phase);
+        }
+        phase = null;
+        event = null;
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+}
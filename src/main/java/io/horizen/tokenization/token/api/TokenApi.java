@@ -1,10 +1,9 @@
 package io.horizen.tokenization.token.api;
 
+import akka.http.javadsl.model.ContentTypes;
+import akka.http.javadsl.model.HttpEntities;
 import akka.http.javadsl.server.Route;
 import com.fasterxml.jackson.annotation.JsonView;
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.horizen.api.http.ApiResponse;
@@ -12,10 +11,8 @@ import com.horizen.api.http.ApplicationApiGroup;
 import com.horizen.api.http.ErrorResponse;
 import com.horizen.api.http.SuccessResponse;
 import com.horizen.box.Box;
-import com.horizen.box.RegularBox;
 import com.horizen.box.data.RegularBoxData;
 import com.horizen.companion.SidechainTransactionsCompanion;
-import com.horizen.node.NodeMemoryPool;
 import com.horizen.node.SidechainNodeView;
 import com.horizen.proof.Signature25519;
 import com.horizen.proposition.Proposition;
@@ -33,17 +30,29 @@ import io.horizen.tokenization.token.box.TokenSellOrderBox;
 import io.horizen.tokenization.token.box.data.TokenBoxData;
 import io.horizen.tokenization.token.info.TokenBuyOrderInfo;
 import io.horizen.tokenization.token.info.TokenSellOrderInfo;
+import io.horizen.tokenization.token.metrics.Counter;
+import io.horizen.tokenization.token.metrics.Timer;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
 import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
+import io.horizen.tokenization.token.services.BulkMintJob;
+import io.horizen.tokenization.token.services.BulkMintService;
+import io.horizen.tokenization.token.services.CoinSelectionService;
+import io.horizen.tokenization.token.services.CreatorAuthorization;
 import io.horizen.tokenization.token.services.IDInfoDBService;
+import io.horizen.tokenization.token.services.SellOrderDBService;
+import io.horizen.tokenization.token.services.TokenIdAllocator;
+import io.horizen.tokenization.token.services.TokenSupplyDBService;
+import io.horizen.tokenization.token.services.TokenWalletDBService;
 import io.horizen.tokenization.token.transaction.*;
 import org.bouncycastle.pqc.math.linearalgebra.ByteUtils;
 import scala.Option;
 import scala.Some;
-import scorex.crypto.hash.Blake2b256;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.BiFunction;
+
+import static akka.http.javadsl.server.Directives.complete;
+import static akka.http.javadsl.server.Directives.path;
 
 /**
  * That class provide routes for creation Lambo registry related transaction like Car declaration, create Car sell order, accept Car sell order, cancel Car sell order
@@ -61,14 +70,32 @@ public class TokenApi extends ApplicationApiGroup {
 
     private final SidechainTransactionsCompanion sidechainTransactionsCompanion;
     private IDInfoDBService IDInfoDBService;
-    private ArrayList<String> creator;
+    private CoinSelectionService coinSelectionService;
+    private TokenWalletDBService tokenWalletDBService;
+    private SellOrderDBService sellOrderDBService;
+    private BulkMintService bulkMintService;
+    private TokenIdAllocator tokenIdAllocator;
+    private TokenSupplyDBService tokenSupplyDBService;
+    private TokenMetrics metrics;
+    private CreatorAuthorization creatorAuthorization;
 
     @Inject
     public TokenApi(@Named("SidechainTransactionsCompanion") SidechainTransactionsCompanion sidechainTransactionsCompanion, IDInfoDBService IDInfoDBService,
+                    CoinSelectionService coinSelectionService, TokenWalletDBService tokenWalletDBService,
+                    SellOrderDBService sellOrderDBService, BulkMintService bulkMintService,
+                    TokenIdAllocator tokenIdAllocator, TokenSupplyDBService tokenSupplyDBService,
+                    CreatorAuthorization creatorAuthorization, TokenMetrics metrics,
                     @Named("ConfigTokenizationApp") Config config) {
         this.sidechainTransactionsCompanion = sidechainTransactionsCompanion;
         this.IDInfoDBService = IDInfoDBService;
-        this.creator = (ArrayList<String>) config.getObject("token").get("creatorPropositions").unwrapped();
+        this.coinSelectionService = coinSelectionService;
+        this.tokenWalletDBService = tokenWalletDBService;
+        this.sellOrderDBService = sellOrderDBService;
+        this.bulkMintService = bulkMintService;
+        this.tokenIdAllocator = tokenIdAllocator;
+        this.tokenSupplyDBService = tokenSupplyDBService;
+        this.metrics = metrics;
+        this.creatorAuthorization = creatorAuthorization;
     }
 
     // Define the base path for API url, i.e. according current config we could access that Api Group by using address 127.0.0.1:9085/carApi
@@ -84,68 +111,62 @@ public class TokenApi extends ApplicationApiGroup {
 
         //First parameter in bindPostRequest is endpoint path, for example for bindPostRequest("createCar", this::createCar, CreateCarBoxRequest.class)
         //it is 127.0.0.1:9085/carApi/createCar according current config
-        routes.add(bindPostRequest("createTokens", this::createTokens, CreateTokensRequest.class));
-        routes.add(bindPostRequest("createTokenSellOrder", this::createTokenSellOrder, CreateTokenSellOrderRequest.class));
-        routes.add(bindPostRequest("acceptTokenSellOrder", this::acceptTokenSellOrder, SpendTokenSellOrderRequest.class));
-        routes.add(bindPostRequest("cancelTokenSellOrder", this::cancelTokenSellOrder, SpendTokenSellOrderRequest.class));
+        routes.add(bindPostRequest("createTokens", timed("createTokens", this::createTokens), CreateTokensRequest.class));
+        routes.add(bindPostRequest("createTokenSellOrder", timed("createTokenSellOrder", this::createTokenSellOrder), CreateTokenSellOrderRequest.class));
+        routes.add(bindPostRequest("createTokenSellOrders", timed("createTokenSellOrders", this::createTokenSellOrders), CreateTokenSellOrdersRequest.class));
+        routes.add(bindPostRequest("acceptTokenSellOrder", timed("acceptTokenSellOrder", this::acceptTokenSellOrder), SpendTokenSellOrderRequest.class));
+        routes.add(bindPostRequest("cancelTokenSellOrder", timed("cancelTokenSellOrder", this::cancelTokenSellOrder), SpendTokenSellOrderRequest.class));
+        routes.add(bindPostRequest("acceptTokenSellOrders", timed("acceptTokenSellOrders", this::acceptTokenSellOrders), SpendTokenSellOrdersRequest.class));
+        routes.add(bindPostRequest("cancelTokenSellOrders", timed("cancelTokenSellOrders", this::cancelTokenSellOrders), SpendTokenSellOrdersRequest.class));
+        routes.add(bindPostRequest("ownedTokens", timed("ownedTokens", this::ownedTokens), OwnedTokensRequest.class));
+        routes.add(bindPostRequest("incomingSellOrders", timed("incomingSellOrders", this::incomingSellOrders), SellOrdersRequest.class));
+        routes.add(bindPostRequest("outgoingSellOrders", timed("outgoingSellOrders", this::outgoingSellOrders), SellOrdersRequest.class));
+        routes.add(bindPostRequest("sellOrdersByPrice", timed("sellOrdersByPrice", this::sellOrdersByPrice), SellOrdersByPriceRequest.class));
+        routes.add(bindPostRequest("bestSellOrders", timed("bestSellOrders", this::bestSellOrders), BestSellOrdersRequest.class));
+        routes.add(bindPostRequest("submitBulkMint", timed("submitBulkMint", this::submitBulkMint), BulkMintRequest.class));
+        routes.add(bindPostRequest("bulkMintStatus", timed("bulkMintStatus", this::bulkMintStatus), BulkMintStatusRequest.class));
+        routes.add(bindPostRequest("tokenSupply", timed("tokenSupply", this::tokenSupply), TokenSupplyRequest.class));
+
+        // Prometheus scrape endpoint, answered in the text exposition format instead of JSON.
+        routes.add(path("metrics", () -> complete(HttpEntities.create(ContentTypes.TEXT_PLAIN_UTF8, metrics.scrape()))));
         return routes;
     }
 
-
-    private String createTokenID(long id) {
-        String idToString = String.valueOf(id);
-        int n = 10-idToString.length();
-        String tokenID = IntStream.range(0, n).mapToObj(i -> "0").collect(Collectors.joining(""));
-        return tokenID + idToString;
-    }
-
     private ApiResponse createTokens(SidechainNodeView view, CreateTokensRequest ent) {
-        try {
+        List<Box<Proposition>> reservedBoxes = new ArrayList<>();
+        try (BuildPhases phases = new BuildPhases(metrics, "createTokens")) {
+            phases.begin(BuildPhases.WALLET_LOOKUP);
+
             // Parse the proposition of the Token owner.
             PublicKey25519Proposition carOwnershipProposition = PublicKey25519PropositionSerializer.getSerializer()
                     .parseBytes(BytesUtils.fromHexString(ent.proposition));
 
 
-            // Check that the proposition is included in the list of propositions in config that are able to create tokens.
-            if (!this.creator.contains(ent.proposition)) {
+            // Check that the proposition is included in the list of propositions in config that are able to create tokens of this type.
+            if (!creatorAuthorization.canCreate(carOwnershipProposition, ent.type)) {
                 throw new IllegalStateException("This proposition is not allowed to create token!");
             }
 
-           TokenBoxData[] tokenBoxData = new TokenBoxData[ent.numberOfTokens];
-            for (int i = 0; i < ent.numberOfTokens; i++) {
-                byte[] hash = Blake2b256.hash(Bytes.concat(Longs.toByteArray(new Date().getTime()),Ints.toByteArray(i)));
-                String id = this.createTokenID(BytesUtils.getLong(hash, 0));
-                // Check that the token ID is unique (both in local veichle store and in mempool).
-                if (! IDInfoDBService.validateId(id, Optional.of(view.getNodeMemoryPool()))){
-                    throw new IllegalStateException("Token id already present in blockchain");
-                }
-                tokenBoxData[i] = new TokenBoxData(carOwnershipProposition, id, ent.type);
+            // A single transaction can't exceed the SDK limit of new boxes, bigger collections must use submitBulkMint.
+            if (ent.numberOfTokens >= BoxTransaction.MAX_TRANSACTION_NEW_BOXES) {
+                throw new IllegalArgumentException("Too many tokens for a single transaction, use submitBulkMint instead.");
             }
 
-            // Try to collect regular boxes to pay fee
-            List<Box<Proposition>> paymentBoxes = new ArrayList<>();
-            long amountToPay = ent.fee;
-
-            // Avoid to add boxes that are already spent in some Transaction that is present in node Mempool.
-            List<byte[]> boxIdsToExclude = boxesFromMempool(view.getNodeMemoryPool());
-            List<Box<Proposition>> regularBoxes = view.getNodeWallet().boxesOfType(RegularBox.class, boxIdsToExclude);
-            int index = 0;
-            while (amountToPay > 0 && index < regularBoxes.size()) {
-                paymentBoxes.add(regularBoxes.get(index));
-                amountToPay -= regularBoxes.get(index).value();
-                index++;
+            // Allocate the token IDs in the creator range: they are unique without checking them against the storage and the mempool.
+            List<String> ids = tokenIdAllocator.allocate(ent.proposition, ent.numberOfTokens, view.getNodeMemoryPool());
+            TokenBoxData[] tokenBoxData = new TokenBoxData[ent.numberOfTokens];
+            for (int i = 0; i < ent.numberOfTokens; i++) {
+                tokenBoxData[i] = new TokenBoxData(carOwnershipProposition, ids.get(i), ent.type);
             }
 
-            if (amountToPay > 0) {
-                throw new IllegalStateException("Not enough coins to pay the fee.");
-            }
+            // Get Regular boxes to pay the fee
+            long amountToPay = ent.fee;
+            phases.begin(BuildPhases.COIN_SELECTION);
+            List<Box<Proposition>> paymentBoxes = collectPaymentBoxes(view, amountToPay, reservedBoxes);
+            phases.end();
 
             // Set change if exists
-            long change = Math.abs(amountToPay);
-            List<RegularBoxData> regularOutputs = new ArrayList<>();
-            if (change > 0) {
-                regularOutputs.add(new RegularBoxData((PublicKey25519Proposition) paymentBoxes.get(0).proposition(), change));
-            }
+            List<RegularBoxData> regularOutputs = changeOutputs(paymentBoxes, amountToPay);
 
             // Creation of real proof requires transaction bytes. Transaction creation function, in turn, requires some proofs.
             // Thus real transaction creation is done in next steps:
@@ -172,6 +193,7 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
+            phases.begin(BuildPhases.SIGNING);
             // Get the Tx message to be signed.
             byte[] messageToSign = unsignedTransaction.messageToSign();
 
@@ -190,54 +212,39 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
-            return new TxResponse(ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) signedTransaction)));
+            phases.begin(BuildPhases.SERIALIZATION);
+            String transactionHex = ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) signedTransaction));
+            phases.end();
+
+            return new TxResponse(transactionHex);
         }
         catch (Exception e) {
+            coinSelectionService.release(reservedBoxes);
             return new TokenResponseError("0102", "Error during Token creation.", Some.apply(e));
         }
     }
 
     private ApiResponse createTokenSellOrder(SidechainNodeView view, CreateTokenSellOrderRequest ent) {
-        try {
-            // Try to find CarBox to be opened in the closed boxes list
-            TokenBox tokenBox = null;
+        List<Box<Proposition>> reservedBoxes = new ArrayList<>();
+        try (BuildPhases phases = new BuildPhases(metrics, "createTokenSellOrder")) {
+            phases.begin(BuildPhases.WALLET_LOOKUP);
 
-            for (Box b : view.getNodeWallet().boxesOfType(TokenBox.class)) {
-                if (Arrays.equals(b.id(), BytesUtils.fromHexString(ent.tokenBoxId)))
-                    tokenBox = (TokenBox) b;
-            }
-
-            if (tokenBox == null) {
-                throw new IllegalArgumentException("TokenBox with given box id not found in the Wallet.");
-            }
+            // Try to find TokenBox to be opened in the wallet token boxes
+            TokenBox tokenBox = tokenWalletDBService.getTokenBoxByBoxId(view.getNodeWallet(), BytesUtils.fromHexString(ent.tokenBoxId))
+                    .orElseThrow(() -> new IllegalArgumentException("TokenBox with given box id not found in the Wallet."));
 
             // Parse the proposition of the Car buyer.
             PublicKey25519Proposition tokenBuyerProposition = PublicKey25519PropositionSerializer.getSerializer()
                     .parseBytes(BytesUtils.fromHexString(ent.buyerProposition));
 
-            // Try to collect regular boxes to pay fee
-            List<Box<Proposition>> paymentBoxes = new ArrayList<>();
+            // Get Regular boxes to pay the fee
             long amountToPay = ent.fee;
-            // Avoid to add boxes that are already spent in some Transaction that is present in node Mempool.
-            List<byte[]> boxIdsToExclude = boxesFromMempool(view.getNodeMemoryPool());
-            List<Box<Proposition>> regularBoxes = view.getNodeWallet().boxesOfType(RegularBox.class, boxIdsToExclude);
-            int index = 0;
-            while (amountToPay > 0 && index < regularBoxes.size()) {
-                paymentBoxes.add(regularBoxes.get(index));
-                amountToPay -= regularBoxes.get(index).value();
-                index++;
-            }
-
-            if (amountToPay > 0) {
-                throw new IllegalStateException("Not enough coins to pay the fee.");
-            }
+            phases.begin(BuildPhases.COIN_SELECTION);
+            List<Box<Proposition>> paymentBoxes = collectPaymentBoxes(view, amountToPay, reservedBoxes);
+            phases.end();
 
             // Set change if exists
-            long change = Math.abs(amountToPay);
-            List<RegularBoxData> regularOutputs = new ArrayList<>();
-            if (change > 0) {
-                regularOutputs.add(new RegularBoxData((PublicKey25519Proposition) paymentBoxes.get(0).proposition(), change));
-            }
+            List<RegularBoxData> regularOutputs = changeOutputs(paymentBoxes, amountToPay);
 
             List<byte[]> inputRegularBoxIds = new ArrayList<>();
             for (Box b : paymentBoxes) {
@@ -258,6 +265,7 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
+            phases.begin(BuildPhases.SIGNING);
             // Get the Tx message to be signed.
             byte[] messageToSign = unsignedTransaction.messageToSign();
 
@@ -284,15 +292,121 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
-            return new TxResponse(ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction)));
+            phases.begin(BuildPhases.SERIALIZATION);
+            String transactionHex = ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction));
+            phases.end();
+
+            return new TxResponse(transactionHex);
         }
         catch (Exception e) {
+            coinSelectionService.release(reservedBoxes);
             return new TokenResponseError("0102", "Error during Token Sell Order sell operation.", Some.apply(e));
         }
     }
 
+    private ApiResponse createTokenSellOrders(SidechainNodeView view, CreateTokenSellOrdersRequest ent) {
+        List<Box<Proposition>> reservedBoxes = new ArrayList<>();
+        try (BuildPhases phases = new BuildPhases(metrics, "createTokenSellOrders")) {
+            phases.begin(BuildPhases.WALLET_LOOKUP);
+
+            // One of the new boxes is kept for the change output.
+            if (ent.sellOrders.isEmpty() || ent.sellOrders.size() >= BoxTransaction.MAX_TRANSACTION_NEW_BOXES) {
+                throw new IllegalArgumentException("The number of sell orders must be between 1 and " + (BoxTransaction.MAX_TRANSACTION_NEW_BOXES - 1) + ".");
+            }
+
+            // Find all the TokenBoxes to be opened in the wallet token boxes
+            List<TokenBox> tokenBoxes = new ArrayList<>(ent.sellOrders.size());
+            List<PublicKey25519Proposition> tokenBuyerPropositions = new ArrayList<>(ent.sellOrders.size());
+            Set<ByteArrayWrapper> requestedIds = new HashSet<>();
+            for (CreateTokenSellOrdersRequest.SellOrder sellOrder : ent.sellOrders) {
+                byte[] tokenBoxId = BytesUtils.fromHexString(sellOrder.tokenBoxId);
+                // A box can be opened only once by the transaction.
+                if (!requestedIds.add(new ByteArrayWrapper(tokenBoxId))) {
+                    throw new IllegalArgumentException("The token box is specified more than once: " + sellOrder.tokenBoxId);
+                }
+                tokenBoxes.add(tokenWalletDBService.getTokenBoxByBoxId(view.getNodeWallet(), tokenBoxId)
+                        .orElseThrow(() -> new IllegalArgumentException("TokenBox with given box id not found in the Wallet: " + sellOrder.tokenBoxId)));
+                tokenBuyerPropositions.add(PublicKey25519PropositionSerializer.getSerializer()
+                        .parseBytes(BytesUtils.fromHexString(sellOrder.buyerProposition)));
+            }
+
+            // Get Regular boxes to pay the fee, shared by all the sell orders
+            long amountToPay = ent.fee;
+            phases.begin(BuildPhases.COIN_SELECTION);
+            List<Box<Proposition>> paymentBoxes = collectPaymentBoxes(view, amountToPay, reservedBoxes);
+            phases.end();
+
+            // Set change if exists
+            List<RegularBoxData> regularOutputs = changeOutputs(paymentBoxes, amountToPay);
+
+            List<byte[]> inputRegularBoxIds = new ArrayList<>();
+            for (Box b : paymentBoxes) {
+                inputRegularBoxIds.add(b.id());
+            }
+
+            // Create fake proofs to be able to create transaction to be signed.
+            List<TokenSellOrderInfo> fakeSaleOrderInfos = new ArrayList<>(tokenBoxes.size());
+            for (int i = 0; i < tokenBoxes.size(); i++) {
+                fakeSaleOrderInfos.add(new TokenSellOrderInfo(tokenBoxes.get(i), null, ent.sellOrders.get(i).sellPrice, tokenBuyerPropositions.get(i)));
+            }
+            List<Signature25519> fakeRegularInputProofs = Collections.nCopies(inputRegularBoxIds.size(), null);
+
+            Long timestamp = System.currentTimeMillis();
+
+            SellTokensTransaction unsignedTransaction = new SellTokensTransaction(
+                    inputRegularBoxIds,
+                    fakeRegularInputProofs,
+                    regularOutputs,
+                    fakeSaleOrderInfos,
+                    ent.fee,
+                    timestamp);
+
+            phases.begin(BuildPhases.SIGNING);
+            // Get the Tx message to be signed.
+            byte[] messageToSign = unsignedTransaction.messageToSign();
+
+            // Create signatures.
+            List<Signature25519> regularInputProofs = new ArrayList<>();
+            for (Box<Proposition> box : paymentBoxes) {
+                regularInputProofs.add((Signature25519) view.getNodeWallet().secretByPublicKey(box.proposition()).get().sign(messageToSign));
+            }
+
+            List<TokenSellOrderInfo> saleOrderInfos = new ArrayList<>(tokenBoxes.size());
+            for (int i = 0; i < tokenBoxes.size(); i++) {
+                TokenBox tokenBox = tokenBoxes.get(i);
+                saleOrderInfos.add(new TokenSellOrderInfo(
+                        tokenBox,
+                        (Signature25519)view.getNodeWallet().secretByPublicKey(tokenBox.proposition()).get().sign(messageToSign),
+                        ent.sellOrders.get(i).sellPrice,
+                        tokenBuyerPropositions.get(i)));
+            }
+
+            // Create the resulting signed transaction.
+            SellTokensTransaction transaction = new SellTokensTransaction(
+                    inputRegularBoxIds,
+                    regularInputProofs,
+                    regularOutputs,
+                    saleOrderInfos,
+                    ent.fee,
+                    timestamp);
+
+            phases.begin(BuildPhases.SERIALIZATION);
+            String transactionHex = ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction));
+            phases.end();
+
+            return new TxResponse(transactionHex);
+        }
+        catch (Exception e) {
+            coinSelectionService.release(reservedBoxes);
+            return new TokenResponseError("0102", "Error during Token Sell Orders sell operation.", Some.apply(e));
+        }
+    }
+
     private ApiResponse acceptTokenSellOrder(SidechainNodeView view, SpendTokenSellOrderRequest ent) {
-        try {
+        List<Box<Proposition>> reservedBoxes = new ArrayList<>();
+        try (BuildPhases phases = new BuildPhases(metrics, "acceptTokenSellOrder")) {
+            phases.begin(BuildPhases.WALLET_LOOKUP);
+
             // Try to find CarSellOrder to be opened in the closed boxes list
             TokenSellOrderBox tokenSellOrderBox = (TokenSellOrderBox)view.getNodeState().getClosedBox(BytesUtils.fromHexString(ent.tokenSellOrderId)).get();
 
@@ -303,30 +417,14 @@ public class TokenApi extends ApplicationApiGroup {
                 return new TokenResponseError("0100", "Can't buy the token, because the buyer proposition is not owned by the Node.", Option.empty());
             }
 
-            // Get Regular boxes to pay the car price + fee
-            List<Box<Proposition>> paymentBoxes = new ArrayList<>();
+            // Get Regular boxes to pay the token price + fee
             long amountToPay = tokenSellOrderBox.getPrice() + ent.fee;
-
-            // Avoid to add boxes that are already spent in some Transaction that is present in node Mempool.
-            List<byte[]> boxIdsToExclude = boxesFromMempool(view.getNodeMemoryPool());
-            List<Box<Proposition>> regularBoxes = view.getNodeWallet().boxesOfType(RegularBox.class, boxIdsToExclude);
-            int index = 0;
-            while (amountToPay > 0 && index < regularBoxes.size()) {
-                paymentBoxes.add(regularBoxes.get(index));
-                amountToPay -= regularBoxes.get(index).value();
-                index++;
-            }
-
-            if (amountToPay > 0) {
-                throw new IllegalStateException("Not enough coins to pay the fee.");
-            }
+            phases.begin(BuildPhases.COIN_SELECTION);
+            List<Box<Proposition>> paymentBoxes = collectPaymentBoxes(view, amountToPay, reservedBoxes);
+            phases.end();
 
             // Set change if exists
-            long change = Math.abs(amountToPay);
-            List<RegularBoxData> regularOutputs = new ArrayList<>();
-            if (change > 0) {
-                regularOutputs.add(new RegularBoxData((PublicKey25519Proposition) paymentBoxes.get(0).proposition(), change));
-            }
+            List<RegularBoxData> regularOutputs = changeOutputs(paymentBoxes, amountToPay);
 
             List<byte[]> inputRegularBoxIds = new ArrayList<>();
             for (Box b : paymentBoxes) {
@@ -350,6 +448,7 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
+            phases.begin(BuildPhases.SIGNING);
             // Get the Tx message to be signed.
             byte[] messageToSign = unsignedTransaction.messageToSign();
 
@@ -376,14 +475,22 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
-            return new TxResponse(ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction)));
+            phases.begin(BuildPhases.SERIALIZATION);
+            String transactionHex = ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction));
+            phases.end();
+
+            return new TxResponse(transactionHex);
         } catch (Exception e) {
+            coinSelectionService.release(reservedBoxes);
             return new TokenResponseError("0103", "Error during Token Sell Order buy operation.", Some.apply(e));
         }
     }
 
     private ApiResponse cancelTokenSellOrder(SidechainNodeView view, SpendTokenSellOrderRequest ent) {
-        try {
+        List<Box<Proposition>> reservedBoxes = new ArrayList<>();
+        try (BuildPhases phases = new BuildPhases(metrics, "cancelTokenSellOrder")) {
+            phases.begin(BuildPhases.WALLET_LOOKUP);
+
             // Try to find CarSellOrder to be opened in the closed boxes list
             Optional<Box> tokenSellOrderBoxOption = view.getNodeState().getClosedBox(BytesUtils.fromHexString(ent.tokenSellOrderId));
 
@@ -401,28 +508,13 @@ public class TokenApi extends ApplicationApiGroup {
             }
 
             // Get Regular boxes to pay the fee
-            List<Box<Proposition>> paymentBoxes = new ArrayList<>();
             long amountToPay = ent.fee;
-
-            List<byte[]> boxIdsToExclude = boxesFromMempool(view.getNodeMemoryPool());
-            List<Box<Proposition>> regularBoxes = view.getNodeWallet().boxesOfType(RegularBox.class, boxIdsToExclude);
-            int index = 0;
-            while (amountToPay > 0 && index < regularBoxes.size()) {
-                paymentBoxes.add(regularBoxes.get(index));
-                amountToPay -= regularBoxes.get(index).value();
-                index++;
-            }
-
-            if (amountToPay > 0) {
-                throw new IllegalStateException("Not enough coins to pay the fee.");
-            }
+            phases.begin(BuildPhases.COIN_SELECTION);
+            List<Box<Proposition>> paymentBoxes = collectPaymentBoxes(view, amountToPay, reservedBoxes);
+            phases.end();
 
             // Set change if exists
-            long change = Math.abs(amountToPay);
-            List<RegularBoxData> regularOutputs = new ArrayList<>();
-            if (change > 0) {
-                regularOutputs.add(new RegularBoxData((PublicKey25519Proposition) paymentBoxes.get(0).proposition(), change));
-            }
+            List<RegularBoxData> regularOutputs = changeOutputs(paymentBoxes, amountToPay);
 
             List<byte[]> inputRegularBoxIds = new ArrayList<>();
             for (Box b : paymentBoxes) {
@@ -446,6 +538,7 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
+            phases.begin(BuildPhases.SIGNING);
             // Get the Tx message to be signed.
             byte[] messageToSign = unsignedTransaction.messageToSign();
 
@@ -472,12 +565,282 @@ public class TokenApi extends ApplicationApiGroup {
                     ent.fee,
                     timestamp);
 
-            return new TxResponse(ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction)));
+            phases.begin(BuildPhases.SERIALIZATION);
+            String transactionHex = ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction));
+            phases.end();
+
+            return new TxResponse(transactionHex);
         } catch (Exception e) {
+            coinSelectionService.release(reservedBoxes);
             return new TokenResponseError("0103", "Error during Token Sell Order cancel operation.", Some.apply(e));
         }
     }
 
+    private ApiResponse acceptTokenSellOrders(SidechainNodeView view, SpendTokenSellOrdersRequest ent) {
+        List<Box<Proposition>> reservedBoxes = new ArrayList<>();
+        try (BuildPhases phases = new BuildPhases(metrics, "acceptTokenSellOrders")) {
+            // Specify that sell orders are not opened by the seller, but opened by the buyer.
+            return spendTokenSellOrders(view, ent, false, reservedBoxes, phases);
+        } catch (Exception e) {
+            coinSelectionService.release(reservedBoxes);
+            return new TokenResponseError("0103", "Error during Token Sell Orders buy operation.", Some.apply(e));
+        }
+    }
+
+    private ApiResponse cancelTokenSellOrders(SidechainNodeView view, SpendTokenSellOrdersRequest ent) {
+        List<Box<Proposition>> reservedBoxes = new ArrayList<>();
+        try (BuildPhases phases = new BuildPhases(metrics, "cancelTokenSellOrders")) {
+            // Specify that sell orders are opened by the seller.
+            return spendTokenSellOrders(view, ent, true, reservedBoxes, phases);
+        } catch (Exception e) {
+            coinSelectionService.release(reservedBoxes);
+            return new TokenResponseError("0103", "Error during Token Sell Orders cancel operation.", Some.apply(e));
+        }
+    }
+
+    // Open all the requested sell orders in a single BuyTokensTransaction, either as their buyer or as their owner.
+    // The buyer pays the sum of the prices together with the fee, and each previous owner gets a single payment box.
+    private ApiResponse spendTokenSellOrders(SidechainNodeView view, SpendTokenSellOrdersRequest ent, boolean isSeller,
+                                             List<Box<Proposition>> reservedBoxes, BuildPhases phases) {
+        phases.begin(BuildPhases.WALLET_LOOKUP);
+
+        if (ent.tokenSellOrderIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one sell order must be specified.");
+        }
+
+        // Find all the TokenSellOrderBoxes to be opened in the closed boxes list, and the secrets to sign them.
+        List<TokenSellOrderBox> tokenSellOrderBoxes = new ArrayList<>(ent.tokenSellOrderIds.size());
+        List<Secret> secrets = new ArrayList<>(ent.tokenSellOrderIds.size());
+        Set<ByteArrayWrapper> owners = new HashSet<>();
+        Set<ByteArrayWrapper> requestedIds = new HashSet<>();
+        long pricesSum = 0;
+        for (String tokenSellOrderId : ent.tokenSellOrderIds) {
+            byte[] tokenSellOrderBoxId = BytesUtils.fromHexString(tokenSellOrderId);
+            // A box can be opened only once by the transaction.
+            if (!requestedIds.add(new ByteArrayWrapper(tokenSellOrderBoxId))) {
+                throw new IllegalArgumentException("The sell order is specified more than once: " + tokenSellOrderId);
+            }
+            Optional<Box> tokenSellOrderBoxOption = view.getNodeState().getClosedBox(tokenSellOrderBoxId);
+            if (!tokenSellOrderBoxOption.isPresent() || !TokenSellOrderBox.class.isInstance(tokenSellOrderBoxOption.get())) {
+                throw new IllegalArgumentException("TokenSellOrderBox with given box id not found in the State: " + tokenSellOrderId);
+            }
+            TokenSellOrderBox tokenSellOrderBox = TokenSellOrderBox.class.cast(tokenSellOrderBoxOption.get());
+
+            // Check that the sell order buyer (or owner) public key is controlled by node wallet.
+            byte[] signerPublicKey = isSeller ? tokenSellOrderBox.proposition().getOwnerPublicKeyBytes()
+                    : tokenSellOrderBox.proposition().getBuyerPublicKeyBytes();
+            Optional<Secret> secretOption = view.getNodeWallet().secretByPublicKey(new PublicKey25519Proposition(signerPublicKey));
+            if (!secretOption.isPresent()) {
+                return new TokenResponseError("0100", "Can't open the sell order " + tokenSellOrderId + ", because the " +
+                        (isSeller ? "owner" : "buyer") + " proposition is not owned by the Node.", Option.empty());
+            }
+            tokenSellOrderBoxes.add(tokenSellOrderBox);
+            secrets.add(secretOption.get());
+            if (!isSeller) {
+                owners.add(new ByteArrayWrapper(tokenSellOrderBox.proposition().getOwnerPublicKeyBytes()));
+                pricesSum = Math.addExact(pricesSum, tokenSellOrderBox.getPrice());
+            }
+        }
+
+        // A TokenBox for each sell order, a payment for each previous owner and the change output.
+        if (tokenSellOrderBoxes.size() + owners.size() >= BoxTransaction.MAX_TRANSACTION_NEW_BOXES) {
+            throw new IllegalArgumentException("Too many sell orders to be opened in a single transaction.");
+        }
+
+        // Get Regular boxes to pay the token prices + fee
+        long amountToPay = Math.addExact(pricesSum, ent.fee);
+        phases.begin(BuildPhases.COIN_SELECTION);
+        List<Box<Proposition>> paymentBoxes = collectPaymentBoxes(view, amountToPay, reservedBoxes);
+        phases.end();
+
+        // Set change if exists
+        List<RegularBoxData> regularOutputs = changeOutputs(paymentBoxes, amountToPay);
+
+        List<byte[]> inputRegularBoxIds = new ArrayList<>();
+        for (Box b : paymentBoxes) {
+            inputRegularBoxIds.add(b.id());
+        }
+
+        // Create fake proofs to be able to create transaction to be signed.
+        List<TokenBuyOrderInfo> fakeBuyOrderInfos = new ArrayList<>(tokenSellOrderBoxes.size());
+        for (TokenSellOrderBox tokenSellOrderBox : tokenSellOrderBoxes) {
+            SellOrderSpendingProof fakeProof = new SellOrderSpendingProof(new byte[SellOrderSpendingProof.SIGNATURE_LENGTH], isSeller);
+            fakeBuyOrderInfos.add(new TokenBuyOrderInfo(tokenSellOrderBox, fakeProof));
+        }
+
+        List<Signature25519> fakeRegularInputProofs = Collections.nCopies(inputRegularBoxIds.size(), null);
+        Long timestamp = System.currentTimeMillis();
+
+        BuyTokensTransaction unsignedTransaction = new BuyTokensTransaction(
+                inputRegularBoxIds,
+                fakeRegularInputProofs,
+                regularOutputs,
+                fakeBuyOrderInfos,
+                ent.fee,
+                timestamp);
+
+        phases.begin(BuildPhases.SIGNING);
+        // Get the Tx message to be signed.
+        byte[] messageToSign = unsignedTransaction.messageToSign();
+
+        // Create regular signatures.
+        List<Signature25519> regularInputProofs = new ArrayList<>();
+        for (Box<Proposition> box : paymentBoxes) {
+            regularInputProofs.add((Signature25519) view.getNodeWallet().secretByPublicKey(box.proposition()).get().sign(messageToSign));
+        }
+
+        // Create sell order spending proofs for buyer (or owner)
+        List<TokenBuyOrderInfo> buyOrderInfos = new ArrayList<>(tokenSellOrderBoxes.size());
+        for (int i = 0; i < tokenSellOrderBoxes.size(); i++) {
+            SellOrderSpendingProof proof = new SellOrderSpendingProof(secrets.get(i).sign(messageToSign).bytes(), isSeller);
+            buyOrderInfos.add(new TokenBuyOrderInfo(tokenSellOrderBoxes.get(i), proof));
+        }
+
+        // Create the resulting signed transaction.
+        BuyTokensTransaction transaction = new BuyTokensTransaction(
+                inputRegularBoxIds,
+                regularInputProofs,
+                regularOutputs,
+                buyOrderInfos,
+                ent.fee,
+                timestamp);
+
+        phases.begin(BuildPhases.SERIALIZATION);
+        String transactionHex = ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) transaction));
+        phases.end();
+
+        return new TxResponse(transactionHex);
+    }
+
+    private ApiResponse ownedTokens(SidechainNodeView view, OwnedTokensRequest ent) {
+        try {
+            List<TokenBox> tokenBoxes;
+            if (ent.tokenId != null) {
+                tokenBoxes = new ArrayList<>();
+                tokenWalletDBService.getTokenBoxByTokenId(view.getNodeWallet(), ent.tokenId).ifPresent(tokenBoxes::add);
+            } else if (ent.type != null) {
+                tokenBoxes = tokenWalletDBService.getTokenBoxesByType(view.getNodeWallet(), ent.type);
+            } else {
+                tokenBoxes = tokenWalletDBService.getAllTokenBoxes(view.getNodeWallet());
+            }
+            return new TokenBoxesResponse(tokenBoxes);
+        } catch (Exception e) {
+            return new TokenResponseError("0104", "Error during owned Tokens retrieval.", Some.apply(e));
+        }
+    }
+
+    // Sell orders addressed to the wallet propositions, that can be accepted by the node.
+    private ApiResponse incomingSellOrders(SidechainNodeView view, SellOrdersRequest ent) {
+        try {
+            List<TokenSellOrderBox> sellOrders = sellOrderDBService.getSellOrdersByBuyers(
+                    requestedPublicKeys(view, ent), ent.fromBoxId == null ? null : BytesUtils.fromHexString(ent.fromBoxId), ent.limit);
+            return new SellOrdersResponse(sellOrders);
+        } catch (Exception e) {
+            return new TokenResponseError("0105", "Error during incoming Token Sell Orders retrieval.", Some.apply(e));
+        }
+    }
+
+    // Sell orders created by the wallet propositions, that can be cancelled by the node.
+    private ApiResponse outgoingSellOrders(SidechainNodeView view, SellOrdersRequest ent) {
+        try {
+            List<TokenSellOrderBox> sellOrders = sellOrderDBService.getSellOrdersByOwners(
+                    requestedPublicKeys(view, ent), ent.fromBoxId == null ? null : BytesUtils.fromHexString(ent.fromBoxId), ent.limit);
+            return new SellOrdersResponse(sellOrders);
+        } catch (Exception e) {
+            return new TokenResponseError("0105", "Error during outgoing Token Sell Orders retrieval.", Some.apply(e));
+        }
+    }
+
+    // Start a background job minting the tokens in many chained transactions.
+    private ApiResponse submitBulkMint(SidechainNodeView view, BulkMintRequest ent) {
+        try {
+            BulkMintJob job = bulkMintService.submit(view, ent.proposition, ent.type, ent.numberOfTokens, ent.feePerTransaction);
+            return new BulkMintStatusResponse(job, 0);
+        } catch (Exception e) {
+            return new TokenResponseError("0107", "Error during Token bulk mint submission.", Some.apply(e));
+        }
+    }
+
+    // Get the progress of a bulk mint job and the transactions signed so far, to be sent in order.
+    private ApiResponse bulkMintStatus(SidechainNodeView view, BulkMintStatusRequest ent) {
+        try {
+            BulkMintJob job = bulkMintService.getJob(ent.jobId)
+                    .orElseThrow(() -> new IllegalArgumentException("Bulk mint job with given id not found."));
+            return new BulkMintStatusResponse(job, ent.fromTransaction);
+        } catch (Exception e) {
+            return new TokenResponseError("0107", "Error during Token bulk mint status retrieval.", Some.apply(e));
+        }
+    }
+
+    // Open sell orders of a token type in the given price range, cheapest first.
+    private ApiResponse sellOrdersByPrice(SidechainNodeView view, SellOrdersByPriceRequest ent) {
+        try {
+            if (ent.type == null || ent.limit <= 0) {
+                throw new IllegalArgumentException("The type must be specified and the limit must be positive.");
+            }
+            if ((ent.fromPrice == null) != (ent.fromBoxId == null)) {
+                throw new IllegalArgumentException("The fromPrice and fromBoxId must be specified together.");
+            }
+            List<TokenSellOrderBox> sellOrders = sellOrderDBService.getSellOrdersByPrice(ent.type, ent.minPrice, ent.maxPrice,
+                    ent.fromPrice == null ? 0 : ent.fromPrice, ent.fromBoxId == null ? null : BytesUtils.fromHexString(ent.fromBoxId), ent.limit);
+            return new SellOrdersByPriceResponse(sellOrders);
+        } catch (Exception e) {
+            return new TokenResponseError("0106", "Error during Token Sell Orders price range retrieval.", Some.apply(e));
+        }
+    }
+
+    // Cheapest open sell orders of a token type, or the cheapest one of each type.
+    private ApiResponse bestSellOrders(SidechainNodeView view, BestSellOrdersRequest ent) {
+        try {
+            if (ent.limit <= 0) {
+                throw new IllegalArgumentException("The limit must be positive.");
+            }
+            List<TokenSellOrderBox> sellOrders = ent.type != null ?
+                    sellOrderDBService.getBestSellOrders(ent.type, ent.limit) :
+                    new ArrayList<>(sellOrderDBService.getBestSellOrderByType().values());
+            return new BestSellOrdersResponse(sellOrders);
+        } catch (Exception e) {
+            return new TokenResponseError("0106", "Error during best Token Sell Orders retrieval.", Some.apply(e));
+        }
+    }
+
+    // Supply counter of each type, at the last applied version or at the requested one.
+    private ApiResponse tokenSupply(SidechainNodeView view, TokenSupplyRequest ent) {
+        try {
+            if (ent.version == null) {
+                return new TokenSupplyResponse(null, tokenSupplyDBService.getSupply());
+            }
+            Map<String, Integer> supply = tokenSupplyDBService.getSupplyAt(BytesUtils.fromHexString(ent.version))
+                    .orElseThrow(() -> new IllegalArgumentException("Token supply not found for the given version."));
+            return new TokenSupplyResponse(ent.version, supply);
+        } catch (Exception e) {
+            return new TokenResponseError("0108", "Error during Token supply retrieval.", Some.apply(e));
+        }
+    }
+
+    // Get the public key of the requested proposition, or the ones of all the wallet propositions.
+    private List<byte[]> requestedPublicKeys(SidechainNodeView view, SellOrdersRequest ent) {
+        if (ent.limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+        List<byte[]> publicKeys = new ArrayList<>();
+        if (ent.proposition != null) {
+            PublicKey25519Proposition proposition = PublicKey25519PropositionSerializer.getSerializer()
+                    .parseBytes(BytesUtils.fromHexString(ent.proposition));
+            if (!view.getNodeWallet().secretByPublicKey(proposition).isPresent()) {
+                throw new IllegalArgumentException("The proposition is not owned by the Node.");
+            }
+            publicKeys.add(proposition.pubKeyBytes());
+        } else {
+            for (Secret secret : view.getNodeWallet().allSecrets()) {
+                if (secret.publicImage() instanceof PublicKey25519Proposition) {
+                    publicKeys.add(((PublicKey25519Proposition) secret.publicImage()).pubKeyBytes());
+                }
+            }
+        }
+        return publicKeys;
+    }
+
     // The CarApi requests success result output structure.
     @JsonView(Views.Default.class)
     static class TxResponse implements SuccessResponse {
@@ -488,6 +851,86 @@ public class TokenApi extends ApplicationApiGroup {
         }
     }
 
+    @JsonView(Views.Default.class)
+    static class TokenBoxesResponse implements SuccessResponse {
+        public List<TokenBox> tokenBoxes;
+
+        public TokenBoxesResponse(List<TokenBox> tokenBoxes) {
+            this.tokenBoxes = tokenBoxes;
+        }
+    }
+
+    @JsonView(Views.Default.class)
+    static class SellOrdersResponse implements SuccessResponse {
+        public List<TokenSellOrderBox> sellOrders;
+        public String nextBoxId; // box id to request the next page, null if no sell order was found
+
+        public SellOrdersResponse(List<TokenSellOrderBox> sellOrders) {
+            this.sellOrders = sellOrders;
+            this.nextBoxId = sellOrders.isEmpty() ? null : BytesUtils.toHexString(sellOrders.get(sellOrders.size() - 1).id());
+        }
+    }
+
+    @JsonView(Views.Default.class)
+    static class SellOrdersByPriceResponse implements SuccessResponse {
+        public List<TokenSellOrderBox> sellOrders;
+        public Long nextPrice; // price and box id to request the next page, null if no sell order was found
+        public String nextBoxId;
+
+        public SellOrdersByPriceResponse(List<TokenSellOrderBox> sellOrders) {
+            this.sellOrders = sellOrders;
+            if (!sellOrders.isEmpty()) {
+                TokenSellOrderBox last = sellOrders.get(sellOrders.size() - 1);
+                this.nextPrice = last.getPrice();
+                this.nextBoxId = BytesUtils.toHexString(last.id());
+            }
+        }
+    }
+
+    // Not paged: the cheapest sell orders are always the first page.
+    @JsonView(Views.Default.class)
+    static class BestSellOrdersResponse implements SuccessResponse {
+        public List<TokenSellOrderBox> sellOrders;
+
+        public BestSellOrdersResponse(List<TokenSellOrderBox> sellOrders) {
+            this.sellOrders = sellOrders;
+        }
+    }
+
+    @JsonView(Views.Default.class)
+    static class TokenSupplyResponse implements SuccessResponse {
+        public String version; // null for the last applied version
+        public Map<String, Integer> supply;
+
+        public TokenSupplyResponse(String version, Map<String, Integer> supply) {
+            this.version = version;
+            this.supply = supply;
+        }
+    }
+
+    @JsonView(Views.Default.class)
+    static class BulkMintStatusResponse implements SuccessResponse {
+        public String jobId;
+        public String status;
+        public int numberOfTokens;
+        public int processedTokens;
+        public int numberOfTransactions;
+        public int builtTransactions;
+        public List<String> transactions; // hex representation of the transactions, starting from the requested index
+        public String error;
+
+        public BulkMintStatusResponse(BulkMintJob job, int fromTransaction) {
+            this.jobId = job.getId();
+            this.status = job.getStatus().name();
+            this.numberOfTokens = job.getNumberOfTokens();
+            this.processedTokens = job.getProcessedTokens();
+            this.numberOfTransactions = job.getNumberOfTransactions();
+            this.transactions = job.getTransactions(fromTransaction);
+            this.builtTransactions = fromTransaction + this.transactions.size();
+            this.error = job.getError();
+        }
+    }
+
     // The CarApi requests error result output structure.
     static class TokenResponseError implements ErrorResponse {
         private final String code;
@@ -516,16 +959,41 @@ public class TokenApi extends ApplicationApiGroup {
         }
     }
 
-    // Utility functions to get from the current mempool the list of all boxes to be opened.
-    private List<byte[]> boxesFromMempool(NodeMemoryPool mempool) {
-        List<byte[]> boxesFromMempool = new ArrayList<>();
-        for(BoxTransaction tx : mempool.getTransactions()) {
-            Set<ByteArrayWrapper> ids = tx.boxIdsToOpen();
-            for(ByteArrayWrapper id : ids) {
-                boxesFromMempool.add(id.data());
+    // Select and reserve the regular boxes to pay the given amount, adding them to the reserved boxes of the request:
+    // if the transaction is not built, the route releases them in its error handling.
+    // Avoid to add boxes that are already spent in some Transaction that is present in node Mempool or reserved by another request.
+    private List<Box<Proposition>> collectPaymentBoxes(SidechainNodeView view, long amountToPay, List<Box<Proposition>> reservedBoxes) {
+        List<Box<Proposition>> paymentBoxes = coinSelectionService.selectAndReserve(view.getNodeWallet(), view.getNodeMemoryPool(), amountToPay);
+        reservedBoxes.addAll(paymentBoxes);
+        return paymentBoxes;
+    }
+
+    // Time the given route handler and count its error responses.
+    private <T> BiFunction<SidechainNodeView, T, ApiResponse> timed(String route, BiFunction<SidechainNodeView, T, ApiResponse> handler) {
+        Timer timer = metrics.apiTimer(route, "total");
+        Counter errors = metrics.apiErrors(route);
+        return (view, request) -> {
+            long start = System.nanoTime();
+            ApiResponse response = handler.apply(view, request);
+            timer.recordSince(start);
+            if (response instanceof ErrorResponse) {
+                errors.increment();
             }
+            return response;
+        };
+    }
+
+    // Utility function to create the change output, sent back to the owner of the first payment box.
+    private List<RegularBoxData> changeOutputs(List<Box<Proposition>> paymentBoxes, long amountToPay) {
+        long change = -amountToPay;
+        for (Box<Proposition> box : paymentBoxes) {
+            change += box.value();
+        }
+        List<RegularBoxData> regularOutputs = new ArrayList<>();
+        if (change > 0) {
+            regularOutputs.add(new RegularBoxData((PublicKey25519Proposition) paymentBoxes.get(0).proposition(), change));
         }
-        return boxesFromMempool;
+        return regularOutputs;
     }
 }
 
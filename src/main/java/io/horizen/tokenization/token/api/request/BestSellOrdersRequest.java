@@ -0,0 +1,17 @@
+package io.horizen.tokenization.token.api.request;
+
+// '.../tokenApi/bestSellOrders' HTTP Post request body representing class.
+public class BestSellOrdersRequest {
+    public String type; // optional, if not set the best sell order of each type is returned
+    public int limit = 1;
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,27 @@
+package io.horizen.tokenization.token.api.request;
+
+// '.../tokenApi/submitBulkMint' HTTP Post request body representing class.
+public class BulkMintRequest {
+    public String type;
+    public int numberOfTokens;
+    public String proposition; // hex representation of public key proposition
+    public long feePerTransaction;
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public void setNumberOfTokens(int numberOfTokens) {
+        this.numberOfTokens = numberOfTokens;
+    }
+
+    public void setProposition(String proposition) {
+        this.proposition = proposition;
+    }
+
+    public void setFeePerTransaction(long feePerTransaction) {
+        this.feePerTransaction = feePerTransaction;
+    }
+}
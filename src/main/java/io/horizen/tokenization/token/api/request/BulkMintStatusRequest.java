@@ -0,0 +1,17 @@
+package io.horizen.tokenization.token.api.request;
+
+// '.../tokenApi/bulkMintStatus' HTTP Post request body representing class.
+public class BulkMintStatusRequest {
+    public String jobId;
+    public int fromTransaction = 0; // index of the first transaction to return
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public void setFromTransaction(int fromTransaction) {
+        this.fromTransaction = fromTransaction;
+    }
+}
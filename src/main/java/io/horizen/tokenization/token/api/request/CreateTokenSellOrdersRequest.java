@@ -0,0 +1,39 @@
+package io.horizen.tokenization.token.api.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// '.../tokenApi/createTokenSellOrders' HTTP Post request body representing class.
+public class CreateTokenSellOrdersRequest {
+    public List<SellOrder> sellOrders = new ArrayList<>();
+    public long fee;
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setSellOrders(List<SellOrder> sellOrders) {
+        this.sellOrders = sellOrders;
+    }
+
+    public void setFee(long fee) {
+        this.fee = fee;
+    }
+
+    // A single sell order of the request.
+    public static class SellOrder {
+        public String tokenBoxId; // hex representation of box id
+        public String buyerProposition; // hex representation of public key proposition
+        public long sellPrice;
+
+        public void setTokenBoxId(String tokenBoxId) {
+            this.tokenBoxId = tokenBoxId;
+        }
+
+        public void setBuyerProposition(String buyerProposition) {
+            this.buyerProposition = buyerProposition;
+        }
+
+        public void setSellPrice(long sellPrice) {
+            this.sellPrice = sellPrice;
+        }
+    }
+}
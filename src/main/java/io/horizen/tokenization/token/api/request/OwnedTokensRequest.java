@@ -0,0 +1,17 @@
+package io.horizen.tokenization.token.api.request;
+
+// '.../tokenApi/ownedTokens' HTTP Post request body representing class.
+public class OwnedTokensRequest {
+    public String type; // optional, if not set all the owned tokens are returned
+    public String tokenId; // optional, if set only the box of the given token is returned
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+}
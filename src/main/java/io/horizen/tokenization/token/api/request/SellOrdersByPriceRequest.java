@@ -0,0 +1,37 @@
+package io.horizen.tokenization.token.api.request;
+
+// '.../tokenApi/sellOrdersByPrice' HTTP Post request body representing class.
+public class SellOrdersByPriceRequest {
+    public String type;
+    public long minPrice = 0; // inclusive
+    public long maxPrice = Long.MAX_VALUE; // inclusive
+    public Long fromPrice; // optional price of the last sell order of the previous page, set together with fromBoxId
+    public String fromBoxId; // optional hex representation of the last box id of the previous page
+    public int limit = 100;
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public void setMinPrice(long minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public void setMaxPrice(long maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public void setFromPrice(Long fromPrice) {
+        this.fromPrice = fromPrice;
+    }
+
+    public void setFromBoxId(String fromBoxId) {
+        this.fromBoxId = fromBoxId;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,22 @@
+package io.horizen.tokenization.token.api.request;
+
+// '.../tokenApi/incomingSellOrders' and '.../tokenApi/outgoingSellOrders' HTTP Post requests body representing class.
+public class SellOrdersRequest {
+    public String proposition; // optional hex representation of public key proposition, if not set all the wallet propositions are used
+    public String fromBoxId; // optional hex representation of the last box id of the previous page
+    public int limit = 100;
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setProposition(String proposition) {
+        this.proposition = proposition;
+    }
+
+    public void setFromBoxId(String fromBoxId) {
+        this.fromBoxId = fromBoxId;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,20 @@
+package io.horizen.tokenization.token.api.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// '.../tokenApi/acceptTokenSellOrders' and '.../tokenApi/cancelTokenSellOrders' HTTP Post request body representing class.
+public class SpendTokenSellOrdersRequest {
+    public List<String> tokenSellOrderIds = new ArrayList<>(); // hex representation of box ids
+    public long fee;
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setTokenSellOrderIds(List<String> tokenSellOrderIds) {
+        this.tokenSellOrderIds = tokenSellOrderIds;
+    }
+
+    public void setFee(long fee) {
+        this.fee = fee;
+    }
+}
@@ -0,0 +1,12 @@
+package io.horizen.tokenization.token.api.request;
+
+// '.../tokenApi/tokenSupply' HTTP Post request body representing class.
+public class TokenSupplyRequest {
+    public String version; // hex representation of the state version, if null the last applied one
+
+    // Setters to let Akka jackson JSON library to automatically deserialize the request body.
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+}
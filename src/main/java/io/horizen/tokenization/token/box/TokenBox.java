@@ -9,11 +9,14 @@ import com.horizen.box.BoxSerializer;
 import com.horizen.proposition.PublicKey25519Proposition;
 import com.horizen.serialization.Views;
 import io.horizen.tokenization.token.box.data.TokenBoxData;
-import io.horizen.tokenization.token.box.data.TokenBoxDataSerializer;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.VLQByteBufferReader;
+import scorex.util.serialization.Writer;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import static io.horizen.tokenization.token.box.TokenBoxesIdsEnum.TokenBoxId;
+import static io.horizen.tokenization.token.box.TokenBoxesIdsEnum.TokenBoxV2Id;
 
 // Declare default JSON view for CarBox object. Will automatically collect all getters except ignored ones.
 @JsonView(Views.Default.class)
@@ -34,17 +37,65 @@ public final class TokenBox extends AbstractNoncedBox<PublicKey25519Proposition,
         return TokenBoxId.id();
     }
 
+    // The SDK encoding of the box: it is part of the state and of the message signed by the transactions creating
+    // the box, so it never changes. The compact v2 encoding is used only by the application storages.
     @Override
     public byte[] bytes() {
         return Bytes.concat(
                 Longs.toByteArray(nonce),
-                TokenBoxDataSerializer.getSerializer().toBytes(boxData)
+                boxData.bytes()
         );
     }
 
-    public static TokenBox parseBytes(byte[] bytes) {
-        long nonce = Longs.fromByteArray(Arrays.copyOf(bytes, Longs.BYTES));
-        TokenBoxData boxData = TokenBoxDataSerializer.getSerializer().parseBytes(Arrays.copyOfRange(bytes, Longs.BYTES, bytes.length));
+    // Compact v2 encoding: nonce followed by the compact box data encoding.
+    public void serializeCompact(Writer writer) {
+        writer.putBytes(Longs.toByteArray(nonce));
+        boxData.serializeCompact(writer);
+    }
+
+    // Write the box prefixed by its storage type id, so that 'parseTyped()' can read it back whatever its encoding is.
+    public void serializeTyped(Writer writer) {
+        if (boxData.isCompact()) {
+            writer.put(TokenBoxV2Id.id());
+            TokenBoxV2Serializer.getSerializer().serialize(this, writer);
+        } else {
+            writer.put(TokenBoxId.id());
+            writer.putBytes(bytes());
+        }
+    }
+
+    public static TokenBox parseTyped(Reader reader) {
+        byte typeId = reader.getByte();
+        if (typeId == TokenBoxV2Id.id())
+            return parseCompact(reader);
+        if (typeId == TokenBoxId.id())
+            return parse(reader);
+        throw new IllegalArgumentException("Unknown TokenBox type id: " + typeId);
+    }
+
+    // Same as 'serializeTyped()', used to keep the boxes in the application storages.
+    public byte[] typedBytes() {
+        if (boxData.isCompact())
+            return Bytes.concat(new byte[] { TokenBoxV2Id.id() }, TokenBoxV2Serializer.getSerializer().toBytes(this));
+        return Bytes.concat(new byte[] { TokenBoxId.id() }, bytes());
+    }
+
+    public static TokenBox parseTypedBytes(byte[] bytes) {
+        return parseTyped(new VLQByteBufferReader(ByteBuffer.wrap(bytes)));
+    }
+
+    // Read exactly the bytes written by 'bytes()', so the box can be embedded in larger structures.
+    public static TokenBox parse(Reader reader) {
+        long nonce = Longs.fromByteArray(reader.getBytes(Longs.BYTES));
+        TokenBoxData boxData = TokenBoxData.parse(reader);
+
+        return new TokenBox(boxData, nonce);
+    }
+
+    // Read exactly the bytes written by 'serializeCompact()'.
+    public static TokenBox parseCompact(Reader reader) {
+        long nonce = Longs.fromByteArray(reader.getBytes(Longs.BYTES));
+        TokenBoxData boxData = TokenBoxData.parseCompact(reader);
 
         return new TokenBox(boxData, nonce);
     }
@@ -23,7 +23,7 @@ public final class TokenBoxSerializer implements BoxSerializer<TokenBox> {
 
     @Override
     public TokenBox parse(Reader reader) {
-        return TokenBox.parseBytes(reader.getBytes(reader.remaining()));
+        return TokenBox.parse(reader);
     }
 
 }
@@ -0,0 +1,31 @@
+package io.horizen.tokenization.token.box;
+
+import com.horizen.box.BoxSerializer;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+// Serializer of the compact v2 encoding, used to keep the boxes with a canonical token ID
+// in the application storages. It is not registered in the SDK.
+public final class TokenBoxV2Serializer implements BoxSerializer<TokenBox> {
+
+    private static final TokenBoxV2Serializer serializer = new TokenBoxV2Serializer();
+
+    private TokenBoxV2Serializer() {
+        super();
+    }
+
+    public static TokenBoxV2Serializer getSerializer() {
+        return serializer;
+    }
+
+    @Override
+    public void serialize(TokenBox box, Writer writer) {
+        box.serializeCompact(writer);
+    }
+
+    @Override
+    public TokenBox parse(Reader reader) {
+        return TokenBox.parseCompact(reader);
+    }
+
+}
@@ -4,7 +4,11 @@ package io.horizen.tokenization.token.box;
 // Used during Boxes serializations.
 public enum TokenBoxesIdsEnum {
     TokenBoxId((byte)1),
-    TokenSellOrderBoxId((byte)2);
+    TokenSellOrderBoxId((byte)2),
+    // Boxes holding box data in the compact v2 encoding. Used only as tags in the application storages:
+    // they are not registered in the SDK, which always gets the legacy encoding.
+    TokenBoxV2Id((byte)3),
+    TokenSellOrderBoxV2Id((byte)4);
 
     private final byte id;
 
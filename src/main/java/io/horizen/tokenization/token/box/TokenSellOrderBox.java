@@ -7,11 +7,13 @@ import com.google.common.primitives.Longs;
 import com.horizen.box.AbstractNoncedBox;
 import com.horizen.box.BoxSerializer;
 import io.horizen.tokenization.token.box.data.TokenSellOrderBoxData;
-import io.horizen.tokenization.token.box.data.TokenSellOrderBoxDataSerializer;
 import io.horizen.tokenization.token.proposition.SellOrderProposition;
 import com.horizen.serialization.Views;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.VLQByteBufferReader;
+import scorex.util.serialization.Writer;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 // Declare default JSON view for CarSellOrderBox object. Will automatically collect all getters except ignored ones.
 @JsonView(Views.Default.class)
@@ -22,14 +24,54 @@ public final class TokenSellOrderBox extends AbstractNoncedBox<SellOrderProposit
         super(boxData, nonce);
     }
 
+    // The SDK encoding of the box: it is part of the state and of the message signed by the transactions creating
+    // the box, so it never changes. The compact v2 encoding is used only by the application storages.
     @Override
     public byte[] bytes() {
         return Bytes.concat(
                 Longs.toByteArray(nonce),
-                TokenSellOrderBoxDataSerializer.getSerializer().toBytes(boxData)
+                boxData.bytes()
         );
     }
 
+    // Compact v2 encoding: nonce followed by the compact box data encoding.
+    public void serializeCompact(Writer writer) {
+        writer.putBytes(Longs.toByteArray(nonce));
+        boxData.serializeCompact(writer);
+    }
+
+    // Write the box prefixed by its storage type id, so that 'parseTyped()' can read it back whatever its encoding is.
+    public void serializeTyped(Writer writer) {
+        if (boxData.isCompact()) {
+            writer.put(TokenBoxesIdsEnum.TokenSellOrderBoxV2Id.id());
+            TokenSellOrderBoxV2Serializer.getSerializer().serialize(this, writer);
+        } else {
+            writer.put(TokenBoxesIdsEnum.TokenSellOrderBoxId.id());
+            writer.putBytes(bytes());
+        }
+    }
+
+    public static TokenSellOrderBox parseTyped(Reader reader) {
+        byte typeId = reader.getByte();
+        if (typeId == TokenBoxesIdsEnum.TokenSellOrderBoxV2Id.id())
+            return parseCompact(reader);
+        if (typeId == TokenBoxesIdsEnum.TokenSellOrderBoxId.id())
+            return parse(reader);
+        throw new IllegalArgumentException("Unknown TokenSellOrderBox type id: " + typeId);
+    }
+
+    // Same as 'serializeTyped()', used to keep the boxes in the application storages.
+    public byte[] typedBytes() {
+        if (boxData.isCompact())
+            return Bytes.concat(new byte[] { TokenBoxesIdsEnum.TokenSellOrderBoxV2Id.id() },
+                    TokenSellOrderBoxV2Serializer.getSerializer().toBytes(this));
+        return Bytes.concat(new byte[] { TokenBoxesIdsEnum.TokenSellOrderBoxId.id() }, bytes());
+    }
+
+    public static TokenSellOrderBox parseTypedBytes(byte[] bytes) {
+        return parseTyped(new VLQByteBufferReader(ByteBuffer.wrap(bytes)));
+    }
+
     @Override
     public BoxSerializer serializer() {
         return TokenSellOrderBoxSerializer.getSerializer();
@@ -40,9 +82,18 @@ public final class TokenSellOrderBox extends AbstractNoncedBox<SellOrderProposit
         return TokenBoxesIdsEnum.TokenSellOrderBoxId.id();
     }
 
-    public static TokenSellOrderBox parseBytes(byte[] bytes) {
-        long nonce = Longs.fromByteArray(Arrays.copyOf(bytes, Longs.BYTES));
-        TokenSellOrderBoxData boxData = TokenSellOrderBoxDataSerializer.getSerializer().parseBytes(Arrays.copyOfRange(bytes, Longs.BYTES, bytes.length));
+    // Read exactly the bytes written by 'bytes()', so the box can be embedded in larger structures.
+    public static TokenSellOrderBox parse(Reader reader) {
+        long nonce = Longs.fromByteArray(reader.getBytes(Longs.BYTES));
+        TokenSellOrderBoxData boxData = TokenSellOrderBoxData.parse(reader);
+
+        return new TokenSellOrderBox(boxData, nonce);
+    }
+
+    // Read exactly the bytes written by 'serializeCompact()'.
+    public static TokenSellOrderBox parseCompact(Reader reader) {
+        long nonce = Longs.fromByteArray(reader.getBytes(Longs.BYTES));
+        TokenSellOrderBoxData boxData = TokenSellOrderBoxData.parseCompact(reader);
 
         return new TokenSellOrderBox(boxData, nonce);
     }
@@ -23,6 +23,6 @@ public final class TokenSellOrderBoxSerializer implements BoxSerializer<TokenSel
 
     @Override
     public TokenSellOrderBox parse(Reader reader) {
-        return TokenSellOrderBox.parseBytes(reader.getBytes(reader.remaining()));
+        return TokenSellOrderBox.parse(reader);
     }
 }
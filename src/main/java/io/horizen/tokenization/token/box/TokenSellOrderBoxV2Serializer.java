@@ -0,0 +1,30 @@
+package io.horizen.tokenization.token.box;
+
+import com.horizen.box.BoxSerializer;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+// Serializer of the compact v2 encoding, used to keep the boxes with a canonical token ID
+// in the application storages. It is not registered in the SDK.
+public final class TokenSellOrderBoxV2Serializer implements BoxSerializer<TokenSellOrderBox> {
+
+    private static final TokenSellOrderBoxV2Serializer serializer = new TokenSellOrderBoxV2Serializer();
+
+    private TokenSellOrderBoxV2Serializer() {
+        super();
+    }
+
+    public static TokenSellOrderBoxV2Serializer getSerializer() {
+        return serializer;
+    }
+
+    @Override
+    public void serialize(TokenSellOrderBox tokenSellOrder, Writer writer) {
+        tokenSellOrder.serializeCompact(writer);
+    }
+
+    @Override
+    public TokenSellOrderBox parse(Reader reader) {
+        return TokenSellOrderBox.parseCompact(reader);
+    }
+}
@@ -0,0 +1,72 @@
+package io.horizen.tokenization.token.box.data;
+
+import com.google.common.primitives.Longs;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+// CompactEncoding defines the fields layout of the v2 box data encoding, used only to keep the boxes in the application
+// storages. The SDK, the transactions and so the signed messages always get the legacy encoding.
+// In the v2 encoding:
+// - the canonical token IDs (the numeric ones assigned by the TokenIdAllocator) are stored as 8-byte integers;
+// - strings are stored as UTF-8 bytes with a variable length prefix.
+// Box data whose ID is not canonical keep the legacy encoding, see TokenBoxData.isCompact().
+final class CompactEncoding {
+
+    // A canonical token ID has a creator slot of 2 to 8 digits followed by 8 digits of sequence. Only the 10 digits
+    // IDs can start with a zero, so the leading zeros are restored from the integer value.
+    static final int CANONICAL_ID_LENGTH = 10;
+    static final int MAX_CANONICAL_ID_LENGTH = 16;
+
+    // Upper bound of a string length accepted while parsing, to not allocate arbitrary amounts of memory.
+    private static final int MAX_STRING_LENGTH = 1024;
+
+    private CompactEncoding() {
+    }
+
+    static boolean isCanonicalId(String id) {
+        if (id.length() < CANONICAL_ID_LENGTH || id.length() > MAX_CANONICAL_ID_LENGTH)
+            return false;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return id.length() == CANONICAL_ID_LENGTH || id.charAt(0) != '0';
+    }
+
+    static void putCanonicalId(Writer writer, String id) {
+        writer.putBytes(Longs.toByteArray(Long.parseLong(id)));
+    }
+
+    static String getCanonicalId(Reader reader) {
+        long value = Longs.fromByteArray(reader.getBytes(Longs.BYTES));
+        if (value < 0)
+            throw new IllegalArgumentException("Invalid canonical token ID: " + value);
+        String digits = Long.toString(value);
+        if (digits.length() > MAX_CANONICAL_ID_LENGTH)
+            throw new IllegalArgumentException("Invalid canonical token ID: " + value);
+        if (digits.length() > CANONICAL_ID_LENGTH)
+            return digits;
+
+        // Restore the leading zeros.
+        StringBuilder id = new StringBuilder(CANONICAL_ID_LENGTH);
+        for (int i = digits.length(); i < CANONICAL_ID_LENGTH; i++)
+            id.append('0');
+        return id.append(digits).toString();
+    }
+
+    static void putString(Writer writer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writer.putUInt(bytes.length);
+        writer.putBytes(bytes);
+    }
+
+    static String getString(Reader reader) {
+        long length = reader.getUInt();
+        if (length > MAX_STRING_LENGTH)
+            throw new IllegalArgumentException("String length exceeds the maximum allowed: " + length);
+        return new String(reader.getBytes((int) length), StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,6 @@
 package io.horizen.tokenization.token.box.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.google.common.primitives.Bytes;
 import com.google.common.primitives.Ints;
@@ -10,8 +11,8 @@ import com.horizen.proposition.PublicKey25519PropositionSerializer;
 import com.horizen.serialization.Views;
 import io.horizen.tokenization.token.box.TokenBox;
 import scorex.crypto.hash.Blake2b256;
-
-import java.util.Arrays;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
 import static io.horizen.tokenization.token.box.data.TokenBoxesDataIdsEnum.TokenBoxDataId;
 
@@ -22,12 +23,16 @@ public final class TokenBoxData extends AbstractNoncedBoxData<PublicKey25519Prop
     private final String id;   // Vehicle Identification Number
     private final String type;
 
+    // Box data with a canonical ID are kept in the application storages with the compact v2 encoding.
+    private final boolean compact;
+
     // Additional check on VIN length can be done as well, but not present as a part of current example.
     public TokenBoxData(PublicKey25519Proposition proposition, String id, String type) {
         //AbstractNoncedBoxData requires value to be set in constructor. However, our car is unique object without any value in ZEN by default. So just set value to 1
         super(proposition, 0);
         this.id = id;
         this.type = type;
+        this.compact = CompactEncoding.isCanonicalId(id);
     }
 
     public String getID() {
@@ -38,6 +43,11 @@ public final class TokenBoxData extends AbstractNoncedBoxData<PublicKey25519Prop
         return type;
     }
 
+    @JsonIgnore
+    public boolean isCompact() {
+        return compact;
+    }
+
     @Override
     public TokenBox getBox(long nonce) {
         return new TokenBox(this, nonce);
@@ -58,6 +68,7 @@ public final class TokenBoxData extends AbstractNoncedBoxData<PublicKey25519Prop
         return TokenBoxDataId.id();
     }
 
+    // Legacy encoding, the only one known by the SDK: ID and type as length prefixed strings.
     @Override
     public byte[] bytes() {
         return Bytes.concat(
@@ -69,23 +80,35 @@ public final class TokenBoxData extends AbstractNoncedBoxData<PublicKey25519Prop
         );
     }
 
-    public static TokenBoxData parseBytes(byte[] bytes) {
-        int offset = 0;
+    // Compact v2 encoding: proposition, ID as 8-byte integer and UTF-8 type. Available for canonical IDs only.
+    public void serializeCompact(Writer writer) {
+        if (!compact)
+            throw new IllegalStateException("Token ID is not canonical, compact encoding is not available: " + id);
+        writer.putBytes(proposition().bytes());
+        CompactEncoding.putCanonicalId(writer, id);
+        CompactEncoding.putString(writer, type);
+    }
 
+    // Read exactly the bytes written by 'bytes()', so the data can be embedded in larger structures.
+    public static TokenBoxData parse(Reader reader) {
         PublicKey25519Proposition proposition = PublicKey25519PropositionSerializer.getSerializer()
-                .parseBytes(Arrays.copyOf(bytes, PublicKey25519Proposition.getLength()));
-        offset += PublicKey25519Proposition.getLength();
+                .parseBytes(reader.getBytes(PublicKey25519Proposition.getLength()));
 
-        int size = Ints.fromByteArray(Arrays.copyOfRange(bytes, offset, offset + Ints.BYTES));
-        offset += Ints.BYTES;
+        int size = Ints.fromByteArray(reader.getBytes(Ints.BYTES));
+        String id = new String(reader.getBytes(size));
 
-        String id = new String(Arrays.copyOfRange(bytes, offset, offset + size));
-        offset += size;
+        size = Ints.fromByteArray(reader.getBytes(Ints.BYTES));
+        String type = new String(reader.getBytes(size));
 
-        size = Ints.fromByteArray(Arrays.copyOfRange(bytes, offset, offset + Ints.BYTES));
-        offset += Ints.BYTES;
+        return new TokenBoxData(proposition, id, type);
+    }
 
-        String type = new String(Arrays.copyOfRange(bytes, offset, offset + size));
+    // Read exactly the bytes written by 'serializeCompact()'.
+    public static TokenBoxData parseCompact(Reader reader) {
+        PublicKey25519Proposition proposition = PublicKey25519PropositionSerializer.getSerializer()
+                .parseBytes(reader.getBytes(PublicKey25519Proposition.getLength()));
+        String id = CompactEncoding.getCanonicalId(reader);
+        String type = CompactEncoding.getString(reader);
 
         return new TokenBoxData(proposition, id, type);
     }
@@ -23,6 +23,6 @@ public final class TokenBoxDataSerializer implements NoncedBoxDataSerializer<Tok
 
     @Override
     public TokenBoxData parse(Reader reader) {
-        return TokenBoxData.parseBytes(reader.getBytes(reader.remaining()));
+        return TokenBoxData.parse(reader);
     }
 }
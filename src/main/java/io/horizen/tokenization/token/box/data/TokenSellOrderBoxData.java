@@ -1,5 +1,6 @@
 package io.horizen.tokenization.token.box.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.google.common.primitives.Bytes;
 import com.google.common.primitives.Ints;
@@ -11,8 +12,8 @@ import io.horizen.tokenization.token.proposition.SellOrderProposition;
 import io.horizen.tokenization.token.proposition.SellOrderPropositionSerializer;
 import com.horizen.serialization.Views;
 import scorex.crypto.hash.Blake2b256;
-
-import java.util.Arrays;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
 @JsonView(Views.Default.class)
 public final class TokenSellOrderBoxData extends AbstractNoncedBoxData<SellOrderProposition, TokenSellOrderBox, TokenSellOrderBoxData> {
@@ -22,10 +23,14 @@ public final class TokenSellOrderBoxData extends AbstractNoncedBoxData<SellOrder
     private final String id;
     private final String type;
 
+    // Box data with a canonical ID are kept in the application storages with the compact v2 encoding.
+    private final boolean compact;
+
     public TokenSellOrderBoxData(SellOrderProposition proposition, long price, String id, String type) {
         super(proposition, price);
         this.id = id;
         this.type = type;
+        this.compact = CompactEncoding.isCanonicalId(id);
     }
 
     public String getID() {
@@ -36,6 +41,11 @@ public final class TokenSellOrderBoxData extends AbstractNoncedBoxData<SellOrder
         return type;
     }
 
+    @JsonIgnore
+    public boolean isCompact() {
+        return compact;
+    }
+
 
     @Override
     public TokenSellOrderBox getBox(long nonce) {
@@ -60,6 +70,8 @@ public final class TokenSellOrderBoxData extends AbstractNoncedBoxData<SellOrder
         return TokenBoxesDataIdsEnum.TokenSellOrderBoxDataId.id();
     }
 
+    // Legacy encoding, the only one known by the SDK: length prefixed proposition, fixed size price,
+    // ID and type as length prefixed strings.
     @Override
     public byte[] bytes() {
         return Bytes.concat(
@@ -73,29 +85,40 @@ public final class TokenSellOrderBoxData extends AbstractNoncedBoxData<SellOrder
         );
     }
 
-    public static TokenSellOrderBoxData parseBytes(byte[] bytes) {
-        int offset = 0;
-
-        int size = Ints.fromByteArray(Arrays.copyOfRange(bytes, offset, offset + Ints.BYTES));
-        offset += Ints.BYTES;
+    // Compact v2 encoding: proposition, variable length price, ID as 8-byte integer and UTF-8 type.
+    // Available for canonical IDs only.
+    public void serializeCompact(Writer writer) {
+        if (!compact)
+            throw new IllegalStateException("Token ID is not canonical, compact encoding is not available: " + id);
+        writer.putBytes(proposition().bytes());
+        writer.putLong(value());
+        CompactEncoding.putCanonicalId(writer, id);
+        CompactEncoding.putString(writer, type);
+    }
 
-        SellOrderProposition proposition = SellOrderPropositionSerializer.getSerializer()
-                .parseBytes(Arrays.copyOfRange(bytes, offset, offset + size));
-        offset += size;
+    // Read exactly the bytes written by 'bytes()', so the data can be embedded in larger structures.
+    public static TokenSellOrderBoxData parse(Reader reader) {
+        // The proposition length prefix is kept for compatibility with the stored boxes.
+        int size = Ints.fromByteArray(reader.getBytes(Ints.BYTES));
+        SellOrderProposition proposition = SellOrderPropositionSerializer.getSerializer().parseBytes(reader.getBytes(size));
 
-        long price = Longs.fromByteArray(Arrays.copyOfRange(bytes, offset, offset + Longs.BYTES));
-        offset += Longs.BYTES;
+        long price = Longs.fromByteArray(reader.getBytes(Longs.BYTES));
 
-        size = Ints.fromByteArray(Arrays.copyOfRange(bytes, offset, offset + Ints.BYTES));
-        offset += Ints.BYTES;
+        size = Ints.fromByteArray(reader.getBytes(Ints.BYTES));
+        String id = new String(reader.getBytes(size));
 
-        String id = new String(Arrays.copyOfRange(bytes, offset, offset + size));
-        offset += size;
+        size = Ints.fromByteArray(reader.getBytes(Ints.BYTES));
+        String type = new String(reader.getBytes(size));
 
-        size = Ints.fromByteArray(Arrays.copyOfRange(bytes, offset, offset + Ints.BYTES));
-        offset += Ints.BYTES;
+        return new TokenSellOrderBoxData(proposition, price, id, type);
+    }
 
-        String type = new String(Arrays.copyOfRange(bytes, offset, offset + size));
+    // Read exactly the bytes written by 'serializeCompact()'.
+    public static TokenSellOrderBoxData parseCompact(Reader reader) {
+        SellOrderProposition proposition = SellOrderProposition.parse(reader);
+        long price = reader.getLong();
+        String id = CompactEncoding.getCanonicalId(reader);
+        String type = CompactEncoding.getString(reader);
 
         return new TokenSellOrderBoxData(proposition, price, id, type);
     }
@@ -23,6 +23,6 @@ public final class TokenSellOrderBoxDataSerializer implements NoncedBoxDataSeria
 
     @Override
     public TokenSellOrderBoxData parse(Reader reader) {
-        return TokenSellOrderBoxData.parseBytes(reader.getBytes(reader.remaining()));
+        return TokenSellOrderBoxData.parse(reader);
     }
 }
@@ -0,0 +1,70 @@
+package io.horizen.tokenization.token.coinselection;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Look for a set of coins whose sum is exactly the amount to pay, so that no change output is needed.
+ * The search is a depth first exploration of the include/exclude tree over the available coins not bigger than the
+ * amount, sorted by descending value: a branch is cut as soon as its sum exceeds the amount or the remaining coins
+ * are not enough to reach it. The number of explored nodes is bounded, and when no exact match is found the
+ * MinimalInputs selection is used.
+ */
+public final class BranchAndBoundCoinSelection implements CoinSelectionStrategy {
+
+    private static final int MAX_CANDIDATES = 1000;
+    private static final int MAX_TRIES = 100000;
+
+    private final MinimalInputsCoinSelection fallback = new MinimalInputsCoinSelection();
+
+    @Override
+    public Optional<List<Coin>> select(NavigableSet<Coin> coins, long amount, Predicate<Coin> isAvailable) {
+        List<Coin> candidates = new ArrayList<>();
+        for (Coin coin : coins.headSet(Coin.lowerBound(amount + 1), false).descendingSet()) {
+            if (candidates.size() >= MAX_CANDIDATES) {
+                break;
+            }
+            if (coin.value() > 0 && isAvailable.test(coin)) {
+                candidates.add(coin);
+            }
+        }
+
+        // remaining[i] is the sum of the candidates from i to the end.
+        long[] remaining = new long[candidates.size() + 1];
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            remaining[i] = remaining[i + 1] + candidates.get(i).value();
+        }
+
+        if (remaining[0] >= amount) {
+            boolean[] included = new boolean[candidates.size()];
+            if (search(candidates, remaining, included, 0, amount, new int[]{MAX_TRIES})) {
+                List<Coin> selected = new ArrayList<>();
+                for (int i = 0; i < included.length; i++) {
+                    if (included[i]) {
+                        selected.add(candidates.get(i));
+                    }
+                }
+                return Optional.of(selected);
+            }
+        }
+        return fallback.select(coins, amount, isAvailable);
+    }
+
+    private boolean search(List<Coin> candidates, long[] remaining, boolean[] included, int index, long amountToPay, int[] tries) {
+        if (amountToPay == 0) {
+            return true;
+        }
+        if (index == candidates.size() || remaining[index] < amountToPay || --tries[0] < 0) {
+            return false;
+        }
+        long value = candidates.get(index).value();
+        if (value <= amountToPay) {
+            included[index] = true;
+            if (search(candidates, remaining, included, index + 1, amountToPay - value, tries)) {
+                return true;
+            }
+            included[index] = false;
+        }
+        return search(candidates, remaining, included, index + 1, amountToPay, tries);
+    }
+}
@@ -0,0 +1,62 @@
+package io.horizen.tokenization.token.coinselection;
+
+import com.google.common.primitives.UnsignedBytes;
+import com.horizen.box.Box;
+import com.horizen.proposition.Proposition;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Coin is a spendable box of the wallet, ordered by value and then by box id.
+public final class Coin implements Comparable<Coin> {
+
+    private static final Comparator<byte[]> ID_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+    private static final byte[] MIN_ID = new byte[0];
+
+    private final long value;
+    private final byte[] id;
+    private final Box<Proposition> box;
+
+    public Coin(Box<Proposition> box) {
+        this(box.value(), box.id(), box);
+    }
+
+    private Coin(long value, byte[] id, Box<Proposition> box) {
+        this.value = value;
+        this.id = id;
+        this.box = box;
+    }
+
+    // Key lower than all the coins with the given value, to be used for the sorted set range queries.
+    public static Coin lowerBound(long value) {
+        return new Coin(value, MIN_ID, null);
+    }
+
+    public long value() {
+        return value;
+    }
+
+    public byte[] id() {
+        return id;
+    }
+
+    public Box<Proposition> box() {
+        return box;
+    }
+
+    @Override
+    public int compareTo(Coin other) {
+        int result = Long.compare(value, other.value);
+        return result != 0 ? result : ID_COMPARATOR.compare(id, other.id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Coin && compareTo((Coin) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value) * 31 + Arrays.hashCode(id);
+    }
+}
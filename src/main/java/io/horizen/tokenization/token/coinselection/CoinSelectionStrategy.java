@@ -0,0 +1,19 @@
+package io.horizen.tokenization.token.coinselection;
+
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+// CoinSelectionStrategy defines how to choose the RegularBoxes to be spent to pay a given amount.
+public interface CoinSelectionStrategy {
+
+    /**
+     * Select the coins to pay the given amount.
+     * @param coins the wallet coins sorted by ascending value
+     * @param amount the amount to pay, greater than zero
+     * @param isAvailable tells if a coin can be spent, i.e. it is not already spent by a pending transaction
+     * @return the selected coins, empty if the available coins are not enough to pay the amount
+     */
+    Optional<List<Coin>> select(NavigableSet<Coin> coins, long amount, Predicate<Coin> isAvailable);
+}
@@ -0,0 +1,23 @@
+package io.horizen.tokenization.token.coinselection;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// Take the biggest coins first, until the amount is covered.
+public final class LargestFirstCoinSelection implements CoinSelectionStrategy {
+
+    @Override
+    public Optional<List<Coin>> select(NavigableSet<Coin> coins, long amount, Predicate<Coin> isAvailable) {
+        List<Coin> selected = new ArrayList<>();
+        long amountToPay = amount;
+        Iterator<Coin> iterator = coins.descendingIterator();
+        while (amountToPay > 0 && iterator.hasNext()) {
+            Coin coin = iterator.next();
+            if (isAvailable.test(coin)) {
+                selected.add(coin);
+                amountToPay -= coin.value();
+            }
+        }
+        return amountToPay > 0 ? Optional.empty() : Optional.of(selected);
+    }
+}
@@ -0,0 +1,21 @@
+package io.horizen.tokenization.token.coinselection;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// Spend the smallest single coin covering the amount, if any. Otherwise take the biggest coins first,
+// that gives the minimal number of inputs.
+public final class MinimalInputsCoinSelection implements CoinSelectionStrategy {
+
+    private final LargestFirstCoinSelection largestFirst = new LargestFirstCoinSelection();
+
+    @Override
+    public Optional<List<Coin>> select(NavigableSet<Coin> coins, long amount, Predicate<Coin> isAvailable) {
+        for (Coin coin : coins.tailSet(Coin.lowerBound(amount), true)) {
+            if (isAvailable.test(coin)) {
+                return Optional.of(Collections.singletonList(coin));
+            }
+        }
+        return largestFirst.select(coins, amount, isAvailable);
+    }
+}
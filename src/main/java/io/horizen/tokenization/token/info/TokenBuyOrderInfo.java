@@ -1,17 +1,15 @@
 package io.horizen.tokenization.token.info;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
 import com.horizen.box.data.RegularBoxData;
 import io.horizen.tokenization.token.box.TokenSellOrderBox;
 import io.horizen.tokenization.token.box.TokenSellOrderBoxSerializer;
 import io.horizen.tokenization.token.box.data.TokenBoxData;
 import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
 import io.horizen.tokenization.token.proof.SellOrderSpendingProofSerializer;
+import io.horizen.tokenization.token.transaction.TransactionSections;
 import com.horizen.proposition.PublicKey25519Proposition;
-import com.horizen.utils.BytesUtils;
-
-import java.util.Arrays;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
 // CarBuyOrderInfo contains the minimal set of data needed to construct BuyCarTransaction specific inputs an outputs.
 public final class TokenBuyOrderInfo {
@@ -63,33 +61,27 @@ public final class TokenBuyOrderInfo {
         );
     }
 
-    // CarBuyOrderInfo minimal bytes representation.
-    public byte[] bytes() {
-        byte[] tokenSellOrderBoxToOpenBytes = TokenSellOrderBoxSerializer.getSerializer().toBytes(tokenSellOrderBoxToOpen);
-        byte[] proofBytes = SellOrderSpendingProofSerializer.getSerializer().toBytes(proof);
+    // CarBuyOrderInfo minimal representation, written straight into the transaction writer.
+    // Each entry is a section prefixed by its length. The box always uses the legacy encoding.
+    public void serialize(Writer writer) {
+        Writer boxWriter = writer.newWriter();
+        TokenSellOrderBoxSerializer.getSerializer().serialize(tokenSellOrderBoxToOpen, boxWriter);
+        TransactionSections.putSection(writer, boxWriter);
 
-        return Bytes.concat(
-                Ints.toByteArray(tokenSellOrderBoxToOpenBytes.length),
-                tokenSellOrderBoxToOpenBytes,
-                Ints.toByteArray(proofBytes.length),
-                proofBytes
-        );
+        Writer proofWriter = writer.newWriter();
+        SellOrderSpendingProofSerializer.getSerializer().serialize(proof, proofWriter);
+        TransactionSections.putSection(writer, proofWriter);
     }
 
-    // Define object deserialization similar to 'toBytes()' representation.
-    public static TokenBuyOrderInfo parseBytes(byte[] bytes) {
-        int offset = 0;
-
-        int batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        TokenSellOrderBox tokenSellOrderBoxToOpen = TokenSellOrderBoxSerializer.getSerializer().parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
+    // Define object deserialization similar to 'serialize()' representation.
+    public static TokenBuyOrderInfo parse(Reader reader) {
+        int sectionEnd = TransactionSections.getSectionEnd(reader);
+        TokenSellOrderBox tokenSellOrderBoxToOpen = TokenSellOrderBoxSerializer.getSerializer().parse(reader);
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
 
-        SellOrderSpendingProof proof = SellOrderSpendingProofSerializer.getSerializer().parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
+        sectionEnd = TransactionSections.getSectionEnd(reader);
+        SellOrderSpendingProof proof = SellOrderSpendingProofSerializer.getSerializer().parse(reader);
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
 
         return new TokenBuyOrderInfo(tokenSellOrderBoxToOpen, proof);
     }
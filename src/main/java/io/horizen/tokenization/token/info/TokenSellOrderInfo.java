@@ -1,19 +1,17 @@
 package io.horizen.tokenization.token.info;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
 import io.horizen.tokenization.token.box.TokenBox;
 import io.horizen.tokenization.token.box.TokenBoxSerializer;
 import io.horizen.tokenization.token.box.data.TokenSellOrderBoxData;
 import io.horizen.tokenization.token.proposition.SellOrderProposition;
+import io.horizen.tokenization.token.transaction.TransactionSections;
 import com.horizen.proof.Signature25519;
 import com.horizen.proof.Signature25519Serializer;
 import com.horizen.proposition.PublicKey25519Proposition;
 import com.horizen.proposition.PublicKey25519PropositionSerializer;
-import com.horizen.utils.BytesUtils;
-
-import java.util.Arrays;
+import com.horizen.utils.Ed25519;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
 // CarBuyOrderInfo contains the minimal set of data needed to construct SellCarTransaction specific inputs an outputs.
 public final class TokenSellOrderInfo {
@@ -50,48 +48,40 @@ public final class TokenSellOrderInfo {
         );
     }
 
-    // CarSellOrderInfo minimal bytes representation.
-    public byte[] bytes() {
-        byte[] tokenBoxToOpenBytes = TokenBoxSerializer.getSerializer().toBytes(tokenBoxToOpen);
-        byte[] proofBytes = Signature25519Serializer.getSerializer().toBytes(proof);
-
-        byte[] buyerPropositionBytes = PublicKey25519PropositionSerializer.getSerializer().toBytes(buyerProposition);
+    // CarSellOrderInfo minimal representation, written straight into the transaction writer.
+    // Each entry is a section prefixed by its length, except the price. The box always uses the legacy encoding.
+    public void serialize(Writer writer) {
+        Writer boxWriter = writer.newWriter();
+        TokenBoxSerializer.getSerializer().serialize(tokenBoxToOpen, boxWriter);
+        TransactionSections.putSection(writer, boxWriter);
 
-        return Bytes.concat(
-                Ints.toByteArray(tokenBoxToOpenBytes.length),
-                tokenBoxToOpenBytes,
-                Ints.toByteArray(proofBytes.length),
-                proofBytes,
-                Longs.toByteArray(price),
-                Ints.toByteArray(buyerPropositionBytes.length),
-                buyerPropositionBytes
-        );
-    }
+        Writer proofWriter = writer.newWriter();
+        Signature25519Serializer.getSerializer().serialize(proof, proofWriter);
+        TransactionSections.putSection(writer, proofWriter);
 
-    // Define object deserialization similar to 'toBytes()' representation.
-    public static TokenSellOrderInfo parseBytes(byte[] bytes) {
-        int offset = 0;
+        TransactionSections.putLong(writer, price);
 
-        int batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        TokenBox tokenBoxToOpen = TokenBoxSerializer.getSerializer().parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
+        Writer buyerWriter = writer.newWriter();
+        PublicKey25519PropositionSerializer.getSerializer().serialize(buyerProposition, buyerWriter);
+        TransactionSections.putSection(writer, buyerWriter);
+    }
 
-        Signature25519 proof = Signature25519Serializer.getSerializer().parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
+    // Define object deserialization similar to 'serialize()' representation.
+    public static TokenSellOrderInfo parse(Reader reader) {
+        int sectionEnd = TransactionSections.getSectionEnd(reader);
+        TokenBox tokenBoxToOpen = TokenBoxSerializer.getSerializer().parse(reader);
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
 
-        long price = BytesUtils.getLong(bytes, offset);
-        offset += 8;
+        sectionEnd = TransactionSections.getSectionEnd(reader);
+        Signature25519 proof = Signature25519Serializer.getSerializer().parseBytes(reader.getBytes(Ed25519.signatureLength()));
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
 
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
+        long price = TransactionSections.getLong(reader);
 
+        sectionEnd = TransactionSections.getSectionEnd(reader);
         PublicKey25519Proposition buyerProposition = PublicKey25519PropositionSerializer.getSerializer()
-                .parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
+                .parseBytes(reader.getBytes(PublicKey25519Proposition.getLength()));
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
 
         return new TokenSellOrderInfo(tokenBoxToOpen, proof, price, buyerProposition);
     }
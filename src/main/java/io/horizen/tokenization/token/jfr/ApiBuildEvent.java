@@ -0,0 +1,30 @@
+package io.horizen.tokenization.token.jfr;
+
+import jdk.jfr.*;
+
+// One phase of the building of a transaction by a TokenApi route: wallet lookup, coin selection, signing or serialization.
+@Name("io.horizen.tokenization.ApiBuild")
+@Label("API Transaction Build")
+@Category({"Tokenization", "API"})
+@Description("Phase of the building of a transaction by a token API route")
+@StackTrace(false)
+public final class ApiBuildEvent extends Event {
+
+    @Label("Route")
+    String route;
+
+    @Label("Phase")
+    String phase;
+
+    ApiBuildEvent() {
+    }
+
+    public void finish(String route, String phase) {
+        end();
+        if (shouldCommit()) {
+            this.route = route;
+            this.phase = phase;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.horizen.tokenization.token.jfr;
+
+import com.horizen.box.Box;
+import com.horizen.proposition.Proposition;
+import com.horizen.transaction.BoxTransaction;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.transaction.CreateTokensTransaction;
+import jdk.jfr.*;
+
+import java.util.List;
+
+// Validation of the transactions of a block by the token application state.
+@Name("io.horizen.tokenization.BlockValidation")
+@Label("Block Validation")
+@Category({"Tokenization", "State"})
+@Description("Validation of the transactions of a block by the token application state")
+@StackTrace(false)
+public final class BlockValidationEvent extends Event {
+
+    @Label("Block ID")
+    String blockId;
+
+    @Label("Transactions")
+    int transactions;
+
+    @Label("Tokens")
+    @Description("Number of tokens minted by the block")
+    int tokens;
+
+    @Label("Valid")
+    boolean valid;
+
+    BlockValidationEvent() {
+    }
+
+    public void finish(String blockId, List<BoxTransaction<Proposition, Box<Proposition>>> transactions, boolean valid) {
+        end();
+        // The tokens are counted only for the events actually recorded.
+        if (shouldCommit()) {
+            this.blockId = blockId;
+            this.transactions = transactions.size();
+            this.tokens = countTokens(transactions);
+            this.valid = valid;
+            commit();
+        }
+    }
+
+    private static int countTokens(List<BoxTransaction<Proposition, Box<Proposition>>> transactions) {
+        int count = 0;
+        for (BoxTransaction<Proposition, Box<Proposition>> transaction : transactions) {
+            if (CreateTokensTransaction.class.isInstance(transaction)) {
+                for (Box<Proposition> box : transaction.newBoxes()) {
+                    if (TokenBox.class.isInstance(box)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,31 @@
+package io.horizen.tokenization.token.jfr;
+
+import jdk.jfr.*;
+
+// Call of the IDInfoDBService to its storage: a read, a versioned write or a rollback.
+@Name("io.horizen.tokenization.IDInfoStorage")
+@Label("IDInfo Storage")
+@Category({"Tokenization", "Storage"})
+@Description("Read, write or rollback of the storage of the declared token IDs and supply counters")
+@StackTrace(false)
+public final class IDInfoStorageEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Entries")
+    @Description("Number of entries read or written")
+    int entries;
+
+    IDInfoStorageEvent() {
+    }
+
+    public void finish(String operation, int entries) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.entries = entries;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.horizen.tokenization.token.jfr;
+
+import jdk.jfr.*;
+
+// Application of a new version to the token application state.
+@Name("io.horizen.tokenization.StateApply")
+@Label("State Apply")
+@Category({"Tokenization", "State"})
+@Description("Application of a new version to the token application state")
+@StackTrace(false)
+public final class StateApplyEvent extends Event {
+
+    @Label("Version")
+    String version;
+
+    @Label("Boxes Added")
+    int boxesAdded;
+
+    @Label("Boxes Removed")
+    int boxesRemoved;
+
+    StateApplyEvent() {
+    }
+
+    public void finish(String version, int boxesAdded, int boxesRemoved) {
+        end();
+        if (shouldCommit()) {
+            this.version = version;
+            this.boxesAdded = boxesAdded;
+            this.boxesRemoved = boxesRemoved;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.horizen.tokenization.token.jfr;
+
+import jdk.jfr.*;
+
+// Rollback of the token application state to a previous version.
+@Name("io.horizen.tokenization.StateRollback")
+@Label("State Rollback")
+@Category({"Tokenization", "State"})
+@Description("Rollback of the token application state to a previous version")
+@StackTrace(false)
+public final class StateRollbackEvent extends Event {
+
+    @Label("Version")
+    String version;
+
+    StateRollbackEvent() {
+    }
+
+    public void finish(String version) {
+        end();
+        if (shouldCommit()) {
+            this.version = version;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.horizen.tokenization.token.jfr;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// TokenEvents starts the custom Java Flight Recorder events of the application, enabled by token.jfr.enabled.
+// When disabled every begin method costs a flag check and returns null; when enabled an event is returned only while
+// a running recording has it enabled, so the events can stay on in production and be captured on demand with jcmd.
+// The jdk.jfr API is available on Java 11, and on Java 8 from update 262.
+public final class TokenEvents {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenEvents.class.getName());
+
+    private static volatile boolean enabled = false;
+
+    private TokenEvents() {
+    }
+
+    public static void configure(Config config) {
+        boolean requested = config.hasPath("token.jfr.enabled") && config.getBoolean("token.jfr.enabled");
+        if (requested && !flightRecorderAvailable()) {
+            log.warn("token.jfr.enabled is set, but this JVM has no Java Flight Recorder API: the token events are disabled");
+            requested = false;
+        }
+        enabled = requested;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    private static boolean flightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public static BlockValidationEvent beginBlockValidation() {
+        if (!enabled) {
+            return null;
+        }
+        BlockValidationEvent event = new BlockValidationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static StateApplyEvent beginStateApply() {
+        if (!enabled) {
+            return null;
+        }
+        StateApplyEvent event = new StateApplyEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static StateRollbackEvent beginStateRollback() {
+        if (!enabled) {
+            return null;
+        }
+        StateRollbackEvent event = new StateRollbackEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static IDInfoStorageEvent beginIDInfoStorage() {
+        if (!enabled) {
+            return null;
+        }
+        IDInfoStorageEvent event = new IDInfoStorageEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static ApiBuildEvent beginApiBuild() {
+        if (!enabled) {
+            return null;
+        }
+        ApiBuildEvent event = new ApiBuildEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,20 @@
+package io.horizen.tokenization.token.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic counter, exported as a Prometheus counter.
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public long value() {
+        return value.sum();
+    }
+}
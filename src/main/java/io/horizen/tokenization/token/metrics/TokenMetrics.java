@@ -0,0 +1,155 @@
+package io.horizen.tokenization.token.metrics;
+
+import com.google.inject.Singleton;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the timers and counters of the token application, exported in the Prometheus text format by the
+ * tokenApi/metrics endpoint.
+ * Metrics are identified by name and label values: the components resolve their metrics once and keep them, so that
+ * recording a value is just a few lock free increments.
+ */
+@Singleton
+public class TokenMetrics {
+
+    private final ConcurrentHashMap<String, Family> families = new ConcurrentHashMap<>();
+
+    /**
+     * Time spent by the application state, labelled by operation: validate_block, validate_transaction, apply, rollback.
+     */
+    public Timer stateTimer(String operation) {
+        return timer("token_state_seconds", "Time spent by the token application state operations.",
+                "operation", operation);
+    }
+
+    /**
+     * Blocks and transactions rejected by the token validation, labelled by reason and scope (block or transaction).
+     */
+    public Counter rejections(String reason, String scope) {
+        return counter("token_validation_rejections_total", "Blocks and transactions rejected by the token validation.",
+                "reason", reason, "scope", scope);
+    }
+
+    /**
+     * Time spent by the tokenApi routes, labelled by route and phase: total, coin_selection, signing.
+     */
+    public Timer apiTimer(String route, String phase) {
+        return timer("token_api_request_seconds", "Time spent by the tokenApi routes and their phases.",
+                "route", route, "phase", phase);
+    }
+
+    public Counter apiErrors(String route) {
+        return counter("token_api_errors_total", "Requests to the tokenApi routes answered with an error.",
+                "route", route);
+    }
+
+    /**
+     * Time spent on the token IDs storage, labelled by operation: read, write, rollback.
+     */
+    public Timer storageTimer(String operation) {
+        return timer("token_idinfo_storage_seconds", "Time spent on the token IDs storage.",
+                "operation", operation);
+    }
+
+    public Timer timer(String name, String help, String... labels) {
+        return (Timer) family(name, help, "histogram").metric(labels, Timer::new);
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").metric(labels, Counter::new);
+    }
+
+    /**
+     * Get all the metrics in the Prometheus text exposition format, sorted by name.
+     */
+    public String scrape() {
+        StringBuilder builder = new StringBuilder();
+        for (Family family : new TreeMap<>(families).values()) {
+            family.write(builder);
+        }
+        return builder.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(String.format("Metric %s is already registered as a %s.", name, family.type));
+        }
+        return family;
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        // Metrics by formatted labels, e.g. route="createTokens",phase="total".
+        private final ConcurrentHashMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        private Object metric(String[] labels, Supplier<Object> factory) {
+            if (labels.length % 2 != 0) {
+                throw new IllegalArgumentException("Labels must be given as name and value pairs.");
+            }
+            StringBuilder formatted = new StringBuilder();
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    formatted.append(',');
+                }
+                formatted.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+            }
+            return metrics.computeIfAbsent(formatted.toString(), key -> factory.get());
+        }
+
+        private void write(StringBuilder builder) {
+            builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            for (Map.Entry<String, Object> entry : new TreeMap<>(metrics).entrySet()) {
+                String labels = entry.getKey();
+                if (entry.getValue() instanceof Timer) {
+                    Timer timer = (Timer) entry.getValue();
+                    long[] counts = timer.cumulativeCounts();
+                    for (int i = 0; i < Timer.BUCKETS.length; i++) {
+                        sample(builder, name + "_bucket", withLabel(labels, "le", format(Timer.BUCKETS[i])), counts[i]);
+                    }
+                    long count = counts[counts.length - 1];
+                    sample(builder, name + "_bucket", withLabel(labels, "le", "+Inf"), count);
+                    builder.append(name).append("_sum").append(braces(labels)).append(' ').append(format(timer.sumSeconds())).append('\n');
+                    sample(builder, name + "_count", labels, count);
+                } else {
+                    sample(builder, name, labels, ((Counter) entry.getValue()).value());
+                }
+            }
+        }
+
+        private static void sample(StringBuilder builder, String name, String labels, long value) {
+            builder.append(name).append(braces(labels)).append(' ').append(value).append('\n');
+        }
+
+        private static String braces(String labels) {
+            return labels.isEmpty() ? "" : "{" + labels + "}";
+        }
+
+        private static String withLabel(String labels, String name, String value) {
+            String label = name + "=\"" + value + "\"";
+            return labels.isEmpty() ? label : labels + "," + label;
+        }
+
+        private static String format(double value) {
+            return BigDecimal.valueOf(value).toPlainString();
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+    }
+}
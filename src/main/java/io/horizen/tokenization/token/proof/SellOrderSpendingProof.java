@@ -1,11 +1,13 @@
 package io.horizen.tokenization.token.proof;
 
 import com.google.common.primitives.Bytes;
+import com.google.inject.Inject;
 import io.horizen.tokenization.token.proposition.SellOrderProposition;
 import com.horizen.proof.AbstractSignature25519;
 import com.horizen.proof.ProofSerializer;
 import com.horizen.secret.PrivateKey25519;
 import com.horizen.utils.Ed25519;
+import scorex.util.serialization.Reader;
 
 import java.util.Arrays;
 import java.util.Objects;
@@ -21,6 +23,14 @@ public final class SellOrderSpendingProof extends AbstractSignature25519<Private
 
     public static final int SIGNATURE_LENGTH = Ed25519.signatureLength();
 
+    // Proofs are parsed from the network, so the application cache is set through Guice static injection.
+    private static volatile VerifiedSignatureCache signatureCache;
+
+    @Inject
+    public static void setSignatureCache(VerifiedSignatureCache cache) {
+        signatureCache = cache;
+    }
+
     public SellOrderSpendingProof(byte[] signatureBytes, boolean isSeller) {
         super(signatureBytes);
         if (signatureBytes.length != SIGNATURE_LENGTH)
@@ -33,18 +43,32 @@ public final class SellOrderSpendingProof extends AbstractSignature25519<Private
         return isSeller;
     }
 
-    // Depends on isSeller flag value check the signature against seller or buyer public key specified in SellOrderProposition.
-    @Override
-    public boolean isValid(SellOrderProposition proposition, byte[] message) {
+    public byte[] getSignatureBytes() {
+        return Arrays.copyOf(signatureBytes, signatureBytes.length);
+    }
+
+    // Depends on isSeller flag value returns the seller or buyer public key specified in SellOrderProposition.
+    public byte[] signerPublicKey(SellOrderProposition proposition) {
         if(isSeller) {
             // Car seller wants to discard selling.
-            return Ed25519.verify(signatureBytes, message, proposition.getOwnerPublicKeyBytes());
+            return proposition.getOwnerPublicKeyBytes();
         } else {
             // Specific buyer wants to buy the car.
-            return Ed25519.verify(signatureBytes, message, proposition.getBuyerPublicKeyBytes());
+            return proposition.getBuyerPublicKeyBytes();
         }
     }
 
+    // Check the signature against the signer public key.
+    // The signatures already verified at mempool admission are not checked again when the block is validated.
+    @Override
+    public boolean isValid(SellOrderProposition proposition, byte[] message) {
+        VerifiedSignatureCache cache = signatureCache;
+        if (cache == null) {
+            return Ed25519.verify(signatureBytes, message, signerPublicKey(proposition));
+        }
+        return cache.verify(signatureBytes, message, signerPublicKey(proposition));
+    }
+
     @Override
     public byte[] bytes() {
         return Bytes.concat(
@@ -53,13 +77,10 @@ public final class SellOrderSpendingProof extends AbstractSignature25519<Private
         );
     }
 
-    public static SellOrderSpendingProof parseBytes(byte[] bytes) {
-        int offset = 0;
-
-        boolean isSeller = bytes[offset] != 0;
-        offset += 1;
-
-        byte[] signatureBytes = Arrays.copyOfRange(bytes, offset, offset + SIGNATURE_LENGTH);
+    // Read exactly the bytes written by 'bytes()'.
+    public static SellOrderSpendingProof parse(Reader reader) {
+        boolean isSeller = reader.getByte() != 0;
+        byte[] signatureBytes = reader.getBytes(SIGNATURE_LENGTH);
 
         return new SellOrderSpendingProof(signatureBytes, isSeller);
     }
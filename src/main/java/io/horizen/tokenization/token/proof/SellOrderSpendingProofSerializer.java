@@ -23,6 +23,6 @@ public final class SellOrderSpendingProofSerializer implements ProofSerializer<S
 
     @Override
     public SellOrderSpendingProof parse(Reader reader) {
-        return SellOrderSpendingProof.parseBytes(reader.getBytes(reader.remaining()));
+        return SellOrderSpendingProof.parse(reader);
     }
 }
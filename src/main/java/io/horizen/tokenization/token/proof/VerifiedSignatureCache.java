@@ -0,0 +1,67 @@
+package io.horizen.tokenization.token.proof;
+
+import com.google.common.primitives.Bytes;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.utils.ByteArrayWrapper;
+import com.horizen.utils.Ed25519;
+import com.typesafe.config.Config;
+import scorex.crypto.hash.Blake2b256;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// VerifiedSignatureCache keeps the Ed25519 signatures already verified as valid, identified by signature, public key and
+// message hash. The same transaction is checked when it enters the mempool and again when its block is validated,
+// so the second check is served from here. Only valid signatures are stored: a verification result never changes.
+// The cache holds at most token.signatureCache.maxEntries signatures, evicting the least recently used one when full.
+@Singleton
+public final class VerifiedSignatureCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 200000;
+
+    private final Map<ByteArrayWrapper, Boolean> verified;
+
+    @Inject
+    public VerifiedSignatureCache(@Named("ConfigTokenizationApp") Config config) {
+        int maxEntries = config.hasPath("token.signatureCache.maxEntries") ?
+                config.getInt("token.signatureCache.maxEntries") : DEFAULT_MAX_ENTRIES;
+        // Access ordered, so the eldest entry is the least recently used one.
+        this.verified = new LinkedHashMap<ByteArrayWrapper, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteArrayWrapper, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static ByteArrayWrapper key(byte[] signature, byte[] publicKey, byte[] messageHash) {
+        return new ByteArrayWrapper(Bytes.concat(signature, publicKey, messageHash));
+    }
+
+    public synchronized boolean contains(ByteArrayWrapper key) {
+        return verified.get(key) != null;
+    }
+
+    public synchronized void add(ByteArrayWrapper key) {
+        verified.put(key, Boolean.TRUE);
+    }
+
+    public synchronized void clear() {
+        verified.clear();
+    }
+
+    // Verify the signature, looking first for a previous successful verification.
+    public boolean verify(byte[] signature, byte[] message, byte[] publicKey) {
+        ByteArrayWrapper key = key(signature, publicKey, Blake2b256.hash(message));
+        if (contains(key)) {
+            return true;
+        }
+        if (Ed25519.verify(signature, message, publicKey)) {
+            add(key);
+            return true;
+        }
+        return false;
+    }
+}
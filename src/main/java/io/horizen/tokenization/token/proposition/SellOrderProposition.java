@@ -8,6 +8,7 @@ import com.horizen.proposition.PropositionSerializer;
 import com.horizen.secret.PrivateKey25519;
 import com.horizen.serialization.Views;
 import com.horizen.utils.Ed25519;
+import scorex.util.serialization.Reader;
 
 import java.util.Arrays;
 
@@ -63,16 +64,12 @@ public final class SellOrderProposition implements ProofOfKnowledgeProposition<P
         );
     }
 
-    public static SellOrderProposition parseBytes(byte[] bytes) {
-        int offset = 0;
-
-        byte[] ownerPublicKeyBytes = Arrays.copyOfRange(bytes, offset, offset + KEY_LENGTH);
-        offset += KEY_LENGTH;
-
-        byte[] buyerPublicKeyBytes = Arrays.copyOfRange(bytes, offset, offset + KEY_LENGTH);
+    // Read exactly the bytes written by 'bytes()'.
+    public static SellOrderProposition parse(Reader reader) {
+        byte[] ownerPublicKeyBytes = reader.getBytes(KEY_LENGTH);
+        byte[] buyerPublicKeyBytes = reader.getBytes(KEY_LENGTH);
 
         return new SellOrderProposition(ownerPublicKeyBytes, buyerPublicKeyBytes);
-
     }
 
     @Override
@@ -23,6 +23,6 @@ public final class SellOrderPropositionSerializer implements PropositionSerializ
 
     @Override
     public SellOrderProposition parse(Reader reader) {
-        return SellOrderProposition.parseBytes(reader.getBytes(reader.remaining()));
+        return SellOrderProposition.parse(reader);
     }
 }
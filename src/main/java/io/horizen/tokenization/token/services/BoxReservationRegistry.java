@@ -0,0 +1,104 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.node.NodeMemoryPool;
+import com.horizen.utils.ByteArrayWrapper;
+import com.typesafe.config.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This registry tells if a box of the node wallet can be spent by a new transaction built by the API.
+ * A box is not free when:
+ * - it is opened by a transaction present in the mempool, as tracked by the MempoolIndex;
+ * - it was reserved by an API request not expired yet. The built transactions are returned to the user and not
+ *   submitted directly, so the reservation lasts "token.boxReservation.timeout" (default 60 seconds), enough to send
+ *   the transaction to the mempool, and it is then superseded by the mempool tracking.
+ * All the lookups are constant time and the reservations are atomic, so concurrent API requests never select the same box.
+ */
+@Singleton
+public class BoxReservationRegistry {
+
+    // Number of reservations after which the expired ones are removed.
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final MempoolIndex mempoolIndex;
+    private final long reservationTimeoutMillis;
+
+    // Expiration time of each reserved box.
+    private final ConcurrentHashMap<ByteArrayWrapper, Long> reservations = new ConcurrentHashMap<>();
+    private final AtomicInteger reservationsSincePurge = new AtomicInteger();
+
+    @Inject
+    public BoxReservationRegistry(MempoolIndex mempoolIndex, @Named("ConfigTokenizationApp") Config config) {
+        this.mempoolIndex = mempoolIndex;
+        this.reservationTimeoutMillis = config.hasPath("token.boxReservation.timeout") ?
+                config.getDuration("token.boxReservation.timeout", TimeUnit.MILLISECONDS) : 60000;
+    }
+
+    /**
+     * Align the spent boxes with the given mempool content.
+     */
+    public void update(NodeMemoryPool memoryPool) {
+        mempoolIndex.update(memoryPool);
+    }
+
+    public boolean isFree(ByteArrayWrapper boxId) {
+        if (mempoolIndex.isBoxSpent(boxId)) {
+            return false;
+        }
+        Long expiration = reservations.get(boxId);
+        return expiration == null || expiration <= System.currentTimeMillis();
+    }
+
+    /**
+     * Reserve all the given boxes, or none of them if some box is not free.
+     * @return true if all the boxes were reserved
+     */
+    public boolean tryReserve(List<ByteArrayWrapper> boxIds) {
+        long now = System.currentTimeMillis();
+        long expiration = now + reservationTimeoutMillis;
+        List<ByteArrayWrapper> reserved = new ArrayList<>(boxIds.size());
+        for (ByteArrayWrapper boxId : boxIds) {
+            if (mempoolIndex.isBoxSpent(boxId) || !reserve(boxId, now, expiration)) {
+                release(reserved);
+                return false;
+            }
+            reserved.add(boxId);
+        }
+        if (reservationsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            reservationsSincePurge.set(0);
+            reservations.values().removeIf(time -> time <= now);
+        }
+        return true;
+    }
+
+    public void release(List<ByteArrayWrapper> boxIds) {
+        for (ByteArrayWrapper boxId : boxIds) {
+            reservations.remove(boxId);
+        }
+    }
+
+    public int size() {
+        return reservations.size();
+    }
+
+    private boolean reserve(ByteArrayWrapper boxId, long now, long expiration) {
+        // The box is taken if it has no reservation or an expired one.
+        boolean[] taken = new boolean[1];
+        reservations.compute(boxId, (key, time) -> {
+            if (time == null || time <= now) {
+                taken[0] = true;
+                return expiration;
+            }
+            return time;
+        });
+        return taken[0];
+    }
+}
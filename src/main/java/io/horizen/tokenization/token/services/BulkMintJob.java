@@ -0,0 +1,94 @@
+package io.horizen.tokenization.token.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// BulkMintJob keeps the progress of a bulk mint: the number of tokens put in the built transactions
+// and the hex of the signed transactions, in the order they must be sent to the mempool.
+public class BulkMintJob {
+
+    public enum Status {
+        Pending,
+        Running,
+        Completed,
+        Failed
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final int numberOfTokens;
+    private final int numberOfTransactions;
+    private final List<String> transactions = new ArrayList<>();
+    private volatile Status status = Status.Pending;
+    private volatile int processedTokens = 0;
+    private volatile String error;
+
+    public BulkMintJob(String type, int numberOfTokens, int numberOfTransactions) {
+        this.type = type;
+        this.numberOfTokens = numberOfTokens;
+        this.numberOfTransactions = numberOfTransactions;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getNumberOfTokens() {
+        return numberOfTokens;
+    }
+
+    public int getNumberOfTransactions() {
+        return numberOfTransactions;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getProcessedTokens() {
+        return processedTokens;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return status == Status.Completed || status == Status.Failed;
+    }
+
+    // Get the signed transactions starting from the given index.
+    public synchronized List<String> getTransactions(int fromIndex) {
+        if (fromIndex >= transactions.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(transactions.subList(Math.max(0, fromIndex), transactions.size()));
+    }
+
+    public synchronized int getBuiltTransactions() {
+        return transactions.size();
+    }
+
+    void started() {
+        status = Status.Running;
+    }
+
+    synchronized void addTransactions(List<String> signedTransactions, int tokens) {
+        transactions.addAll(signedTransactions);
+        processedTokens += tokens;
+    }
+
+    void completed() {
+        status = Status.Completed;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        status = Status.Failed;
+    }
+}
@@ -0,0 +1,241 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.box.Box;
+import com.horizen.box.data.RegularBoxData;
+import com.horizen.companion.SidechainTransactionsCompanion;
+import com.horizen.node.SidechainNodeView;
+import com.horizen.proof.Signature25519;
+import com.horizen.proposition.Proposition;
+import com.horizen.proposition.PublicKey25519Proposition;
+import com.horizen.secret.Secret;
+import com.horizen.transaction.BoxTransaction;
+import com.horizen.utils.BytesUtils;
+import com.typesafe.config.Config;
+import io.horizen.tokenization.token.box.data.TokenBoxData;
+import io.horizen.tokenization.token.transaction.CreateTokensTransaction;
+import org.bouncycastle.pqc.math.linearalgebra.ByteUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * This service mints big collections of tokens in background jobs.
+ * The tokens are split into CreateTokensTransactions within the SDK limit of new boxes per transaction.
+ * The coins to pay all the fees are selected and reserved when the job is submitted, together with the secrets to sign.
+ * Then the transactions are chained: each one spends the change output of the previous one.
+ * The change box ids don't depend on the proofs, so the transactions are built sequentially
+ * and signed in parallel, a batch at a time.
+ * As for the other API routes, the signed transactions are not sent to the mempool: they are collected in the job, in the
+ * order they must be sent, and the caller polls the job progress to get them.
+ */
+@Singleton
+public class BulkMintService {
+
+    // One of the new boxes of each transaction is kept for the change output.
+    private static final int TOKENS_PER_TRANSACTION = BoxTransaction.MAX_TRANSACTION_NEW_BOXES - 1;
+    // Number of transactions built before being signed in parallel and published in the job.
+    private static final int SIGNING_BATCH_SIZE = 64;
+    // Number of finished jobs kept to be polled.
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final SidechainTransactionsCompanion sidechainTransactionsCompanion;
+    private final IDInfoDBService IDInfoDBService;
+    private final CoinSelectionService coinSelectionService;
+    private final TokenIdAllocator tokenIdAllocator;
+    private final CreatorAuthorization creatorAuthorization;
+    private final HashMap<String, Integer> maxTokenPerType;
+    private final ExecutorService jobExecutor;
+    private final ForkJoinPool signingPool;
+    private final Map<String, BulkMintJob> jobs = new LinkedHashMap<>();
+    protected Logger log = LoggerFactory.getLogger(BulkMintService.class.getName());
+
+    @Inject
+    public BulkMintService(@Named("SidechainTransactionsCompanion") SidechainTransactionsCompanion sidechainTransactionsCompanion,
+                           IDInfoDBService IDInfoDBService, CoinSelectionService coinSelectionService,
+                           TokenIdAllocator tokenIdAllocator, CreatorAuthorization creatorAuthorization,
+                           @Named("ConfigTokenizationApp") Config config) {
+        this.sidechainTransactionsCompanion = sidechainTransactionsCompanion;
+        this.IDInfoDBService = IDInfoDBService;
+        this.coinSelectionService = coinSelectionService;
+        this.tokenIdAllocator = tokenIdAllocator;
+        this.creatorAuthorization = creatorAuthorization;
+        this.maxTokenPerType = (HashMap<String,Integer>) config.getObject("token").get("typeLimit").unwrapped();
+        int workers = config.hasPath("token.bulkMint.workers") ? config.getInt("token.bulkMint.workers") : 1;
+        this.jobExecutor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-mint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int parallelism = config.hasPath("token.bulkMint.signingParallelism") ?
+                config.getInt("token.bulkMint.signingParallelism") : Runtime.getRuntime().availableProcessors();
+        this.signingPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Check the request, reserve the coins to pay the fees and start the job.
+     * Must be called with the node view, that is not available anymore once the job runs.
+     */
+    public BulkMintJob submit(SidechainNodeView view, String proposition, String type, int numberOfTokens, long feePerTransaction) {
+        PublicKey25519Proposition ownerProposition = new PublicKey25519Proposition(BytesUtils.fromHexString(proposition));
+        if (!creatorAuthorization.canCreate(ownerProposition, type)) {
+            throw new IllegalStateException("This proposition is not allowed to create token!");
+        }
+        if (numberOfTokens <= 0 || feePerTransaction < 0) {
+            throw new IllegalArgumentException("The number of tokens must be positive and the fee can't be negative.");
+        }
+        Integer limit = maxTokenPerType.get(type);
+        if (limit == null || IDInfoDBService.getTypeCount(type) + (long) numberOfTokens > limit) {
+            throw new IllegalStateException("Exceed the maximum number of tokens that can be created!");
+        }
+
+        // Allocate all the token IDs at once in the creator range.
+        List<String> ids = tokenIdAllocator.allocate(proposition, numberOfTokens, view.getNodeMemoryPool());
+        int numberOfTransactions = (numberOfTokens + TOKENS_PER_TRANSACTION - 1) / TOKENS_PER_TRANSACTION;
+        long totalFee = Math.multiplyExact(feePerTransaction, (long) numberOfTransactions);
+        List<Box<Proposition>> paymentBoxes = coinSelectionService.selectAndReserve(view.getNodeWallet(), view.getNodeMemoryPool(), totalFee);
+        try {
+            List<Secret> paymentSecrets = new ArrayList<>(paymentBoxes.size());
+            long paymentAmount = 0;
+            for (Box<Proposition> box : paymentBoxes) {
+                paymentSecrets.add(view.getNodeWallet().secretByPublicKey(box.proposition()).get());
+                paymentAmount += box.value();
+            }
+
+            BulkMintJob job = new BulkMintJob(type, numberOfTokens, numberOfTransactions);
+            long initialAmount = paymentAmount;
+            jobExecutor.submit(() -> run(job, ownerProposition, ids, feePerTransaction, paymentBoxes, paymentSecrets, initialAmount));
+            addJob(job);
+            return job;
+        } catch (RuntimeException e) {
+            coinSelectionService.release(paymentBoxes);
+            throw e;
+        }
+    }
+
+    public Optional<BulkMintJob> getJob(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId));
+        }
+    }
+
+    private void addJob(BulkMintJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            long finishedJobs = jobs.values().stream().filter(BulkMintJob::isFinished).count();
+            Iterator<BulkMintJob> iterator = jobs.values().iterator();
+            while (finishedJobs > MAX_FINISHED_JOBS && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    finishedJobs--;
+                }
+            }
+        }
+    }
+
+    private void run(BulkMintJob job, PublicKey25519Proposition ownerProposition, List<String> ids, long fee,
+                     List<Box<Proposition>> paymentBoxes, List<Secret> paymentSecrets, long paymentAmount) {
+        job.started();
+        // The payment boxes are spent by the first transaction: until it is built they can be released on failure.
+        boolean paymentSpent = false;
+        try {
+            int nextId = 0;
+
+            // Inputs and secrets of the next transaction: the selected coins first, then the change of the previous one.
+            List<byte[]> inputIds = paymentBoxes.stream().map(Box::id).collect(Collectors.toList());
+            List<Secret> inputSecrets = paymentSecrets;
+            long available = paymentAmount;
+            PublicKey25519Proposition changeProposition = paymentBoxes.isEmpty() ? null : (PublicKey25519Proposition) paymentBoxes.get(0).proposition();
+            Secret changeSecret = paymentSecrets.isEmpty() ? null : paymentSecrets.get(0);
+
+            int remainingTokens = job.getNumberOfTokens();
+            while (remainingTokens > 0) {
+                List<UnsignedTransaction> batch = new ArrayList<>(SIGNING_BATCH_SIZE);
+                int batchTokens = 0;
+                while (remainingTokens > 0 && batch.size() < SIGNING_BATCH_SIZE) {
+                    int tokens = Math.min(TOKENS_PER_TRANSACTION, remainingTokens);
+                    TokenBoxData[] tokenBoxData = new TokenBoxData[tokens];
+                    for (int i = 0; i < tokens; i++) {
+                        tokenBoxData[i] = new TokenBoxData(ownerProposition, ids.get(nextId++), job.getType());
+                    }
+
+                    long change = available - fee;
+                    List<RegularBoxData> regularOutputs = new ArrayList<>();
+                    if (change > 0) {
+                        regularOutputs.add(new RegularBoxData(changeProposition, change));
+                    }
+                    UnsignedTransaction transaction = new UnsignedTransaction(inputIds, inputSecrets, regularOutputs, tokenBoxData, fee);
+                    batch.add(transaction);
+
+                    // Chain the change output, its id doesn't depend on the proofs.
+                    if (change > 0) {
+                        inputIds = Collections.singletonList(transaction.unsigned.newBoxes().get(0).id());
+                        inputSecrets = Collections.singletonList(changeSecret);
+                    } else {
+                        inputIds = new ArrayList<>();
+                        inputSecrets = new ArrayList<>();
+                    }
+                    available = change;
+                    remainingTokens -= tokens;
+                    batchTokens += tokens;
+                }
+
+                List<String> signedTransactions = signingPool.submit(() -> batch.parallelStream()
+                        .map(this::sign)
+                        .collect(Collectors.toList())).get();
+                job.addTransactions(signedTransactions, batchTokens);
+                paymentSpent = true;
+            }
+            job.completed();
+        } catch (Exception e) {
+            log.error("Bulk mint job " + job.getId() + " failed", e);
+            if (!paymentSpent) {
+                coinSelectionService.release(paymentBoxes);
+            }
+            job.failed(e.getMessage());
+        }
+    }
+
+    private String sign(UnsignedTransaction transaction) {
+        byte[] messageToSign = transaction.unsigned.messageToSign();
+        List<Signature25519> proofs = new ArrayList<>(transaction.inputSecrets.size());
+        for (Secret secret : transaction.inputSecrets) {
+            proofs.add((Signature25519) secret.sign(messageToSign));
+        }
+        CreateTokensTransaction signedTransaction = new CreateTokensTransaction(
+                transaction.inputIds,
+                proofs,
+                transaction.regularOutputs,
+                transaction.tokenBoxData,
+                transaction.fee,
+                transaction.timestamp);
+        return ByteUtils.toHexString(sidechainTransactionsCompanion.toBytes((BoxTransaction) signedTransaction));
+    }
+
+    private static final class UnsignedTransaction {
+        private final List<byte[]> inputIds;
+        private final List<Secret> inputSecrets;
+        private final List<RegularBoxData> regularOutputs;
+        private final TokenBoxData[] tokenBoxData;
+        private final long fee;
+        private final long timestamp;
+        private final CreateTokensTransaction unsigned;
+
+        private UnsignedTransaction(List<byte[]> inputIds, List<Secret> inputSecrets, List<RegularBoxData> regularOutputs,
+                                    TokenBoxData[] tokenBoxData, long fee) {
+            this.inputIds = inputIds;
+            this.inputSecrets = inputSecrets;
+            this.regularOutputs = regularOutputs;
+            this.tokenBoxData = tokenBoxData;
+            this.fee = fee;
+            this.timestamp = System.currentTimeMillis();
+            this.unsigned = new CreateTokensTransaction(inputIds, Collections.nCopies(inputIds.size(), null),
+                    regularOutputs, tokenBoxData, fee, timestamp);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.box.Box;
+import com.horizen.node.NodeMemoryPool;
+import com.horizen.node.NodeWallet;
+import com.horizen.proposition.Proposition;
+import com.horizen.utils.ByteArrayWrapper;
+import com.typesafe.config.Config;
+import io.horizen.tokenization.token.coinselection.*;
+
+import java.util.*;
+
+/**
+ * This service chooses the RegularBoxes of the node wallet used to pay the fee and the prices of the token transactions.
+ * The boxes are taken from the WalletCoinIndex skipping the ones not free in the BoxReservationRegistry, and the strategy is specified by "token.coinSelection.strategy" in the config:
+ * - BranchAndBound: look for an exact match not needing a change output, otherwise use MinimalInputs;
+ * - LargestFirst: spend the biggest boxes first;
+ * - MinimalInputs (default): spend the smallest single box covering the amount, otherwise the biggest boxes first.
+ */
+@Singleton
+public class CoinSelectionService {
+
+    private static final Map<String, CoinSelectionStrategy> STRATEGIES = new HashMap<>();
+    static {
+        STRATEGIES.put("BranchAndBound", new BranchAndBoundCoinSelection());
+        STRATEGIES.put("LargestFirst", new LargestFirstCoinSelection());
+        STRATEGIES.put("MinimalInputs", new MinimalInputsCoinSelection());
+    }
+
+    private static final int MAX_RESERVATION_ATTEMPTS = 5;
+
+    private final WalletCoinIndex coinIndex;
+    private final BoxReservationRegistry reservationRegistry;
+    private final CoinSelectionStrategy strategy;
+
+    @Inject
+    public CoinSelectionService(WalletCoinIndex coinIndex, BoxReservationRegistry reservationRegistry,
+                                @Named("ConfigTokenizationApp") Config config) {
+        this.coinIndex = coinIndex;
+        this.reservationRegistry = reservationRegistry;
+        String strategyName = config.hasPath("token.coinSelection.strategy") ?
+                config.getString("token.coinSelection.strategy") : "MinimalInputs";
+        this.strategy = STRATEGIES.get(strategyName);
+        if (this.strategy == null) {
+            throw new IllegalArgumentException("Unknown coin selection strategy: " + strategyName);
+        }
+    }
+
+    /**
+     * Select the RegularBoxes to pay the given amount, and reserve them in the BoxReservationRegistry so that
+     * concurrent requests can't select them too.
+     * @param wallet the node wallet
+     * @param memoryPool the node mempool, the boxes already spent by its transactions are not selected
+     * @param amount the amount to pay
+     * @return the selected boxes, empty if nothing is to be paid
+     * @throws IllegalStateException if the wallet has not enough free coins
+     */
+    public List<Box<Proposition>> selectAndReserve(NodeWallet wallet, NodeMemoryPool memoryPool, long amount) {
+        if (amount <= 0) {
+            return new ArrayList<>();
+        }
+        reservationRegistry.update(memoryPool);
+        // A selected box may be reserved by a concurrent request before us: in that case just select again.
+        for (int attempt = 0; attempt < MAX_RESERVATION_ATTEMPTS; attempt++) {
+            Optional<List<Coin>> selected = strategy.select(coinIndex.coins(wallet), amount,
+                    coin -> reservationRegistry.isFree(new ByteArrayWrapper(coin.id())));
+            if (!selected.isPresent()) {
+                throw new IllegalStateException("Not enough coins to pay the fee.");
+            }
+            List<ByteArrayWrapper> boxIds = new ArrayList<>(selected.get().size());
+            List<Box<Proposition>> boxes = new ArrayList<>(selected.get().size());
+            for (Coin coin : selected.get()) {
+                boxIds.add(new ByteArrayWrapper(coin.id()));
+                boxes.add(coin.box());
+            }
+            if (reservationRegistry.tryReserve(boxIds)) {
+                return boxes;
+            }
+        }
+        throw new IllegalStateException("Coins to pay the fee are reserved by other requests, try again later.");
+    }
+
+    /**
+     * Release the reservation of boxes whose transaction was not built.
+     */
+    public void release(List<Box<Proposition>> boxes) {
+        List<ByteArrayWrapper> boxIds = new ArrayList<>(boxes.size());
+        for (Box<Proposition> box : boxes) {
+            boxIds.add(new ByteArrayWrapper(box.id()));
+        }
+        reservationRegistry.release(boxIds);
+    }
+}
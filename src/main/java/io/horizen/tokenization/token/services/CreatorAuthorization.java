@@ -0,0 +1,88 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.proposition.PublicKey25519Proposition;
+import com.horizen.utils.BytesUtils;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigValue;
+
+import java.util.*;
+
+/**
+ * This service tells which propositions are allowed to create tokens, as specified in the config:
+ * - token.creatorPropositions lists the hex representation of the creator public keys, its order gives the slots of the
+ *   token ID allocator;
+ * - token.creatorScopes optionally restricts a token type to a subset of the creators, the types not listed there can
+ *   be created by all of them.
+ * The config is parsed once into hash tables keyed by the propositions, whose equality and hash code are computed on
+ * the 32 bytes of the public key: a check on the validation path costs a table lookup and no allocation.
+ */
+@Singleton
+public class CreatorAuthorization {
+
+    // Position of each creator in the config list, starting from 1.
+    private final Map<PublicKey25519Proposition, Integer> slots;
+    // Creators allowed for each scoped type.
+    private final Map<String, Set<PublicKey25519Proposition>> scopes;
+
+    @Inject
+    public CreatorAuthorization(@Named("ConfigTokenizationApp") Config config) {
+        List<String> creators = config.getStringList("token.creatorPropositions");
+        this.slots = new HashMap<>(creators.size() * 2);
+        for (int i = 0; i < creators.size(); i++) {
+            slots.putIfAbsent(parse(creators.get(i)), i + 1);
+        }
+
+        this.scopes = new HashMap<>();
+        if (config.hasPath("token.creatorScopes")) {
+            for (Map.Entry<String, ConfigValue> entry : config.getObject("token.creatorScopes").entrySet()) {
+                Set<PublicKey25519Proposition> scopeCreators = new HashSet<>();
+                for (String creator : config.getStringList("token.creatorScopes.\"" + entry.getKey() + "\"")) {
+                    PublicKey25519Proposition proposition = parse(creator);
+                    if (!slots.containsKey(proposition)) {
+                        throw new IllegalArgumentException("The creator " + creator + " of the type " + entry.getKey() +
+                                " is not listed in token.creatorPropositions.");
+                    }
+                    scopeCreators.add(proposition);
+                }
+                scopes.put(entry.getKey(), scopeCreators);
+            }
+        }
+    }
+
+    private static PublicKey25519Proposition parse(String creator) {
+        return new PublicKey25519Proposition(BytesUtils.fromHexString(creator));
+    }
+
+    /**
+     * Check if the given proposition is allowed to create tokens of some type.
+     */
+    public boolean isCreator(PublicKey25519Proposition proposition) {
+        return slots.containsKey(proposition);
+    }
+
+    /**
+     * Check if the given proposition is allowed to create tokens of the given type.
+     */
+    public boolean canCreate(PublicKey25519Proposition proposition, String type) {
+        if (!slots.containsKey(proposition)) {
+            return false;
+        }
+        Set<PublicKey25519Proposition> scopeCreators = scopes.get(type);
+        return scopeCreators == null || scopeCreators.contains(proposition);
+    }
+
+    /**
+     * Get the position of the given creator in the config list starting from 1, or 0 if it is not a creator.
+     */
+    public int slotOf(PublicKey25519Proposition proposition) {
+        Integer slot = slots.get(proposition);
+        return slot == null ? 0 : slot;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+}
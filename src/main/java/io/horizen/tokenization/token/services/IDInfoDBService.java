@@ -3,61 +3,178 @@ package io.horizen.tokenization.token.services;
 import cats.kernel.Hash;
 import com.google.common.primitives.Ints;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.horizen.box.Box;
 import com.horizen.node.NodeMemoryPool;
 import com.horizen.proposition.Proposition;
 import com.horizen.storage.Storage;
-import com.horizen.transaction.BoxTransaction;
 import com.horizen.utils.ByteArrayWrapper;
 import com.horizen.utils.Pair;
 import com.typesafe.config.ConfigValue;
 import io.horizen.tokenization.token.box.TokenBox;
 import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import io.horizen.tokenization.token.jfr.IDInfoStorageEvent;
+import io.horizen.tokenization.token.jfr.TokenEvents;
+import io.horizen.tokenization.token.metrics.Timer;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scorex.crypto.hash.Blake2b256;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import com.typesafe.config.Config;
 
 /**
  * This service manages a local db with the list of all veichle identification numbers (vin) declared on the chain.
  * The vin could be present inside two type of boxes: CarBox and CarSellOrderBox.
+ * The service is shared between the application state and the API, so it is bound as a singleton.
+ * The storage is rolled back on disk together with the state. The changes of the last retained versions are also kept
+ * in an undo journal, to fix the in-memory data without reading the storage again: a rollback within them keeps the ID
+ * filter, that is rebuilt from the storage only for deeper rollbacks or once too many rolled back ids are left in it.
+ * A rollback to a version the storage no longer keeps (see VersionRetention) is refused before any storage is changed.
+ * The highest sequences of the allocator slots are kept by TokenIdSequenceDBService, out of the token info storage.
  */
+@Singleton
 public class IDInfoDBService {
 
+    // Marks the versions whose supply counters are in the supply storage.
+    private static final ByteArrayWrapper SUPPLY_MIGRATED_KEY = new ByteArrayWrapper(Blake2b256.hash("supplyCountersMigrated"));
+
     private Storage IDInfoStorage;
+    private MempoolIndex mempoolIndex;
+    // Fast path for the ids never declared on the chain: a negative answer skips the storage lookup.
+    private TokenIdFilter idFilter;
+    // Per-type supply counters, kept in their own versioned storage.
+    private TokenSupplyDBService supplyDBService;
+    private TokenIdSequenceDBService sequenceDBService;
+    // Number of changes (updates and rollbacks) applied to the storage by this instance, used as the version of its content.
+    private final AtomicLong version = new AtomicLong();
+    // Changes of the last applied versions, the most recent is the last one.
+    private final Deque<UndoEntry> undoJournal = new ArrayDeque<>();
+    private final int retainedVersions;
+    // Ids rolled back without rebuilding the filter: they are still in it as false positives.
+    private long staleFilterEntries;
+    private final long maxStaleFilterEntries;
+    // Types whose supply counters may be left in the token info storage by the previous versions.
+    private final Set<String> counterTypes;
+    // Set until the supply counters are moved to the supply storage, along with the keys to remove from this storage.
+    private boolean supplyMigrationPending;
+    private volatile Set<ByteArrayWrapper> legacyCounterKeys = Collections.emptySet();
+    private Timer readTimer;
+    private Timer writeTimer;
+    private Timer rollbackTimer;
     protected Logger log = LoggerFactory.getLogger(IDInfoDBService.class.getName());
 
     @Inject
-    public IDInfoDBService(@Named("CarInfoStorage") Storage IDInfoStorage){
+    public IDInfoDBService(@Named("CarInfoStorage") Storage IDInfoStorage, TokenSupplyDBService supplyDBService,
+                           TokenIdSequenceDBService sequenceDBService, MempoolIndex mempoolIndex, TokenMetrics metrics,
+                           @Named("ConfigTokenizationApp") Config config){
         this.IDInfoStorage = IDInfoStorage;
-        log.debug("TokenInfoStorage now contains: "+ IDInfoStorage.getAll().size()+" elements");
+        this.supplyDBService = supplyDBService;
+        this.sequenceDBService = sequenceDBService;
+        this.mempoolIndex = mempoolIndex;
+        this.readTimer = metrics.storageTimer("read");
+        this.writeTimer = metrics.storageTimer("write");
+        this.rollbackTimer = metrics.storageTimer("rollback");
+        long expectedIds = config.hasPath("token.idFilter.expectedIds") ? config.getLong("token.idFilter.expectedIds") : 1000000L;
+        double falsePositiveRate = config.hasPath("token.idFilter.falsePositiveRate") ? config.getDouble("token.idFilter.falsePositiveRate") : 0.01;
+        this.idFilter = new TokenIdFilter(expectedIds, falsePositiveRate);
+        this.maxStaleFilterEntries = Math.max(1, expectedIds / 10);
+        this.retainedVersions = VersionRetention.retainedVersions(config);
+        this.counterTypes = new HashSet<>(config.getObject("token.typeLimit").keySet());
+        rebuildIdFilter();
+        if (!read(SUPPLY_MIGRATED_KEY).isPresent()) {
+            prepareSupplyMigration();
+        } else if (supplyDBService.isEmpty()) {
+            throw new IllegalStateException("The supply counters were moved out of the token info storage, but the token supply storage is empty.");
+        }
+    }
+
+    /**
+     * The supply counters were stored in the token info storage, keyed by the hash of the type. Until they are moved to
+     * the supply storage, they are read from there and ignored by the id checks. The next update removes them from this
+     * storage and stores them in the supply storage with the same version, so a rollback to any previous version finds
+     * them again. Only the counters of the configured types are moved: the others were kept under the hash of a token
+     * ID, as the sell order boxes were counted by ID, so their keys stay as declared ids.
+     */
+    private void prepareSupplyMigration() {
+        Map<String, Integer> counters = new HashMap<>();
+        Set<ByteArrayWrapper> keys = new HashSet<>();
+        for (String type : counterTypes) {
+            ByteArrayWrapper key = buildDBCountingElement(type, 0).getKey();
+            read(key).ifPresent(value -> {
+                counters.put(type, Ints.fromByteArray(value.data()));
+                keys.add(key);
+            });
+        }
+        supplyDBService.preload(counters);
+        legacyCounterKeys = Collections.unmodifiableSet(keys);
+        supplyMigrationPending = true;
     }
 
     public void updateAll(byte[] version, Set<String> idToAdd, HashMap<String, Integer> typeToAdd){
         log.debug("TokenInfoStorage updateID");
         List<Pair<ByteArrayWrapper, ByteArrayWrapper>> toUpdate = new ArrayList<>(idToAdd.size()+typeToAdd.size());
         idToAdd.forEach(ele -> {
-            toUpdate.add(buildDBElement(ele));
+            Pair<ByteArrayWrapper, ByteArrayWrapper> element = buildDBElement(ele);
+            // The filter is extended before the storage, so a negative answer is always definitive.
+            idFilter.put(element.getKey().data());
+            toUpdate.add(element);
         });
 
-        log.debug("TokenInfoStorage updateTypeCount");
-        typeToAdd.keySet().forEach(ele -> {
-            int count = getTypeCount(ele);
-            toUpdate.add(buildDBCountingElement(ele,typeToAdd.get(ele)+count));
-        });
-        IDInfoStorage.update(new ByteArrayWrapper(version), toUpdate, new ArrayList<>());
+        List<ByteArrayWrapper> toRemove = new ArrayList<>();
+        if (supplyMigrationPending) {
+            toRemove.addAll(legacyCounterKeys);
+            toUpdate.add(new Pair<>(SUPPLY_MIGRATED_KEY, new ByteArrayWrapper(new byte[1])));
+        }
 
-        log.debug("TokenInfoStorage now contains: "+ IDInfoStorage.getAll().size()+" elements");
+        ByteArrayWrapper versionWrapper = new ByteArrayWrapper(version);
+        IDInfoStorageEvent event = TokenEvents.beginIDInfoStorage();
+        long start = System.nanoTime();
+        IDInfoStorage.update(versionWrapper, toUpdate, toRemove);
+        writeTimer.recordSince(start);
+        if (event != null) {
+            event.finish("write", toUpdate.size());
+        }
+        undoJournal.addLast(new UndoEntry(versionWrapper, idToAdd.size()));
+        if (undoJournal.size() > retainedVersions) {
+            undoJournal.removeFirst();
+        }
+        log.debug("TokenSupplyStorage updateTypeCount");
+        supplyDBService.update(version, typeToAdd);
+        // Keep the highest sequence of each allocator slot, the allocator continues from there.
+        sequenceDBService.update(version, idToAdd);
+        if (supplyMigrationPending) {
+            supplyMigrationPending = false;
+            legacyCounterKeys = Collections.emptySet();
+            if (!toRemove.isEmpty()) {
+                // The removed counter keys can't be deleted from the filter.
+                rebuildIdFilter();
+            }
+            log.info("Token supply counters of " + toRemove.size() + " types moved to the supply storage");
+        }
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * Get the local version of the storage content: it changes on each update and rollback, so two checks made at the
+     * same version saw the same declared ids and supply counters.
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     public int getTypeCount(String key) {
-        if (IDInfoStorage.get(buildDBCountingElement(key,0).getKey()).isPresent()) {
-            int count = Ints.fromByteArray(IDInfoStorage.get(buildDBCountingElement(key,0).getKey()).get().data());
-            return count;
-        }
-        return 0;
+        return supplyDBService.getTypeCount(key);
+    }
+
+    /**
+     * Check the given id against the in-memory filter only: a false answer means that it was never declared on the chain,
+     * while a true answer may be a false positive.
+     */
+    public boolean mightExist(String id) {
+        return idFilter.mightContain(buildDBElement(id).getKey().data());
     }
 
     /**
@@ -67,24 +184,116 @@ public class IDInfoDBService {
      * @return true if the vin is valid (not already declared)
      */
     public boolean validateId(String id, Optional<NodeMemoryPool> memoryPool){
-        if (IDInfoStorage.get(buildDBElement(id).getKey()).isPresent()){
+        memoryPool.ifPresent(mempoolIndex::update);
+        return validateId(id, memoryPool.isPresent());
+    }
+
+    /**
+     * Validate the given vehicle identification number against the db list and (optionally) the mempool index.
+     * The mempool index must be aligned by the caller with updateMempoolIndex: this allows to check many ids against
+     * the same mempool view paying the mempool scan just once.
+     * @param id the vehicle identification number to check
+     * @param checkMempool if true, the vin is checked also against the last mempool view
+     * @return true if the vin is valid (not already declared)
+     */
+    public boolean validateId(String id, boolean checkMempool){
+        ByteArrayWrapper key = buildDBElement(id).getKey();
+        if (idFilter.mightContain(key.data()) && isIdKey(key) && read(key).isPresent()){
             return false;
         }
-        //in the vin is not found, and the mempool was provided, we check also there
-        if (memoryPool.isPresent()) {
-            for (BoxTransaction<Proposition, Box<Proposition>> transaction : memoryPool.get().getTransactions()) {
-                Set<String> vinInMempool = extractIdFromBoxes(transaction.newBoxes());
-                if (vinInMempool.contains(id)){
-                    return false;
-                }
-            }
+        //in the vin is not found, and the mempool was requested, we check also there
+        if (checkMempool && mempoolIndex.containsTokenId(id)) {
+            return false;
         }
         //if we arrive here, the vin is valid
         return true;
     }
 
+    // The supply counters still to be moved and the migration marker share the storage with the ids.
+    private boolean isIdKey(ByteArrayWrapper key) {
+        return !SUPPLY_MIGRATED_KEY.equals(key) && !legacyCounterKeys.contains(key);
+    }
+
+    public void updateMempoolIndex(NodeMemoryPool memoryPool) {
+        mempoolIndex.update(memoryPool);
+    }
+
     public void rollback(byte[] version) {
-        IDInfoStorage.rollback(new ByteArrayWrapper(version));
+        ByteArrayWrapper versionWrapper = new ByteArrayWrapper(version);
+        if (!hasVersion(versionWrapper)) {
+            throw new IllegalStateException("Version " + versionWrapper + " is older than the versions kept by the token info storage, " +
+                    "token.retainedVersions must cover the deepest rollback.");
+        }
+        // The supply storage doesn't know the versions applied before the supply counters were moved there.
+        boolean supplyVersion = supplyDBService.hasVersion(version);
+        IDInfoStorageEvent event = TokenEvents.beginIDInfoStorage();
+        long start = System.nanoTime();
+        IDInfoStorage.rollback(versionWrapper);
+        rollbackTimer.recordSince(start);
+        if (event != null) {
+            event.finish("rollback", 0);
+        }
+        if (supplyVersion) {
+            supplyDBService.rollback(version);
+        } else if (read(SUPPLY_MIGRATED_KEY).isPresent()) {
+            throw new IllegalStateException("Version " + versionWrapper + " is not in the token supply storage.");
+        } else {
+            // The counters are back in this storage with the rolled back version: they are moved again with the next update.
+            prepareSupplyMigration();
+        }
+        if (!undo(versionWrapper)) {
+            // The version is older than the journaled ones: the in-memory data is loaded again from the storage.
+            undoJournal.clear();
+            rebuildIdFilter();
+        } else if (staleFilterEntries > maxStaleFilterEntries) {
+            // The removed ids can't be deleted from the filter, so it is built again from the rolled back storage.
+            rebuildIdFilter();
+        }
+        this.version.incrementAndGet();
+    }
+
+    private boolean hasVersion(ByteArrayWrapper version) {
+        if (IDInfoStorage.lastVersionID().map(version::equals).orElse(false)) {
+            return true;
+        }
+        return IDInfoStorage.rollbackVersions().contains(version);
+    }
+
+    private Optional<ByteArrayWrapper> read(ByteArrayWrapper key) {
+        IDInfoStorageEvent event = TokenEvents.beginIDInfoStorage();
+        long start = System.nanoTime();
+        Optional<ByteArrayWrapper> value = IDInfoStorage.get(key);
+        readTimer.recordSince(start);
+        if (event != null) {
+            event.finish("read", value.isPresent() ? 1 : 0);
+        }
+        return value;
+    }
+
+    /**
+     * Undo the journaled changes applied after the given version.
+     * @return false if the version is not in the journal
+     */
+    private boolean undo(ByteArrayWrapper version) {
+        while (!undoJournal.isEmpty()) {
+            UndoEntry last = undoJournal.peekLast();
+            if (last.version.equals(version)) {
+                return true;
+            }
+            undoJournal.removeLast();
+            staleFilterEntries += last.addedIds;
+        }
+        return false;
+    }
+
+    private void rebuildIdFilter() {
+        List<ByteArrayWrapper> keys = new ArrayList<>();
+        for (Pair<ByteArrayWrapper, ByteArrayWrapper> element : IDInfoStorage.getAll()) {
+            keys.add(element.getKey());
+        }
+        idFilter.rebuild(keys);
+        staleFilterEntries = 0;
+        log.debug("TokenInfoStorage now contains: "+ keys.size()+" elements");
     }
 
     /**
@@ -94,12 +303,10 @@ public class IDInfoDBService {
     public Set<String> extractIdFromBoxes(List<Box<Proposition>> boxes){
         Set<String> idList = new HashSet<String>();
         for (Box<Proposition> currentBox : boxes) {
-            if (TokenBox.class.isAssignableFrom(currentBox.getClass())){
-                String id  = TokenBox.parseBytes(currentBox.bytes()).getID();
-                idList.add(id);
-            } else if (TokenSellOrderBox.class.isAssignableFrom(currentBox.getClass())){
-                String id  = TokenSellOrderBox.parseBytes(currentBox.bytes()).getID();
-                idList.add(id);
+            if (TokenBox.class.isInstance(currentBox)){
+                idList.add(TokenBox.class.cast(currentBox).getID());
+            } else if (TokenSellOrderBox.class.isInstance(currentBox)){
+                idList.add(TokenSellOrderBox.class.cast(currentBox).getID());
             }
         }
         return idList;
@@ -108,16 +315,16 @@ public class IDInfoDBService {
     public HashMap<String, Integer> extractTypeFromBoxes(List<Box<Proposition>> boxes){
         HashMap<String, Integer> typeList = new HashMap<String, Integer>();
         for (Box<Proposition> currentBox : boxes) {
-            if (TokenBox.class.isAssignableFrom(currentBox.getClass())){
-                String type  = TokenBox.parseBytes(currentBox.bytes()).getType();
+            if (TokenBox.class.isInstance(currentBox)){
+                String type  = TokenBox.class.cast(currentBox).getType();
                 if (typeList.containsKey(type)) {
                     typeList.put(type, typeList.get(type)+1);
                 }
                 else {
                     typeList.put(type,1);
                 }
-            } else if (TokenSellOrderBox.class.isAssignableFrom(currentBox.getClass())){
-                String type  = TokenSellOrderBox.parseBytes(currentBox.bytes()).getID();
+            } else if (TokenSellOrderBox.class.isInstance(currentBox)){
+                String type  = TokenSellOrderBox.class.cast(currentBox).getID();
                 if (typeList.containsKey(type)) {
                     typeList.put(type, typeList.get(type)+1);
                 }
@@ -131,20 +338,20 @@ public class IDInfoDBService {
 
     public String extractIdFromBox(Box<Proposition> box) {
         String id = "";
-        if (TokenBox.class.isAssignableFrom(box.getClass())){
-            id += TokenBox.parseBytes(box.bytes()).getID();
-        } else if (TokenSellOrderBox.class.isAssignableFrom(box.getClass())){
-            id += TokenSellOrderBox.parseBytes(box.bytes()).getID();
+        if (TokenBox.class.isInstance(box)){
+            id += TokenBox.class.cast(box).getID();
+        } else if (TokenSellOrderBox.class.isInstance(box)){
+            id += TokenSellOrderBox.class.cast(box).getID();
         }
         return id;
     }
 
     public String extractTypeFromBox(Box<Proposition> box){
         String type = "";
-        if (TokenBox.class.isAssignableFrom(box.getClass())){
-            type += TokenBox.parseBytes(box.bytes()).getType();
-        } else if (TokenSellOrderBox.class.isAssignableFrom(box.getClass())){
-            type += TokenSellOrderBox.parseBytes(box.bytes()).getID();
+        if (TokenBox.class.isInstance(box)){
+            type += TokenBox.class.cast(box).getType();
+        } else if (TokenSellOrderBox.class.isInstance(box)){
+            type += TokenSellOrderBox.class.cast(box).getID();
         }
 
         return type;
@@ -160,6 +367,7 @@ public class IDInfoDBService {
         return new Pair<>(keyWrapper, valueWrapper);
     }
 
+    // Legacy supply counter element, read only to move the counters to the supply storage.
     private Pair<ByteArrayWrapper, ByteArrayWrapper> buildDBCountingElement(String id, int value){
         //we hash the vin to be sure the key has a  fixed size of 32, which is the default of iohk.iodb used as underline storage
         ByteArrayWrapper keyWrapper = new ByteArrayWrapper(Blake2b256.hash(id));
@@ -167,4 +375,15 @@ public class IDInfoDBService {
         ByteArrayWrapper valueWrapper = new ByteArrayWrapper(Ints.toByteArray(value));
         return new Pair<>(keyWrapper, valueWrapper);
     }
+
+    // Changes applied with a version: the number of ids added to the filter.
+    private static final class UndoEntry {
+        final ByteArrayWrapper version;
+        final int addedIds;
+
+        UndoEntry(ByteArrayWrapper version, int addedIds) {
+            this.version = version;
+            this.addedIds = addedIds;
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Singleton;
+import com.horizen.box.Box;
+import com.horizen.node.NodeMemoryPool;
+import com.horizen.proposition.Proposition;
+import com.horizen.transaction.BoxTransaction;
+import com.horizen.utils.ByteArrayWrapper;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This index keeps the set of token IDs declared and the set of box IDs opened by the transactions currently present
+ * in the mempool, together with the highest sequence declared in each slot of the TokenIdAllocator.
+ * It is maintained incrementally: on every update only the transactions entered or left the mempool since the previous
+ * update are processed, so the boxes of a transaction are inspected just once during its whole mempool lifetime.
+ * Lookups are backed by concurrent maps and can be done from any thread without locking. The highest sequences are
+ * read under the index lock, as the allocator reads them right after an update.
+ */
+@Singleton
+public class MempoolIndex {
+
+    // Token IDs declared and box IDs opened by each tracked transaction.
+    // The mempool keeps the same transaction instances while they are pending, so we can track them by identity
+    // and avoid the calculation of the transaction id.
+    private final Map<BoxTransaction<Proposition, Box<Proposition>>, TrackedTransaction> trackedTransactions = new IdentityHashMap<>();
+
+    // Number of mempool transactions declaring each token ID.
+    private final ConcurrentHashMap<String, Integer> pendingTokenIds = new ConcurrentHashMap<>();
+
+    // Number of mempool transactions opening each box.
+    private final ConcurrentHashMap<ByteArrayWrapper, Integer> spentBoxIds = new ConcurrentHashMap<>();
+
+    // Number of mempool transactions declaring each sequence, for each slot of the TokenIdAllocator IDs.
+    private final Map<Integer, TreeMap<Long, Integer>> pendingSequences = new HashMap<>();
+
+    /**
+     * Align the index with the given mempool content.
+     */
+    public synchronized void update(NodeMemoryPool memoryPool) {
+        List<BoxTransaction<Proposition, Box<Proposition>>> transactions = memoryPool.getTransactions();
+        Set<BoxTransaction<Proposition, Box<Proposition>>> current = Collections.newSetFromMap(new IdentityHashMap<>(transactions.size()));
+        for (BoxTransaction<Proposition, Box<Proposition>> transaction : transactions) {
+            current.add(transaction);
+            if (!trackedTransactions.containsKey(transaction)) {
+                onTransactionAdded(transaction);
+            }
+        }
+
+        // All the current transactions are tracked at this point, so the extra entries belong to removed transactions.
+        if (trackedTransactions.size() > current.size()) {
+            Iterator<Map.Entry<BoxTransaction<Proposition, Box<Proposition>>, TrackedTransaction>> iterator = trackedTransactions.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BoxTransaction<Proposition, Box<Proposition>>, TrackedTransaction> entry = iterator.next();
+                if (!current.contains(entry.getKey())) {
+                    iterator.remove();
+                    onTransactionRemoved(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if the given token ID is declared by some transaction of the last mempool view this index was updated with.
+     */
+    public boolean containsTokenId(String id) {
+        return pendingTokenIds.containsKey(id);
+    }
+
+    /**
+     * Get the highest sequence of the given allocator slot declared by the transactions of the last mempool view this
+     * index was updated with, or 0 if there is none.
+     */
+    public synchronized long highestSequence(int slot) {
+        TreeMap<Long, Integer> sequences = pendingSequences.get(slot);
+        return sequences == null ? 0 : sequences.lastKey();
+    }
+
+    /**
+     * Check if the given box is opened by some transaction of the last mempool view this index was updated with.
+     */
+    public boolean isBoxSpent(ByteArrayWrapper boxId) {
+        return spentBoxIds.containsKey(boxId);
+    }
+
+    public int size() {
+        return pendingTokenIds.size();
+    }
+
+    private void onTransactionAdded(BoxTransaction<Proposition, Box<Proposition>> transaction) {
+        Set<String> ids = new HashSet<>();
+        for (Box<Proposition> box : transaction.newBoxes()) {
+            if (TokenBox.class.isInstance(box)) {
+                ids.add(TokenBox.class.cast(box).getID());
+            } else if (TokenSellOrderBox.class.isInstance(box)) {
+                ids.add(TokenSellOrderBox.class.cast(box).getID());
+            }
+        }
+        Set<ByteArrayWrapper> boxIdsToOpen = transaction.boxIdsToOpen();
+        trackedTransactions.put(transaction, new TrackedTransaction(ids, boxIdsToOpen));
+        for (String id : ids) {
+            pendingTokenIds.merge(id, 1, Integer::sum);
+            int slot = TokenIdAllocator.slotOf(id);
+            if (slot > 0) {
+                pendingSequences.computeIfAbsent(slot, key -> new TreeMap<>()).merge(TokenIdAllocator.sequenceOf(id), 1, Integer::sum);
+            }
+        }
+        for (ByteArrayWrapper boxId : boxIdsToOpen) {
+            spentBoxIds.merge(boxId, 1, Integer::sum);
+        }
+    }
+
+    private void onTransactionRemoved(TrackedTransaction transaction) {
+        for (String id : transaction.tokenIds) {
+            pendingTokenIds.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+            int slot = TokenIdAllocator.slotOf(id);
+            TreeMap<Long, Integer> sequences = slot > 0 ? pendingSequences.get(slot) : null;
+            if (sequences != null) {
+                sequences.computeIfPresent(TokenIdAllocator.sequenceOf(id), (key, count) -> count > 1 ? count - 1 : null);
+                if (sequences.isEmpty()) {
+                    pendingSequences.remove(slot);
+                }
+            }
+        }
+        for (ByteArrayWrapper boxId : transaction.boxIdsToOpen) {
+            spentBoxIds.computeIfPresent(boxId, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private static final class TrackedTransaction {
+        private final Set<String> tokenIds;
+        private final Set<ByteArrayWrapper> boxIdsToOpen;
+
+        private TrackedTransaction(Set<String> tokenIds, Set<ByteArrayWrapper> boxIdsToOpen) {
+            this.tokenIds = tokenIds;
+            this.boxIdsToOpen = boxIdsToOpen;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.common.primitives.UnsignedBytes;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.box.Box;
+import com.horizen.proposition.Proposition;
+import com.horizen.storage.Storage;
+import com.horizen.utils.ByteArrayWrapper;
+import com.horizen.utils.Pair;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * This service manages a local db with all the open TokenSellOrderBoxes, stored by box id.
+ * The db is updated with the same versions of the state, so it can be rolled back together with it.
+ * The sell orders are also indexed in memory:
+ * - by owner and by buyer public key, with the box ids of each key sorted to allow a stable pagination;
+ * - by token type, as an order book sorted by price and box id, for the price range and best offers queries.
+ * The sets left empty by a removal are dropped, so the indexes don't grow with the keys and types seen in the past.
+ * The indexes are loaded from the db at startup and after a rollback, and kept current on every state change.
+ * When the db is empty, as on the first start of a node upgraded from a version without it, the open sell orders are
+ * read instead from the boxes of the state storage, and written to the db with the next state change. The same happens
+ * on the first state change after a rollback to a version the db doesn't know.
+ */
+@Singleton
+public class SellOrderDBService {
+
+    private static final Comparator<ByteArrayWrapper> BOX_ID_COMPARATOR =
+            (first, second) -> UnsignedBytes.lexicographicalComparator().compare(first.data(), second.data());
+
+    private Storage sellOrderStorage;
+    private StateBoxesReader stateBoxesReader;
+
+    private final ConcurrentHashMap<ByteArrayWrapper, TokenSellOrderBox> sellOrdersById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ByteArrayWrapper, NavigableSet<ByteArrayWrapper>> boxIdsByOwner = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ByteArrayWrapper, NavigableSet<ByteArrayWrapper>> boxIdsByBuyer = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NavigableSet<OrderBookEntry>> orderBooksByType = new ConcurrentHashMap<>();
+    // True when the indexes were read from the state storage and are not yet in the db.
+    private boolean pendingPersist = false;
+    // True after a rollback to an unknown version, until the indexes are read again from the state storage.
+    private boolean pendingBootstrap = false;
+    protected Logger log = LoggerFactory.getLogger(SellOrderDBService.class.getName());
+
+    @Inject
+    public SellOrderDBService(@Named("TokenSellOrderStorage") Storage sellOrderStorage, StateBoxesReader stateBoxesReader) {
+        this.sellOrderStorage = sellOrderStorage;
+        this.stateBoxesReader = stateBoxesReader;
+        if (sellOrderStorage.isEmpty()) {
+            loadFromState();
+        } else {
+            loadIndexes();
+        }
+    }
+
+    /**
+     * Apply the state changes of the given version: the new sell orders are added, and the opened ones are deleted.
+     * The db is updated even without sell order changes, so that every state version can be rolled back to.
+     */
+    public synchronized void update(byte[] version, List<Box<Proposition>> newBoxes, List<byte[]> boxIdsToRemove) {
+        // The state storage is not changed yet, so it still has the boxes of the rolled back version.
+        if (pendingBootstrap) {
+            loadFromState();
+        }
+        List<Pair<ByteArrayWrapper, ByteArrayWrapper>> toUpdate = new ArrayList<>();
+        List<ByteArrayWrapper> toRemove = new ArrayList<>();
+
+        for (byte[] boxId : boxIdsToRemove) {
+            ByteArrayWrapper key = new ByteArrayWrapper(boxId);
+            if (sellOrdersById.containsKey(key)) {
+                toRemove.add(key);
+            }
+        }
+        List<TokenSellOrderBox> sellOrders = new ArrayList<>();
+        for (Box<Proposition> box : newBoxes) {
+            if (TokenSellOrderBox.class.isInstance(box)) {
+                TokenSellOrderBox sellOrder = TokenSellOrderBox.class.cast(box);
+                sellOrders.add(sellOrder);
+                toUpdate.add(new Pair<>(new ByteArrayWrapper(sellOrder.id()), new ByteArrayWrapper(sellOrder.typedBytes())));
+            }
+        }
+
+        if (pendingPersist) {
+            // The db doesn't have the sell orders read from the state: replace its content after this change.
+            for (ByteArrayWrapper boxId : toRemove) {
+                removeFromIndexes(boxId);
+            }
+            for (TokenSellOrderBox sellOrder : sellOrders) {
+                addToIndexes(sellOrder);
+            }
+            toUpdate.clear();
+            toRemove.clear();
+            for (TokenSellOrderBox sellOrder : sellOrdersById.values()) {
+                toUpdate.add(new Pair<>(new ByteArrayWrapper(sellOrder.id()), new ByteArrayWrapper(sellOrder.typedBytes())));
+            }
+            for (Pair<ByteArrayWrapper, ByteArrayWrapper> element : sellOrderStorage.getAll()) {
+                if (!sellOrdersById.containsKey(element.getKey())) {
+                    toRemove.add(element.getKey());
+                }
+            }
+            sellOrderStorage.update(new ByteArrayWrapper(version), toUpdate, toRemove);
+            pendingPersist = false;
+            return;
+        }
+
+        sellOrderStorage.update(new ByteArrayWrapper(version), toUpdate, toRemove);
+
+        for (ByteArrayWrapper boxId : toRemove) {
+            removeFromIndexes(boxId);
+        }
+        for (TokenSellOrderBox sellOrder : sellOrders) {
+            addToIndexes(sellOrder);
+        }
+    }
+
+    public synchronized void rollback(byte[] version) {
+        if (hasVersion(version)) {
+            sellOrderStorage.rollback(new ByteArrayWrapper(version));
+            pendingPersist = false;
+            pendingBootstrap = false;
+            loadIndexes();
+        } else {
+            // The db was created or bootstrapped after the given version: the sell orders are read again from the state
+            // on the next change, when the state storage is surely rolled back too.
+            log.info("TokenSellOrderStorage doesn't know the rollback version, the sell orders will be read from the state");
+            clearIndexes();
+            pendingBootstrap = true;
+        }
+    }
+
+    public Optional<TokenSellOrderBox> getSellOrder(byte[] boxId) {
+        return Optional.ofNullable(sellOrdersById.get(new ByteArrayWrapper(boxId)));
+    }
+
+    /**
+     * Get a page of the sell orders created by the given public keys, sorted by box id.
+     * @param fromBoxId if not null, only the sell orders with a greater box id are returned
+     */
+    public List<TokenSellOrderBox> getSellOrdersByOwners(Collection<byte[]> ownerPublicKeys, byte[] fromBoxId, int limit) {
+        return getPage(boxIdsByOwner, ownerPublicKeys, fromBoxId, limit);
+    }
+
+    /**
+     * Get a page of the sell orders addressed to the given public keys, sorted by box id.
+     * @param fromBoxId if not null, only the sell orders with a greater box id are returned
+     */
+    public List<TokenSellOrderBox> getSellOrdersByBuyers(Collection<byte[]> buyerPublicKeys, byte[] fromBoxId, int limit) {
+        return getPage(boxIdsByBuyer, buyerPublicKeys, fromBoxId, limit);
+    }
+
+    /**
+     * Get a page of the sell orders of the given type with price in the given range, sorted by price and box id.
+     * @param minPrice the minimum price, inclusive
+     * @param maxPrice the maximum price, inclusive
+     * @param fromPrice the price of the last sell order of the previous page, used only with fromBoxId
+     * @param fromBoxId if not null, only the sell orders after the one with the given price and box id are returned
+     */
+    public List<TokenSellOrderBox> getSellOrdersByPrice(String type, long minPrice, long maxPrice,
+                                                        long fromPrice, byte[] fromBoxId, int limit) {
+        NavigableSet<OrderBookEntry> orderBook = orderBooksByType.get(type);
+        if (orderBook == null || minPrice > maxPrice) {
+            return new ArrayList<>();
+        }
+        NavigableSet<OrderBookEntry> range = maxPrice == Long.MAX_VALUE ?
+                orderBook.tailSet(OrderBookEntry.lowerBound(minPrice), true) :
+                orderBook.subSet(OrderBookEntry.lowerBound(minPrice), true, OrderBookEntry.lowerBound(maxPrice + 1), false);
+        if (fromBoxId != null) {
+            // The cursor doesn't need the sell order to be still open.
+            range = range.tailSet(new OrderBookEntry(fromPrice, new ByteArrayWrapper(fromBoxId)), false);
+        }
+        return toSellOrders(range, limit);
+    }
+
+    /**
+     * Get the cheapest sell orders of the given type.
+     */
+    public List<TokenSellOrderBox> getBestSellOrders(String type, int limit) {
+        NavigableSet<OrderBookEntry> orderBook = orderBooksByType.get(type);
+        if (orderBook == null) {
+            return new ArrayList<>();
+        }
+        return toSellOrders(orderBook, limit);
+    }
+
+    /**
+     * Get the cheapest sell order of each type having some open order.
+     */
+    public Map<String, TokenSellOrderBox> getBestSellOrderByType() {
+        Map<String, TokenSellOrderBox> bestSellOrders = new TreeMap<>();
+        for (Map.Entry<String, NavigableSet<OrderBookEntry>> orderBook : orderBooksByType.entrySet()) {
+            List<TokenSellOrderBox> best = toSellOrders(orderBook.getValue(), 1);
+            if (!best.isEmpty()) {
+                bestSellOrders.put(orderBook.getKey(), best.get(0));
+            }
+        }
+        return bestSellOrders;
+    }
+
+    public int size() {
+        return sellOrdersById.size();
+    }
+
+    private List<TokenSellOrderBox> toSellOrders(NavigableSet<OrderBookEntry> entries, int limit) {
+        List<TokenSellOrderBox> sellOrders = new ArrayList<>();
+        for (OrderBookEntry entry : entries) {
+            if (sellOrders.size() >= limit) {
+                break;
+            }
+            TokenSellOrderBox sellOrder = sellOrdersById.get(entry.boxId);
+            if (sellOrder != null) {
+                sellOrders.add(sellOrder);
+            }
+        }
+        return sellOrders;
+    }
+
+    private List<TokenSellOrderBox> getPage(Map<ByteArrayWrapper, NavigableSet<ByteArrayWrapper>> index,
+                                            Collection<byte[]> publicKeys, byte[] fromBoxId, int limit) {
+        // Take up to limit box ids from each key, then keep the first ones overall.
+        NavigableSet<ByteArrayWrapper> page = new TreeSet<>(BOX_ID_COMPARATOR);
+        for (byte[] publicKey : publicKeys) {
+            NavigableSet<ByteArrayWrapper> boxIds = index.get(new ByteArrayWrapper(publicKey));
+            if (boxIds == null) {
+                continue;
+            }
+            if (fromBoxId != null) {
+                boxIds = boxIds.tailSet(new ByteArrayWrapper(fromBoxId), false);
+            }
+            int taken = 0;
+            for (ByteArrayWrapper boxId : boxIds) {
+                if (taken++ >= limit) {
+                    break;
+                }
+                page.add(boxId);
+                if (page.size() > limit) {
+                    page.pollLast();
+                }
+            }
+        }
+        List<TokenSellOrderBox> sellOrders = new ArrayList<>(page.size());
+        for (ByteArrayWrapper boxId : page) {
+            TokenSellOrderBox sellOrder = sellOrdersById.get(boxId);
+            if (sellOrder != null) {
+                sellOrders.add(sellOrder);
+            }
+        }
+        return sellOrders;
+    }
+
+    private boolean hasVersion(byte[] version) {
+        ByteArrayWrapper versionWrapper = new ByteArrayWrapper(version);
+        if (sellOrderStorage.lastVersionID().map(versionWrapper::equals).orElse(false)) {
+            return true;
+        }
+        return sellOrderStorage.rollbackVersions().contains(versionWrapper);
+    }
+
+    private void loadFromState() {
+        clearIndexes();
+        stateBoxesReader.forEachBox(box -> {
+            if (TokenSellOrderBox.class.isInstance(box)) {
+                addToIndexes(TokenSellOrderBox.class.cast(box));
+            }
+        });
+        pendingPersist = true;
+        pendingBootstrap = false;
+        log.info("TokenSellOrderStorage bootstrapped from the state with: " + sellOrdersById.size() + " sell orders");
+    }
+
+    private void loadIndexes() {
+        clearIndexes();
+        for (Pair<ByteArrayWrapper, ByteArrayWrapper> element : sellOrderStorage.getAll()) {
+            addToIndexes(TokenSellOrderBox.parseTypedBytes(element.getValue().data()));
+        }
+        log.debug("TokenSellOrderStorage now contains: " + sellOrdersById.size() + " sell orders");
+    }
+
+    private void clearIndexes() {
+        sellOrdersById.clear();
+        boxIdsByOwner.clear();
+        boxIdsByBuyer.clear();
+        orderBooksByType.clear();
+    }
+
+    private void addToIndexes(TokenSellOrderBox sellOrder) {
+        ByteArrayWrapper boxId = new ByteArrayWrapper(sellOrder.id());
+        sellOrdersById.put(boxId, sellOrder);
+        indexOf(boxIdsByOwner, sellOrder.proposition().getOwnerPublicKeyBytes()).add(boxId);
+        indexOf(boxIdsByBuyer, sellOrder.proposition().getBuyerPublicKeyBytes()).add(boxId);
+        orderBooksByType.computeIfAbsent(sellOrder.getType(), type -> new ConcurrentSkipListSet<>())
+                .add(new OrderBookEntry(sellOrder.getPrice(), boxId));
+    }
+
+    private void removeFromIndexes(ByteArrayWrapper boxId) {
+        TokenSellOrderBox sellOrder = sellOrdersById.remove(boxId);
+        if (sellOrder == null) {
+            return;
+        }
+        removeFromIndex(boxIdsByOwner, new ByteArrayWrapper(sellOrder.proposition().getOwnerPublicKeyBytes()), boxId);
+        removeFromIndex(boxIdsByBuyer, new ByteArrayWrapper(sellOrder.proposition().getBuyerPublicKeyBytes()), boxId);
+        removeFromIndex(orderBooksByType, sellOrder.getType(), new OrderBookEntry(sellOrder.getPrice(), boxId));
+    }
+
+    // The updates are serialized, so a set found empty can't get a new element before it is dropped.
+    private static <K, E> void removeFromIndex(Map<K, NavigableSet<E>> index, K key, E element) {
+        NavigableSet<E> elements = index.get(key);
+        if (elements != null && elements.remove(element) && elements.isEmpty()) {
+            index.remove(key, elements);
+        }
+    }
+
+    private NavigableSet<ByteArrayWrapper> indexOf(Map<ByteArrayWrapper, NavigableSet<ByteArrayWrapper>> index, byte[] publicKey) {
+        return index.computeIfAbsent(new ByteArrayWrapper(publicKey), key -> new ConcurrentSkipListSet<>(BOX_ID_COMPARATOR));
+    }
+
+    // Order book key: sell orders are sorted by price, then by box id, so a price and a box id are a page cursor.
+    private static final class OrderBookEntry implements Comparable<OrderBookEntry> {
+        private static final ByteArrayWrapper MIN_BOX_ID = new ByteArrayWrapper(new byte[0]);
+
+        private final long price;
+        private final ByteArrayWrapper boxId;
+
+        private OrderBookEntry(long price, ByteArrayWrapper boxId) {
+            this.price = price;
+            this.boxId = boxId;
+        }
+
+        // Key lower than all the entries with the given price.
+        private static OrderBookEntry lowerBound(long price) {
+            return new OrderBookEntry(price, MIN_BOX_ID);
+        }
+
+        @Override
+        public int compareTo(OrderBookEntry other) {
+            int result = Long.compare(price, other.price);
+            return result != 0 ? result : BOX_ID_COMPARATOR.compare(boxId, other.boxId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof OrderBookEntry && compareTo((OrderBookEntry) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(price, boxId);
+        }
+    }
+}
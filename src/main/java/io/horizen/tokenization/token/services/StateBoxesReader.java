@@ -0,0 +1,51 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.box.Box;
+import com.horizen.box.BoxSerializer;
+import com.horizen.companion.SidechainBoxesCompanion;
+import com.horizen.proposition.Proposition;
+import com.horizen.storage.Storage;
+import com.horizen.utils.ByteArrayWrapper;
+import com.horizen.utils.Pair;
+import scala.util.Try;
+import scorex.crypto.hash.Blake2b256;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * This reader walks the boxes of the current state, read straight from the state storage: the node view lets
+ * the application look up a single box, but not list them. It is used only to bootstrap the local dbs built from the
+ * state changes, so a full scan of the storage is acceptable.
+ * Each box is stored with the hash of its id as key. The state storage has other kinds of entries too: they are skipped
+ * as they don't parse to a box with that id.
+ */
+@Singleton
+public class StateBoxesReader {
+
+    private Storage stateStorage;
+    private SidechainBoxesCompanion boxesCompanion;
+
+    @Inject
+    public StateBoxesReader(@Named("StateStorage") Storage stateStorage,
+                            @Named("CustomBoxSerializers") HashMap<Byte, BoxSerializer<Box<Proposition>>> customBoxSerializers) {
+        this.stateStorage = stateStorage;
+        this.boxesCompanion = new SidechainBoxesCompanion(customBoxSerializers);
+    }
+
+    /**
+     * Pass all the state boxes to the consumer.
+     */
+    public void forEachBox(Consumer<Box<Proposition>> consumer) {
+        for (Pair<ByteArrayWrapper, ByteArrayWrapper> element : stateStorage.getAll()) {
+            Try<Box<Proposition>> box = boxesCompanion.parseBytesTry(element.getValue().data());
+            if (box.isSuccess() && Arrays.equals(element.getKey().data(), Blake2b256.hash(box.get().id()))) {
+                consumer.accept(box.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.horizen.node.NodeMemoryPool;
+import com.horizen.proposition.PublicKey25519Proposition;
+import com.horizen.utils.BytesUtils;
+
+import java.util.*;
+
+/**
+ * This allocator hands out unique token IDs without checking them one by one against the storage and the mempool.
+ * Each creator proposition owns a reserved range of IDs: the ID is made of the slot, that is the position of the
+ * creator in the config list starting from 1, followed by an 8 digits sequence number. The slot takes at least 2
+ * digits, zero padded: the first 99 creators get 10 digits IDs, the following ones longer IDs without leading zero,
+ * so the slot of any ID is found from its length.
+ * The next sequence of each slot is above the highest one seen on the chain (persisted by TokenIdSequenceDBService on
+ * every applied version), in the mempool and allocated locally, so the same ID is never allocated twice.
+ * The IDs declared before the allocator can be in the allocator format too, in the range of any creator: the allocator
+ * skips them by means of the in-memory ID filter. They can still be declared by any creator until the creator ranges
+ * are enforced by the token validation, from token.creatorRanges.activationTimestamp on.
+ */
+@Singleton
+public class TokenIdAllocator {
+
+    public static final int SEQUENCE_DIGITS = 8;
+    public static final long MAX_SEQUENCE = 99999999L;
+    // Up to 8 digits of slot, so an ID has at most 16 digits.
+    public static final int MAX_SLOT = 99999999;
+    private static final int MIN_ID_LENGTH = 2 + SEQUENCE_DIGITS;
+    private static final int MAX_ID_LENGTH = 8 + SEQUENCE_DIGITS;
+
+    private final IDInfoDBService IDInfoDBService;
+    private final TokenIdSequenceDBService sequenceDBService;
+    private final MempoolIndex mempoolIndex;
+    private final CreatorAuthorization creatorAuthorization;
+
+    // Highest sequence allocated by this node for each slot.
+    private final Map<Integer, Long> allocated = new HashMap<>();
+
+    @Inject
+    public TokenIdAllocator(IDInfoDBService IDInfoDBService, TokenIdSequenceDBService sequenceDBService,
+                            MempoolIndex mempoolIndex, CreatorAuthorization creatorAuthorization) {
+        this.IDInfoDBService = IDInfoDBService;
+        this.sequenceDBService = sequenceDBService;
+        this.mempoolIndex = mempoolIndex;
+        this.creatorAuthorization = creatorAuthorization;
+    }
+
+    /**
+     * Allocate the given number of token IDs in the range of the given creator.
+     * @param creatorProposition hex representation of the creator public key proposition
+     * @param memoryPool the current mempool, to skip the sequences used by pending transactions of other nodes
+     */
+    public synchronized List<String> allocate(String creatorProposition, int count, NodeMemoryPool memoryPool) {
+        int slot = creatorAuthorization.slotOf(new PublicKey25519Proposition(BytesUtils.fromHexString(creatorProposition)));
+        if (slot <= 0 || slot > MAX_SLOT) {
+            throw new IllegalStateException("This proposition is not allowed to create token!");
+        }
+        mempoolIndex.update(memoryPool);
+
+        long sequence = Math.max(allocated.getOrDefault(slot, 0L), sequenceDBService.getHighestSequence(slot));
+        sequence = Math.max(sequence, mempoolIndex.highestSequence(slot));
+
+        List<String> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            if (++sequence > MAX_SEQUENCE) {
+                throw new IllegalStateException("No more token IDs available for this proposition.");
+            }
+            String id = formatId(slot, sequence);
+            if (!IDInfoDBService.mightExist(id)) {
+                ids.add(id);
+            }
+        }
+        allocated.put(slot, sequence);
+        return ids;
+    }
+
+    public static String formatId(int slot, long sequence) {
+        return String.format("%02d%08d", slot, sequence);
+    }
+
+    /**
+     * Get the slot of an allocator ID, or -1 if the given ID was not created by the allocator.
+     */
+    public static int slotOf(String id) {
+        if (!isAllocatorFormat(id)) {
+            return -1;
+        }
+        return Integer.parseInt(id.substring(0, id.length() - SEQUENCE_DIGITS));
+    }
+
+    /**
+     * Get the sequence of an allocator ID, or -1 if the given ID was not created by the allocator.
+     */
+    public static long sequenceOf(String id) {
+        if (!isAllocatorFormat(id)) {
+            return -1;
+        }
+        return Long.parseLong(id.substring(id.length() - SEQUENCE_DIGITS));
+    }
+
+    // Only the 10 digits IDs have a zero padded slot, and the slot 0 is never assigned.
+    private static boolean isAllocatorFormat(String id) {
+        if (id.length() < MIN_ID_LENGTH || id.length() > MAX_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) < '0' || id.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return id.length() == MIN_ID_LENGTH ? !id.startsWith("00") : id.charAt(0) != '0';
+    }
+}
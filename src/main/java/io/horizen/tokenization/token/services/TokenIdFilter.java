@@ -0,0 +1,50 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.horizen.utils.ByteArrayWrapper;
+
+import java.util.Collection;
+
+/**
+ * In-memory Bloom filter of the keys stored in the token info storage.
+ * A negative answer is definitive, so the storage lookup can be skipped for the IDs never declared on the chain,
+ * that are the large majority of the checked ones.
+ * Bloom filters don't support removal: on rollback the filter content is replaced with a new one built from the storage.
+ */
+public class TokenIdFilter {
+
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter<byte[]> filter;
+
+    public TokenIdFilter(long expectedInsertions, double falsePositiveRate) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = newFilter();
+    }
+
+    public boolean mightContain(byte[] key) {
+        return filter.mightContain(key);
+    }
+
+    public void put(byte[] key) {
+        filter.put(key);
+    }
+
+    /**
+     * Replace the filter content with the given keys.
+     */
+    public void rebuild(Collection<ByteArrayWrapper> keys) {
+        BloomFilter<byte[]> newFilter = newFilter();
+        for (ByteArrayWrapper key : keys) {
+            newFilter.put(key.data());
+        }
+        this.filter = newFilter;
+    }
+
+    private BloomFilter<byte[]> newFilter() {
+        return BloomFilter.create(Funnels.byteArrayFunnel(), expectedInsertions, falsePositiveRate);
+    }
+}
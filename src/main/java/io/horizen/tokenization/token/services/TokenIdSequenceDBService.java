@@ -0,0 +1,83 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.storage.Storage;
+import com.horizen.utils.ByteArrayWrapper;
+import com.horizen.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scorex.crypto.hash.Blake2b256;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This service manages a local db with the highest sequence of each TokenIdAllocator slot declared on the chain.
+ * It is kept apart from the token info storage, so the allocator state never mixes with the declared token IDs.
+ * The allocator only needs a sequence not lower than the highest declared one, so the sequences are never lowered:
+ * after a rollback the allocator just skips the sequences of the rolled back IDs. For this reason the db is not
+ * versioned with the state: each update gets a new version, derived from the previous one and the state version.
+ */
+@Singleton
+public class TokenIdSequenceDBService {
+
+    private Storage sequenceStorage;
+    // Highest sequence of each slot, loaded from the storage on first use.
+    private final ConcurrentHashMap<Integer, Long> highestSequences = new ConcurrentHashMap<>();
+    protected Logger log = LoggerFactory.getLogger(TokenIdSequenceDBService.class.getName());
+
+    @Inject
+    public TokenIdSequenceDBService(@Named("TokenIdSequenceStorage") Storage sequenceStorage) {
+        this.sequenceStorage = sequenceStorage;
+    }
+
+    /**
+     * Get the highest sequence of the given allocator slot declared on the chain.
+     */
+    public long getHighestSequence(int slot) {
+        Long sequence = highestSequences.get(slot);
+        if (sequence == null) {
+            sequence = sequenceStorage.get(slotKey(slot))
+                    .map(value -> Longs.fromByteArray(value.data())).orElse(0L);
+            highestSequences.putIfAbsent(slot, sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Raise the sequences of the slots of the given ids declared by the given state version.
+     */
+    public synchronized void update(byte[] version, Collection<String> ids) {
+        Map<Integer, Long> newSequences = new HashMap<>();
+        for (String id : ids) {
+            int slot = TokenIdAllocator.slotOf(id);
+            if (slot > 0) {
+                newSequences.merge(slot, TokenIdAllocator.sequenceOf(id), Math::max);
+            }
+        }
+        List<Pair<ByteArrayWrapper, ByteArrayWrapper>> toUpdate = new ArrayList<>();
+        newSequences.entrySet().removeIf(entry -> entry.getValue() <= getHighestSequence(entry.getKey()));
+        if (newSequences.isEmpty()) {
+            return;
+        }
+        newSequences.forEach((slot, sequence) ->
+                toUpdate.add(new Pair<>(slotKey(slot), new ByteArrayWrapper(Longs.toByteArray(sequence)))));
+
+        // The same state version can be applied again after a rollback, so it is chained to the last version of the db.
+        byte[] lastVersion = sequenceStorage.lastVersionID().map(ByteArrayWrapper::data).orElse(new byte[0]);
+        sequenceStorage.update(new ByteArrayWrapper(Blake2b256.hash(Bytes.concat(lastVersion, version))),
+                toUpdate, Collections.emptyList());
+        highestSequences.putAll(newSequences);
+        log.debug("TokenIdSequenceStorage updated the sequences of " + newSequences.size() + " slots");
+    }
+
+    // The slot followed by zeros, to get a key of the default size of 32 bytes.
+    private static ByteArrayWrapper slotKey(int slot) {
+        return new ByteArrayWrapper(Arrays.copyOf(Ints.toByteArray(slot), 32));
+    }
+}
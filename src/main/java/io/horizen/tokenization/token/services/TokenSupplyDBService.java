@@ -0,0 +1,245 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.common.primitives.Bytes;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.storage.Storage;
+import com.horizen.utils.ByteArrayWrapper;
+import com.horizen.utils.Pair;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scorex.crypto.hash.Blake2b256;
+import scorex.util.ByteArrayBuilder;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.VLQByteBufferReader;
+import scorex.util.serialization.VLQByteBufferWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This service manages a local db with the supply counter of each configured token type, increased by every token box
+ * the state applies with that type. The counters of the types not listed in token.typeLimit are never read, as those
+ * types can't be minted, so they are not kept.
+ * In memory the counters are a plain array, in the order of the sorted configured types, replaced as a whole on every
+ * change: a lookup is a binary search on the type names, without any boxing. The db is updated with the same versions of the state, so it can be rolled back together with it. For each version
+ * it keeps two entries, each one holding the supply of all the types:
+ * - the current supply, that is loaded in memory at startup and after a rollback;
+ * - a snapshot of the supply reached with that version, to answer the queries about a past version.
+ * Both entries are read and written in time proportional to the number of types, whatever the number of tokens is.
+ * Only the snapshots of the last retained versions are kept: the versions they belong to are stored as a list, and the
+ * snapshot of the oldest one is removed when a new version is applied. The supply reached with each of the retained
+ * versions is also kept in memory, so after a rollback within them the supply is not read again from the db.
+ */
+@Singleton
+public class TokenSupplyDBService {
+
+    private static final ByteArrayWrapper CURRENT_SUPPLY_KEY = new ByteArrayWrapper(Blake2b256.hash("supply:current"));
+    private static final ByteArrayWrapper SNAPSHOT_VERSIONS_KEY = new ByteArrayWrapper(Blake2b256.hash("supply:versions"));
+
+    private Storage supplyStorage;
+    // The configured types, sorted: the counters of the supply arrays follow the same order.
+    private final String[] types;
+    // Supply of each type at the last applied version, replaced as a whole on every change.
+    private volatile int[] supply;
+    // Versions whose snapshot is stored, the most recent is the last one.
+    private Deque<ByteArrayWrapper> snapshotVersions;
+    // Supply reached with the versions applied since the startup, within the retained ones.
+    private final Deque<Pair<ByteArrayWrapper, int[]>> journal = new ArrayDeque<>();
+    private final int retainedVersions;
+    protected Logger log = LoggerFactory.getLogger(TokenSupplyDBService.class.getName());
+
+    @Inject
+    public TokenSupplyDBService(@Named("TokenSupplyStorage") Storage supplyStorage, @Named("ConfigTokenizationApp") Config config) {
+        this.supplyStorage = supplyStorage;
+        this.retainedVersions = VersionRetention.retainedVersions(config);
+        this.types = config.getObject("token.typeLimit").keySet().toArray(new String[0]);
+        Arrays.sort(this.types);
+        this.supply = loadSupply();
+        this.snapshotVersions = loadSnapshotVersions();
+    }
+
+    public boolean isEmpty() {
+        return supplyStorage.isEmpty();
+    }
+
+    public int getTypeCount(String type) {
+        int index = Arrays.binarySearch(types, type);
+        return index < 0 ? 0 : supply[index];
+    }
+
+    /**
+     * Get the supply of all the types at the last applied version.
+     */
+    public Map<String, Integer> getSupply() {
+        return toMap(supply);
+    }
+
+    /**
+     * Get the supply of all the types reached with the given version, empty if the version is unknown or older than
+     * the retained ones.
+     */
+    public Optional<Map<String, Integer>> getSupplyAt(byte[] version) {
+        return supplyStorage.get(snapshotKey(version)).map(value -> decode(value.data()));
+    }
+
+    /**
+     * Apply the counters of the given version. The db is updated even without new tokens, so that every state version
+     * can be rolled back to and queried.
+     */
+    public synchronized void update(byte[] version, Map<String, Integer> typeToAdd) {
+        int[] newSupply = supply.clone();
+        typeToAdd.forEach((type, added) -> {
+            int index = Arrays.binarySearch(types, type);
+            if (index >= 0) {
+                newSupply[index] += added;
+            }
+        });
+        write(version, newSupply);
+    }
+
+    /**
+     * Replace the in-memory supply with the counters read from the token info storage, while they are migrated:
+     * they are stored, together with the counters of that version, by the next update.
+     */
+    public synchronized void preload(Map<String, Integer> counters) {
+        supply = toCounters(counters);
+        journal.clear();
+    }
+
+    /**
+     * Check if the db can be rolled back to the given version: it knows only the versions applied since it was created.
+     */
+    public boolean hasVersion(byte[] version) {
+        ByteArrayWrapper versionWrapper = new ByteArrayWrapper(version);
+        if (supplyStorage.lastVersionID().map(versionWrapper::equals).orElse(false)) {
+            return true;
+        }
+        return supplyStorage.rollbackVersions().contains(versionWrapper);
+    }
+
+    public synchronized void rollback(byte[] version) {
+        ByteArrayWrapper versionWrapper = new ByteArrayWrapper(version);
+        supplyStorage.rollback(versionWrapper);
+        snapshotVersions = loadSnapshotVersions();
+        while (!journal.isEmpty() && !journal.peekLast().getKey().equals(versionWrapper)) {
+            journal.removeLast();
+        }
+        if (journal.isEmpty()) {
+            // The version is older than the journaled ones.
+            supply = loadSupply();
+        } else {
+            supply = journal.peekLast().getValue();
+        }
+    }
+
+    private void write(byte[] version, int[] newSupply) {
+        ByteArrayWrapper versionWrapper = new ByteArrayWrapper(version);
+        ByteArrayWrapper value = new ByteArrayWrapper(encode(newSupply));
+        List<Pair<ByteArrayWrapper, ByteArrayWrapper>> toUpdate = new ArrayList<>(3);
+        List<ByteArrayWrapper> toRemove = new ArrayList<>();
+        toUpdate.add(new Pair<>(CURRENT_SUPPLY_KEY, value));
+        toUpdate.add(new Pair<>(snapshotKey(version), value));
+
+        Deque<ByteArrayWrapper> newSnapshotVersions = new ArrayDeque<>(snapshotVersions);
+        newSnapshotVersions.addLast(versionWrapper);
+        while (newSnapshotVersions.size() > retainedVersions) {
+            toRemove.add(snapshotKey(newSnapshotVersions.removeFirst().data()));
+        }
+        toUpdate.add(new Pair<>(SNAPSHOT_VERSIONS_KEY, new ByteArrayWrapper(encodeVersions(newSnapshotVersions))));
+
+        supplyStorage.update(versionWrapper, toUpdate, toRemove);
+        snapshotVersions = newSnapshotVersions;
+        supply = newSupply;
+        journal.addLast(new Pair<>(versionWrapper, supply));
+        if (journal.size() > retainedVersions) {
+            journal.removeFirst();
+        }
+    }
+
+    private Deque<ByteArrayWrapper> loadSnapshotVersions() {
+        return supplyStorage.get(SNAPSHOT_VERSIONS_KEY)
+                .map(value -> decodeVersions(value.data()))
+                .orElseGet(ArrayDeque::new);
+    }
+
+    private int[] loadSupply() {
+        Map<String, Integer> loaded = supplyStorage.get(CURRENT_SUPPLY_KEY)
+                .map(value -> decode(value.data()))
+                .orElseGet(HashMap::new);
+        log.debug("TokenSupplyStorage now contains the supply of: " + loaded.size() + " types");
+        return toCounters(loaded);
+    }
+
+    private int[] toCounters(Map<String, Integer> supplyByType) {
+        int[] counters = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            counters[i] = supplyByType.getOrDefault(types[i], 0);
+        }
+        return counters;
+    }
+
+    // Only the types with some token are listed, sorted by name.
+    private Map<String, Integer> toMap(int[] counters) {
+        Map<String, Integer> supplyByType = new TreeMap<>();
+        for (int i = 0; i < types.length; i++) {
+            if (counters[i] != 0) {
+                supplyByType.put(types[i], counters[i]);
+            }
+        }
+        return Collections.unmodifiableMap(supplyByType);
+    }
+
+    private static ByteArrayWrapper snapshotKey(byte[] version) {
+        //the version is hashed together with a prefix, to get a key of the default size of 32 bytes
+        return new ByteArrayWrapper(Blake2b256.hash(Bytes.concat("supply:".getBytes(StandardCharsets.UTF_8), version)));
+    }
+
+    // The types are sorted, so the same supply is always encoded in the same bytes.
+    private byte[] encode(int[] counters) {
+        Map<String, Integer> supplyByType = toMap(counters);
+        VLQByteBufferWriter writer = new VLQByteBufferWriter(new ByteArrayBuilder());
+        writer.putUInt(supplyByType.size());
+        for (Map.Entry<String, Integer> entry : supplyByType.entrySet()) {
+            byte[] type = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            writer.putUInt(type.length);
+            writer.putBytes(type);
+            writer.putUInt(entry.getValue());
+        }
+        return writer.result().toBytes();
+    }
+
+    private static byte[] encodeVersions(Collection<ByteArrayWrapper> versions) {
+        VLQByteBufferWriter writer = new VLQByteBufferWriter(new ByteArrayBuilder());
+        writer.putUInt(versions.size());
+        for (ByteArrayWrapper version : versions) {
+            writer.putUInt(version.data().length);
+            writer.putBytes(version.data());
+        }
+        return writer.result().toBytes();
+    }
+
+    private static Deque<ByteArrayWrapper> decodeVersions(byte[] bytes) {
+        Reader reader = new VLQByteBufferReader(ByteBuffer.wrap(bytes));
+        int size = (int) reader.getUInt();
+        Deque<ByteArrayWrapper> versions = new ArrayDeque<>(size);
+        for (int i = 0; i < size; i++) {
+            versions.addLast(new ByteArrayWrapper(reader.getBytes((int) reader.getUInt())));
+        }
+        return versions;
+    }
+
+    private static Map<String, Integer> decode(byte[] bytes) {
+        Reader reader = new VLQByteBufferReader(ByteBuffer.wrap(bytes));
+        int size = (int) reader.getUInt();
+        Map<String, Integer> supply = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String type = new String(reader.getBytes((int) reader.getUInt()), StandardCharsets.UTF_8);
+            supply.put(type, (int) reader.getUInt());
+        }
+        return supply;
+    }
+}
@@ -0,0 +1,21 @@
+package io.horizen.tokenization.token.services;
+
+// Reasons for which a transaction or a block can be rejected by the token application validation.
+public enum TokenValidationError {
+    CreatorNotAllowed("this proposition is not allowed to create tokens!"),
+    IdAlreadyExists("The token ID already exists!"),
+    DuplicatedId("The token ID is declared more than once!"),
+    IdOutOfCreatorRange("The token ID is outside of the range of its creator!"),
+    UnknownType("The token type has no maximum number of tokens defined!"),
+    TypeLimitExceeded("Exceed the maximum number of tokens that can be created!");
+
+    private final String description;
+
+    TokenValidationError(String description) {
+        this.description = description;
+    }
+
+    public String description() {
+        return description;
+    }
+}
@@ -0,0 +1,194 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.box.NoncedBox;
+import com.horizen.proposition.Proposition;
+import com.typesafe.config.Config;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.transaction.CreateTokensTransaction;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This service checks the tokens declared by a set of CreateTokensTransactions, either a single mempool transaction
+ * or all the ones of a block:
+ * - only the propositions specified in the config are able to create tokens, of the types they are scoped to;
+ * - from the block timestamp token.creatorRanges.activationTimestamp on, an ID in the format of the TokenIdAllocator is
+ *   in the range of the slot of its creator. The rule is not enforced by default: it rejects IDs that could be minted
+ *   before, so all the nodes must be configured with the same activation timestamp, set in the future;
+ * - each token ID is not already used on the chain and is declared only once in the set;
+ * - the maximum number of tokens of each type is not exceeded.
+ * Large sets are checked in parallel on a dedicated ForkJoin pool: the declared IDs and the per-type counters are merged
+ * through concurrent collections, while the type limits are checked once all the tokens are counted.
+ * The transactions found valid on their own are cached with the token info version they were checked at, so the tokens
+ * of a block transaction already admitted to the mempool are only checked against the rest of the block.
+ */
+@Singleton
+public class TokenValidationService {
+
+    // Below this number of tokens the fork/join overhead is higher than the gain.
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final IDInfoDBService IDInfoDbService;
+    private final CreatorAuthorization creatorAuthorization;
+    private final HashMap<String, Integer> maxTokenPerType;
+    private final ForkJoinPool pool;
+    private final ValidationResultCache resultCache;
+    // Block timestamp, in seconds, from which the creator ranges are enforced.
+    private final long creatorRangesActivation;
+
+    @Inject
+    public TokenValidationService(IDInfoDBService IDInfoDbService, CreatorAuthorization creatorAuthorization,
+                                  @Named("ConfigTokenizationApp") Config config) {
+        this.IDInfoDbService = IDInfoDbService;
+        this.creatorAuthorization = creatorAuthorization;
+        this.maxTokenPerType = (HashMap<String,Integer>) config.getObject("token").get("typeLimit").unwrapped();
+        int parallelism = config.hasPath("token.validation.parallelism") ?
+                config.getInt("token.validation.parallelism") : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+        int cacheEntries = config.hasPath("token.validationCache.maxEntries") ?
+                config.getInt("token.validationCache.maxEntries") : 100000;
+        this.resultCache = new ValidationResultCache(cacheEntries);
+        this.creatorRangesActivation = config.hasPath("token.creatorRanges.activationTimestamp") ?
+                config.getLong("token.creatorRanges.activationTimestamp") : Long.MAX_VALUE;
+    }
+
+    /**
+     * Check the tokens declared by a single transaction, as done on its admission to the mempool.
+     * A transaction already found valid at the current token info version is not checked again.
+     * @return the reason of the rejection, empty if all the tokens are valid
+     */
+    public Optional<TokenValidationError> validateTransaction(CreateTokensTransaction transaction, long timestamp) {
+        long version = IDInfoDbService.getVersion();
+        if (resultCache.isValid(transaction.id(), version)) {
+            // The cached result may predate the activation of the creator ranges.
+            return timestamp < creatorRangesActivation || inCreatorRanges(tokenBoxesOf(transaction)) ?
+                    Optional.empty() : Optional.of(TokenValidationError.IdOutOfCreatorRange);
+        }
+        Optional<TokenValidationError> error = validate(Collections.singletonList(transaction), timestamp);
+        if (!error.isPresent()) {
+            resultCache.putValid(transaction.id(), version);
+        }
+        return error;
+    }
+
+    /**
+     * Drop all the cached validation results, when the token info storage is changed.
+     */
+    public void invalidateCache() {
+        resultCache.invalidate();
+    }
+
+    /**
+     * Check the tokens declared by the given transactions.
+     * @param timestamp the timestamp of the block, in seconds, or the current time for the transactions out of a block
+     * @return the reason of the rejection, empty if all the tokens are valid
+     */
+    public Optional<TokenValidationError> validate(List<CreateTokensTransaction> transactions, long timestamp) {
+        long version = IDInfoDbService.getVersion();
+        // The tokens of the transactions already validated at this version are only checked against the other transactions.
+        List<TokenBox> tokenBoxes = new ArrayList<>();
+        List<TokenBox> vettedTokenBoxes = new ArrayList<>();
+        for (CreateTokensTransaction transaction : transactions) {
+            List<TokenBox> target = resultCache.isValid(transaction.id(), version) ? vettedTokenBoxes : tokenBoxes;
+            target.addAll(tokenBoxesOf(transaction));
+        }
+
+        // The range check is cheap and the cached results may predate the activation, so it is done for all the tokens.
+        if (timestamp >= creatorRangesActivation &&
+                (!inCreatorRanges(tokenBoxes) || !inCreatorRanges(vettedTokenBoxes))) {
+            return Optional.of(TokenValidationError.IdOutOfCreatorRange);
+        }
+
+        Set<String> declaredIds = ConcurrentHashMap.newKeySet(tokenBoxes.size() + vettedTokenBoxes.size());
+        ConcurrentHashMap<String, LongAdder> typeCount = new ConcurrentHashMap<>();
+        AtomicReference<TokenValidationError> error = new AtomicReference<>();
+
+        for (TokenBox box : vettedTokenBoxes) {
+            if (!declaredIds.add(box.getID())) {
+                return Optional.of(TokenValidationError.DuplicatedId);
+            }
+            typeCount.computeIfAbsent(box.getType(), type -> new LongAdder()).increment();
+        }
+
+        if (tokenBoxes.size() < PARALLEL_THRESHOLD) {
+            tokenBoxes.forEach(box -> checkTokenBox(box, declaredIds, typeCount, error));
+        } else {
+            try {
+                pool.submit(() -> tokenBoxes.parallelStream().forEach(box -> checkTokenBox(box, declaredIds, typeCount, error))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Token validation was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error during token validation.", e.getCause());
+            }
+        }
+        if (error.get() != null) {
+            return Optional.of(error.get());
+        }
+
+        // Check that the max limit of token is not reached
+        for (Map.Entry<String, LongAdder> entry : typeCount.entrySet()) {
+            Integer limit = this.maxTokenPerType.get(entry.getKey());
+            if (limit == null) {
+                return Optional.of(TokenValidationError.UnknownType);
+            }
+            if (IDInfoDbService.getTypeCount(entry.getKey()) + entry.getValue().sum() > limit) {
+                return Optional.of(TokenValidationError.TypeLimitExceeded);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void checkTokenBox(TokenBox box, Set<String> declaredIds, ConcurrentHashMap<String, LongAdder> typeCount,
+                               AtomicReference<TokenValidationError> error) {
+        // Stop as soon as some other token was rejected.
+        if (error.get() != null) {
+            return;
+        }
+        // Check that only the propositions specified in the config are able to create tokens of this type
+        if (!creatorAuthorization.canCreate(box.proposition(), box.getType())) {
+            error.compareAndSet(null, TokenValidationError.CreatorNotAllowed);
+            return;
+        }
+        // Check that token ID is declared only once in the checked transactions
+        if (!declaredIds.add(box.getID())) {
+            error.compareAndSet(null, TokenValidationError.DuplicatedId);
+            return;
+        }
+        // Check that token ID is not already used
+        if (!IDInfoDbService.validateId(box.getID(), false)) {
+            error.compareAndSet(null, TokenValidationError.IdAlreadyExists);
+            return;
+        }
+        typeCount.computeIfAbsent(box.getType(), type -> new LongAdder()).increment();
+    }
+
+    private static List<TokenBox> tokenBoxesOf(CreateTokensTransaction transaction) {
+        List<TokenBox> tokenBoxes = new ArrayList<>();
+        for (NoncedBox<Proposition> box : transaction.newBoxes()) {
+            if (TokenBox.class.isInstance(box)) {
+                tokenBoxes.add(TokenBox.class.cast(box));
+            }
+        }
+        return tokenBoxes;
+    }
+
+    // Check that no allocator ID is taken from the range reserved to another creator.
+    private boolean inCreatorRanges(List<TokenBox> tokenBoxes) {
+        for (TokenBox box : tokenBoxes) {
+            int slot = TokenIdAllocator.slotOf(box.getID());
+            if (slot > 0 && slot != creatorAuthorization.slotOf(box.proposition())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
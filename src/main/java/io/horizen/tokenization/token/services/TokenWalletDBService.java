@@ -0,0 +1,208 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.horizen.box.Box;
+import com.horizen.node.NodeWallet;
+import com.horizen.proposition.Proposition;
+import com.horizen.storage.Storage;
+import com.horizen.utils.ByteArrayWrapper;
+import com.horizen.utils.Pair;
+import io.horizen.tokenization.token.box.TokenBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This service manages a local db with the TokenBoxes owned by the node wallet, stored by box id.
+ * The db is updated with the same versions of the wallet, so it can be rolled back together with it.
+ * The boxes are also indexed in memory by box id, by token ID and by type: the indexes are loaded from the db at
+ * startup and after a rollback, and kept current on every wallet change, so all the lookups are constant time.
+ * When the db is empty, as on the first start of a node upgraded from a version without it, or when the wallet is
+ * rolled back to a version the db doesn't know, the indexes are loaded from the node wallet on first use instead,
+ * and their whole content is written to the db with the next wallet change.
+ */
+@Singleton
+public class TokenWalletDBService {
+
+    private Storage tokenWalletStorage;
+
+    private final ConcurrentHashMap<ByteArrayWrapper, TokenBox> boxesById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBox> boxesByTokenId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<ByteArrayWrapper>> boxIdsByType = new ConcurrentHashMap<>();
+    // False until the indexes hold all the wallet TokenBoxes, read either from the db or from the node wallet.
+    private volatile boolean loaded = false;
+    // True when the indexes were loaded from the node wallet and are not yet in the db.
+    private boolean pendingPersist = false;
+    protected Logger log = LoggerFactory.getLogger(TokenWalletDBService.class.getName());
+
+    @Inject
+    public TokenWalletDBService(@Named("TokenWalletStorage") Storage tokenWalletStorage) {
+        this.tokenWalletStorage = tokenWalletStorage;
+        if (!tokenWalletStorage.isEmpty()) {
+            loadIndexes();
+        }
+    }
+
+    /**
+     * Apply the wallet changes of the given version: the new TokenBoxes are added, and the removed ones are deleted.
+     * The db is updated even without TokenBox changes, so that every wallet version can be rolled back to.
+     */
+    public synchronized void update(byte[] version, List<Box<Proposition>> boxesToUpdate, List<byte[]> boxIdsToRemove) {
+        // Nothing to track before the first load: all the boxes will be taken from the wallet.
+        if (!loaded) {
+            return;
+        }
+        List<Pair<ByteArrayWrapper, ByteArrayWrapper>> toUpdate = new ArrayList<>();
+        List<ByteArrayWrapper> toRemove = new ArrayList<>();
+
+        for (byte[] boxId : boxIdsToRemove) {
+            ByteArrayWrapper key = new ByteArrayWrapper(boxId);
+            if (boxesById.containsKey(key)) {
+                toRemove.add(key);
+            }
+        }
+        List<TokenBox> tokenBoxes = new ArrayList<>();
+        for (Box<Proposition> box : boxesToUpdate) {
+            if (TokenBox.class.isInstance(box)) {
+                TokenBox tokenBox = TokenBox.class.cast(box);
+                tokenBoxes.add(tokenBox);
+                toUpdate.add(new Pair<>(new ByteArrayWrapper(tokenBox.id()), new ByteArrayWrapper(tokenBox.typedBytes())));
+            }
+        }
+
+        if (pendingPersist) {
+            // The db doesn't have the boxes loaded from the wallet yet: write the whole content after this change.
+            for (ByteArrayWrapper boxId : toRemove) {
+                removeFromIndexes(boxId);
+            }
+            for (TokenBox tokenBox : tokenBoxes) {
+                addToIndexes(tokenBox);
+            }
+            toUpdate.clear();
+            toRemove.clear();
+            for (TokenBox tokenBox : boxesById.values()) {
+                toUpdate.add(new Pair<>(new ByteArrayWrapper(tokenBox.id()), new ByteArrayWrapper(tokenBox.typedBytes())));
+            }
+            tokenWalletStorage.update(new ByteArrayWrapper(version), toUpdate, toRemove);
+            pendingPersist = false;
+            return;
+        }
+
+        tokenWalletStorage.update(new ByteArrayWrapper(version), toUpdate, toRemove);
+
+        for (ByteArrayWrapper boxId : toRemove) {
+            removeFromIndexes(boxId);
+        }
+        for (TokenBox tokenBox : tokenBoxes) {
+            addToIndexes(tokenBox);
+        }
+    }
+
+    public synchronized void rollback(byte[] version) {
+        if (hasVersion(version)) {
+            tokenWalletStorage.rollback(new ByteArrayWrapper(version));
+            pendingPersist = false;
+            loadIndexes();
+        } else {
+            // The db was created or bootstrapped after the given version: the rolled back wallet is read on first use.
+            log.info("TokenWalletStorage doesn't know the rollback version, the token boxes will be loaded from the wallet");
+            clearIndexes();
+            loaded = false;
+        }
+    }
+
+    /**
+     * @param wallet the node wallet, used to load the indexes if needed
+     */
+    public Optional<TokenBox> getTokenBoxByBoxId(NodeWallet wallet, byte[] boxId) {
+        ensureLoaded(wallet);
+        return Optional.ofNullable(boxesById.get(new ByteArrayWrapper(boxId)));
+    }
+
+    public Optional<TokenBox> getTokenBoxByTokenId(NodeWallet wallet, String tokenId) {
+        ensureLoaded(wallet);
+        return Optional.ofNullable(boxesByTokenId.get(tokenId));
+    }
+
+    public List<TokenBox> getTokenBoxesByType(NodeWallet wallet, String type) {
+        ensureLoaded(wallet);
+        List<TokenBox> tokenBoxes = new ArrayList<>();
+        for (ByteArrayWrapper boxId : boxIdsByType.getOrDefault(type, Collections.emptySet())) {
+            TokenBox tokenBox = boxesById.get(boxId);
+            if (tokenBox != null) {
+                tokenBoxes.add(tokenBox);
+            }
+        }
+        return tokenBoxes;
+    }
+
+    public List<TokenBox> getAllTokenBoxes(NodeWallet wallet) {
+        ensureLoaded(wallet);
+        return new ArrayList<>(boxesById.values());
+    }
+
+    private void ensureLoaded(NodeWallet wallet) {
+        if (!loaded) {
+            loadFromWallet(wallet);
+        }
+    }
+
+    private synchronized void loadFromWallet(NodeWallet wallet) {
+        if (loaded) {
+            return;
+        }
+        clearIndexes();
+        for (Box<Proposition> box : wallet.boxesOfType(TokenBox.class)) {
+            addToIndexes(TokenBox.class.cast(box));
+        }
+        pendingPersist = true;
+        loaded = true;
+        log.info("TokenWalletStorage bootstrapped from the wallet with: " + boxesById.size() + " token boxes");
+    }
+
+    private boolean hasVersion(byte[] version) {
+        ByteArrayWrapper versionWrapper = new ByteArrayWrapper(version);
+        if (tokenWalletStorage.lastVersionID().map(versionWrapper::equals).orElse(false)) {
+            return true;
+        }
+        return tokenWalletStorage.rollbackVersions().contains(versionWrapper);
+    }
+
+    private void loadIndexes() {
+        clearIndexes();
+        for (Pair<ByteArrayWrapper, ByteArrayWrapper> element : tokenWalletStorage.getAll()) {
+            addToIndexes(TokenBox.parseTypedBytes(element.getValue().data()));
+        }
+        loaded = true;
+        log.debug("TokenWalletStorage now contains: " + boxesById.size() + " token boxes");
+    }
+
+    private void clearIndexes() {
+        boxesById.clear();
+        boxesByTokenId.clear();
+        boxIdsByType.clear();
+    }
+
+    private void addToIndexes(TokenBox tokenBox) {
+        ByteArrayWrapper boxId = new ByteArrayWrapper(tokenBox.id());
+        boxesById.put(boxId, tokenBox);
+        boxesByTokenId.put(tokenBox.getID(), tokenBox);
+        boxIdsByType.computeIfAbsent(tokenBox.getType(), type -> ConcurrentHashMap.newKeySet()).add(boxId);
+    }
+
+    private void removeFromIndexes(ByteArrayWrapper boxId) {
+        TokenBox tokenBox = boxesById.remove(boxId);
+        if (tokenBox == null) {
+            return;
+        }
+        boxesByTokenId.remove(tokenBox.getID(), tokenBox);
+        Set<ByteArrayWrapper> typeBoxIds = boxIdsByType.get(tokenBox.getType());
+        if (typeBoxIds != null) {
+            typeBoxIds.remove(boxId);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.horizen.tokenization.token.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the transactions whose declared tokens were found valid, each with the IDInfoDBService version
+ * they were checked against. A transaction admitted to the mempool is checked again when its block is validated:
+ * if the token info storage did not change in the meantime, its per-token checks (creator, ID not on the chain,
+ * known type) still hold and only the constraints across the block transactions must be verified.
+ * Only valid outcomes are stored, and an entry is a hit only at the version it was recorded with.
+ * When the cache is full, the least recently used entry is evicted.
+ */
+public class ValidationResultCache {
+
+    private final Map<String, Long> validatedAt;
+
+    public ValidationResultCache(int maxEntries) {
+        // Access ordered, so the eldest entry is the least recently used one.
+        this.validatedAt = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized boolean isValid(String transactionId, long version) {
+        Long validatedVersion = validatedAt.get(transactionId);
+        return validatedVersion != null && validatedVersion == version;
+    }
+
+    public synchronized void putValid(String transactionId, long version) {
+        validatedAt.put(transactionId, version);
+    }
+
+    public synchronized void invalidate() {
+        validatedAt.clear();
+    }
+
+    public synchronized int size() {
+        return validatedAt.size();
+    }
+}
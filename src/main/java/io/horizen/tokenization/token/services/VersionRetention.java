@@ -0,0 +1,28 @@
+package io.horizen.tokenization.token.services;
+
+import com.typesafe.config.Config;
+
+/**
+ * Number of last state versions the token storages keep on disk: token.retainedVersions, by default two withdrawal
+ * epochs. The token services also keep the changes of these versions in memory, so that a rollback within them doesn't
+ * read their in-memory data again from the storages, and to answer the queries about past versions.
+ * It must cover the deepest rollback of the node: a rollback to an older version fails before any token storage is
+ * changed, so the storages are never left at different versions.
+ */
+public final class VersionRetention {
+
+    private static final int DEFAULT_RETAINED_VERSIONS = 200;
+
+    private VersionRetention() {
+    }
+
+    public static int retainedVersions(Config config) {
+        if (config.hasPath("token.retainedVersions")) {
+            return Math.max(1, config.getInt("token.retainedVersions"));
+        }
+        if (config.hasPath("scorex.genesis.withdrawalEpochLength")) {
+            return Math.max(1, 2 * config.getInt("scorex.genesis.withdrawalEpochLength"));
+        }
+        return DEFAULT_RETAINED_VERSIONS;
+    }
+}
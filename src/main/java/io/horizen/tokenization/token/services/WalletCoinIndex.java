@@ -0,0 +1,86 @@
+package io.horizen.tokenization.token.services;
+
+import com.google.inject.Singleton;
+import com.horizen.box.Box;
+import com.horizen.box.RegularBox;
+import com.horizen.node.NodeWallet;
+import com.horizen.proposition.Proposition;
+import com.horizen.utils.ByteArrayWrapper;
+import io.horizen.tokenization.token.coinselection.Coin;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * This index keeps the RegularBoxes of the node wallet sorted by value, to be used by the coin selection.
+ * It is kept current by the application wallet changes. The content is loaded from the wallet on first use, and
+ * loaded again after a rollback, when the wallet is not notified of the single boxes restored.
+ */
+@Singleton
+public class WalletCoinIndex {
+
+    private final ConcurrentSkipListSet<Coin> coins = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<ByteArrayWrapper, Coin> coinsById = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public synchronized void onChangeBoxes(List<Box<Proposition>> boxesToUpdate, List<byte[]> boxIdsToRemove) {
+        // Nothing to track before the first load: all the boxes will be taken from the wallet.
+        if (!loaded) {
+            return;
+        }
+        for (byte[] boxId : boxIdsToRemove) {
+            Coin coin = coinsById.remove(new ByteArrayWrapper(boxId));
+            if (coin != null) {
+                coins.remove(coin);
+            }
+        }
+        for (Box<Proposition> box : boxesToUpdate) {
+            if (RegularBox.class.isInstance(box)) {
+                add(box);
+            }
+        }
+    }
+
+    public synchronized void invalidate() {
+        loaded = false;
+        coins.clear();
+        coinsById.clear();
+    }
+
+    /**
+     * Get the wallet coins sorted by ascending value.
+     * @param wallet the node wallet, used to load the index if needed
+     */
+    public NavigableSet<Coin> coins(NodeWallet wallet) {
+        if (!loaded) {
+            load(wallet);
+        }
+        return Collections.unmodifiableNavigableSet(coins);
+    }
+
+    public int size() {
+        return coins.size();
+    }
+
+    private synchronized void load(NodeWallet wallet) {
+        if (loaded) {
+            return;
+        }
+        for (Box<Proposition> box : wallet.boxesOfType(RegularBox.class)) {
+            add(box);
+        }
+        loaded = true;
+    }
+
+    private void add(Box<Proposition> box) {
+        Coin coin = new Coin(box);
+        Coin previous = coinsById.put(new ByteArrayWrapper(coin.id()), coin);
+        if (previous != null) {
+            coins.remove(previous);
+        }
+        coins.add(coin);
+    }
+}
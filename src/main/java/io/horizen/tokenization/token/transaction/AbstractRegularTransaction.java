@@ -8,6 +8,9 @@ import com.horizen.proof.Signature25519Serializer;
 import com.horizen.proposition.Proposition;
 import com.horizen.transaction.SidechainTransaction;
 import com.horizen.utils.ListSerializer;
+import scorex.core.NodeViewModifier$;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -30,7 +33,12 @@ public abstract class AbstractRegularTransaction extends SidechainTransaction<Pr
     protected static ListSerializer<RegularBoxData> regularBoxDataListSerializer =
             new ListSerializer<>(RegularBoxDataSerializer.getSerializer(), MAX_TRANSACTION_NEW_BOXES);
 
-    private List<NoncedBox<Proposition>> newBoxes;
+    // Lazily computed values. Transactions are immutable, so concurrent callers can at most compute the same value twice:
+    // each field is written once with a fully built object, and volatile makes it safely visible to other threads.
+    private volatile List<BoxUnlocker<Proposition>> unlockers;
+    private volatile List<NoncedBox<Proposition>> newBoxes;
+    private volatile byte[] bytes;
+    private volatile byte[] messageToSign;
 
     public AbstractRegularTransaction(List<byte[]> inputRegularBoxIds,              // regular box ids to spent
                                       List<Signature25519> inputRegularBoxProofs,   // proofs to spent regular boxes
@@ -51,9 +59,19 @@ public abstract class AbstractRegularTransaction extends SidechainTransaction<Pr
 
     // Box ids to open and proofs is expected to be aggregated together and represented as Unlockers.
     // Important: all boxes which must be opened as a part of the Transaction MUST be represented as Unlocker.
+    // All the transactions expected to be immutable, so we keep this list cached to avoid redundant calculations.
     @Override
-    public List<BoxUnlocker<Proposition>> unlockers() {
-        // All the transactions expected to be immutable, so we keep this list cached to avoid redundant calculations.
+    public final List<BoxUnlocker<Proposition>> unlockers() {
+        List<BoxUnlocker<Proposition>> result = unlockers;
+        if (result == null) {
+            result = Collections.unmodifiableList(buildUnlockers());
+            unlockers = result;
+        }
+        return result;
+    }
+
+    // Build the unlockers of the regular inputs. Custom transactions append their own unlockers to this list.
+    protected List<BoxUnlocker<Proposition>> buildUnlockers() {
         List<BoxUnlocker<Proposition>> unlockers = new ArrayList<>();
         // Fill the list with the regular inputs.
         for (int i = 0; i < inputRegularBoxIds.size() && i < inputRegularBoxProofs.size(); i++) {
@@ -80,16 +98,101 @@ public abstract class AbstractRegularTransaction extends SidechainTransaction<Pr
     // The check for proper nonce is defined in SidechainTransaction.semanticValidity method.
     // Such an algorithm is needed to disallow box ids manipulation and different vulnerabilities related to this.
     @Override
-    public List<NoncedBox<Proposition>> newBoxes() {
-        if(newBoxes == null) {
-            newBoxes = new ArrayList<>();
-            for (int i = 0; i < outputRegularBoxesData.size(); i++) {
-                long nonce = getNewBoxNonce(outputRegularBoxesData.get(i).proposition(), i);
-                RegularBoxData boxData = outputRegularBoxesData.get(i);
-                newBoxes.add((NoncedBox) new RegularBox(boxData, nonce));
-            }
+    public final List<NoncedBox<Proposition>> newBoxes() {
+        List<NoncedBox<Proposition>> result = newBoxes;
+        if (result == null) {
+            result = Collections.unmodifiableList(buildNewBoxes());
+            newBoxes = result;
+        }
+        return result;
+    }
+
+    // Build the regular output boxes. Custom transactions append their own boxes to this list.
+    protected List<NoncedBox<Proposition>> buildNewBoxes() {
+        List<NoncedBox<Proposition>> newBoxes = new ArrayList<>();
+        for (int i = 0; i < outputRegularBoxesData.size(); i++) {
+            long nonce = getNewBoxNonce(outputRegularBoxesData.get(i).proposition(), i);
+            RegularBoxData boxData = outputRegularBoxesData.get(i);
+            newBoxes.add((NoncedBox) new RegularBox(boxData, nonce));
+        }
+        return newBoxes;
+    }
+
+    // The serialized transaction is cached: the SDK asks for it to get the id, to broadcast and to store the transaction.
+    // The returned array is shared, so it must not be modified.
+    @Override
+    public final byte[] bytes() {
+        byte[] result = bytes;
+        if (result == null) {
+            result = serializer().toBytes(this);
+            bytes = result;
+        }
+        return result;
+    }
+
+    // The message to sign depends on the unlockers and the new boxes only, and it is checked for each of the proofs.
+    // The returned array is shared, so it must not be modified.
+    @Override
+    public final byte[] messageToSign() {
+        byte[] result = messageToSign;
+        if (result == null) {
+            result = super.messageToSign();
+            messageToSign = result;
         }
-        return Collections.unmodifiableList(newBoxes);
+        return result;
+    }
+
+    // Write the transaction straight into the given writer. Used by the serializer of each transaction type.
+    public abstract void serialize(Writer writer);
+
+    // Write the parent class entries straight into the given writer: fee, timestamp, regular inputs and outputs.
+    // The byte layout is the one of the original 'bytes()': fixed size fee and timestamp, then each list as a section
+    // prefixed by its length in bytes. The specific transaction data is expected to be written right after them.
+    protected void serializeRegularData(Writer writer) {
+        TransactionSections.putLong(writer, fee);
+        TransactionSections.putLong(writer, timestamp);
+
+        TransactionSections.putInt(writer, inputRegularBoxIds.size() * NodeViewModifier$.MODULE$.ModifierIdSize());
+        for (byte[] id : inputRegularBoxIds)
+            writer.putBytes(id);
+
+        Writer proofsWriter = writer.newWriter();
+        regularBoxProofsSerializer.serialize(inputRegularBoxProofs, proofsWriter);
+        TransactionSections.putSection(writer, proofsWriter);
+
+        Writer outputsWriter = writer.newWriter();
+        regularBoxDataListSerializer.serialize(outputRegularBoxesData, outputsWriter);
+        TransactionSections.putSection(writer, outputsWriter);
+    }
+
+    // Read the regular input box ids section written by 'serializeRegularData()', right after fee and timestamp.
+    protected static List<byte[]> parseInputRegularBoxIds(Reader reader) {
+        int size = TransactionSections.getInt(reader);
+        int idLength = NodeViewModifier$.MODULE$.ModifierIdSize();
+        if (size < 0 || size % idLength != 0 || size / idLength > MAX_TRANSACTION_UNLOCKERS)
+            throw new IllegalArgumentException("Invalid size of regular inputs: " + size);
+
+        int inputsCount = size / idLength;
+        List<byte[]> inputRegularBoxIds = new ArrayList<>(inputsCount);
+        for (int i = 0; i < inputsCount; i++)
+            inputRegularBoxIds.add(reader.getBytes(idLength));
+        return inputRegularBoxIds;
+    }
+
+    // Read the regular input proofs section written by 'serializeRegularData()', right after the input box ids.
+    protected static List<Signature25519> parseInputRegularBoxProofs(Reader reader) {
+        int sectionEnd = TransactionSections.getSectionEnd(reader);
+        List<Signature25519> inputRegularBoxProofs = regularBoxProofsSerializer.parse(reader);
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
+        return inputRegularBoxProofs;
+    }
+
+    // Read the regular outputs section written by 'serializeRegularData()', right after the input proofs.
+    protected static List<RegularBoxData> parseOutputRegularBoxesData(Reader reader) {
+        int sectionEnd = TransactionSections.getSectionEnd(reader);
+        List<RegularBoxData> outputRegularBoxesData = regularBoxDataListSerializer.parse(reader);
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
+        return outputRegularBoxesData;
     }
 
     @Override
@@ -1,8 +1,5 @@
 package io.horizen.tokenization.token.transaction;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
 import com.horizen.box.BoxUnlocker;
 import com.horizen.box.NoncedBox;
 import com.horizen.box.RegularBox;
@@ -12,14 +9,11 @@ import com.horizen.proof.Proof;
 import com.horizen.proof.Signature25519;
 import com.horizen.proposition.Proposition;
 import com.horizen.transaction.TransactionSerializer;
-import com.horizen.utils.BytesUtils;
 import io.horizen.tokenization.token.info.TokenBuyOrderInfo;
-import scorex.core.NodeViewModifier$;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import static io.horizen.tokenization.token.transaction.TokenTransactionsIdsEnum.BuyTokenTransactionId;
@@ -38,8 +32,6 @@ public final class BuyTokenTransaction extends AbstractRegularTransaction {
     // new instance of CarBoxData the owned by the buyer and RegularBoxData with the payment to previous owner.
     private final TokenBuyOrderInfo tokenBuyOrderInfo;
 
-    private List<NoncedBox<Proposition>> newBoxes;
-
     public BuyTokenTransaction(List<byte[]> inputRegularBoxIds,
                              List<Signature25519> inputRegularBoxProofs,
                              List<RegularBoxData> outputRegularBoxesData,
@@ -58,9 +50,9 @@ public final class BuyTokenTransaction extends AbstractRegularTransaction {
 
     // Override unlockers to contains regularBoxes from the parent class appended with CarSellOrderBox entry.
     @Override
-    public List<BoxUnlocker<Proposition>> unlockers() {
+    protected List<BoxUnlocker<Proposition>> buildUnlockers() {
         // Get Regular unlockers from base class.
-        List<BoxUnlocker<Proposition>> unlockers = super.unlockers();
+        List<BoxUnlocker<Proposition>> unlockers = super.buildUnlockers();
 
         BoxUnlocker<Proposition> unlocker = new BoxUnlocker<Proposition>() {
             @Override
@@ -82,92 +74,43 @@ public final class BuyTokenTransaction extends AbstractRegularTransaction {
     // Override newBoxes to contains regularBoxes from the parent class appended with CarBox and payment entries.
     // The nonce calculation algorithm for Boxes is the same as in parent class.
     @Override
-    public List<NoncedBox<Proposition>> newBoxes() {
-        if(newBoxes == null) {
-            // Get new boxes from base class.
-            newBoxes = new ArrayList<>(super.newBoxes());
-
-            // Set CarBox with specific owner depends on proof. See CarBuyOrderInfo.getNewOwnerCarBoxData() definition.
-            long nonce = getNewBoxNonce(tokenBuyOrderInfo.getNewOwnerTokenBoxData().proposition(), newBoxes.size());
-            newBoxes.add((NoncedBox) new TokenBox(tokenBuyOrderInfo.getNewOwnerTokenBoxData(), nonce));
-
-            // If Sell Order was opened by the buyer -> add payment box for Car previous owner.
-            if (!tokenBuyOrderInfo.isSpentByOwner()) {
-                RegularBoxData paymentBoxData = tokenBuyOrderInfo.getPaymentBoxData();
-                nonce = getNewBoxNonce(paymentBoxData.proposition(), newBoxes.size());
-                newBoxes.add((NoncedBox) new RegularBox(paymentBoxData, nonce));
-            }
+    protected List<NoncedBox<Proposition>> buildNewBoxes() {
+        // Get new boxes from base class.
+        List<NoncedBox<Proposition>> newBoxes = new ArrayList<>(super.buildNewBoxes());
+
+        // Set CarBox with specific owner depends on proof. See CarBuyOrderInfo.getNewOwnerCarBoxData() definition.
+        long nonce = getNewBoxNonce(tokenBuyOrderInfo.getNewOwnerTokenBoxData().proposition(), newBoxes.size());
+        newBoxes.add((NoncedBox) new TokenBox(tokenBuyOrderInfo.getNewOwnerTokenBoxData(), nonce));
+
+        // If Sell Order was opened by the buyer -> add payment box for Car previous owner.
+        if (!tokenBuyOrderInfo.isSpentByOwner()) {
+            RegularBoxData paymentBoxData = tokenBuyOrderInfo.getPaymentBoxData();
+            nonce = getNewBoxNonce(paymentBoxData.proposition(), newBoxes.size());
+            newBoxes.add((NoncedBox) new RegularBox(paymentBoxData, nonce));
         }
-        return Collections.unmodifiableList(newBoxes);
-
+        return newBoxes;
     }
 
-    // Define object serialization, that should serialize both parent class entries and CarBuyOrderInfo as well
+    // Define object serialization, written straight into the given writer without intermediate byte arrays.
     @Override
-    public byte[] bytes() {
-        ByteArrayOutputStream inputsIdsStream = new ByteArrayOutputStream();
-        for(byte[] id: inputRegularBoxIds)
-            inputsIdsStream.write(id, 0, id.length);
-
-        byte[] inputRegularBoxIdsBytes = inputsIdsStream.toByteArray();
-
-        byte[] inputRegularBoxProofsBytes = regularBoxProofsSerializer.toBytes(inputRegularBoxProofs);
-
-        byte[] outputRegularBoxesDataBytes = regularBoxDataListSerializer.toBytes(outputRegularBoxesData);
-
-        byte[] tokenBuyOrderInfoBytes = tokenBuyOrderInfo.bytes();
-
-        return Bytes.concat(
-                Longs.toByteArray(fee()),                               // 8 bytes
-                Longs.toByteArray(timestamp()),                         // 8 bytes
-                Ints.toByteArray(inputRegularBoxIdsBytes.length),       // 4 bytes
-                inputRegularBoxIdsBytes,                                // depends on previous value (>=4 bytes)
-                Ints.toByteArray(inputRegularBoxProofsBytes.length),    // 4 bytes
-                inputRegularBoxProofsBytes,                             // depends on previous value (>=4 bytes)
-                Ints.toByteArray(outputRegularBoxesDataBytes.length),   // 4 bytes
-                outputRegularBoxesDataBytes,                            // depends on previous value (>=4 bytes)
-                Ints.toByteArray(tokenBuyOrderInfoBytes.length),          // 4 bytes
-                tokenBuyOrderInfoBytes                                    // depends on previous value (>=4 bytes)
-        );
+    public void serialize(Writer writer) {
+        serializeRegularData(writer);
+        Writer infoWriter = writer.newWriter();
+        tokenBuyOrderInfo.serialize(infoWriter);
+        TransactionSections.putSection(writer, infoWriter);
     }
 
-    // Define object deserialization similar to 'toBytes()' representation.
-    public static BuyTokenTransaction parseBytes(byte[] bytes) {
-        int offset = 0;
-
-        long fee = BytesUtils.getLong(bytes, offset);
-        offset += 8;
-
-        long timestamp = BytesUtils.getLong(bytes, offset);
-        offset += 8;
-
-        int batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        ArrayList<byte[]> inputRegularBoxIds = new ArrayList<>();
-        int idLength = NodeViewModifier$.MODULE$.ModifierIdSize();
-        while(batchSize > 0) {
-            inputRegularBoxIds.add(Arrays.copyOfRange(bytes, offset, offset + idLength));
-            offset += idLength;
-            batchSize -= idLength;
-        }
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        List<Signature25519> inputRegularBoxProofs = regularBoxProofsSerializer.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        List<RegularBoxData> outputRegularBoxesData = regularBoxDataListSerializer.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        TokenBuyOrderInfo tokenBuyOrderInfo = TokenBuyOrderInfo.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
+    // Define object deserialization similar to 'serialize()' representation.
+    public static BuyTokenTransaction parse(Reader reader) {
+        long fee = TransactionSections.getLong(reader);
+        long timestamp = TransactionSections.getLong(reader);
+        List<byte[]> inputRegularBoxIds = parseInputRegularBoxIds(reader);
+        List<Signature25519> inputRegularBoxProofs = parseInputRegularBoxProofs(reader);
+        List<RegularBoxData> outputRegularBoxesData = parseOutputRegularBoxesData(reader);
+
+        int sectionEnd = TransactionSections.getSectionEnd(reader);
+        TokenBuyOrderInfo tokenBuyOrderInfo = TokenBuyOrderInfo.parse(reader);
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
 
         return new BuyTokenTransaction(inputRegularBoxIds, inputRegularBoxProofs, outputRegularBoxesData, tokenBuyOrderInfo, fee, timestamp);
     }
@@ -18,11 +18,11 @@ public final class BuyTokenTransactionSerializer implements TransactionSerialize
 
     @Override
     public void serialize(BuyTokenTransaction transaction, Writer writer) {
-        writer.putBytes(transaction.bytes());
+        transaction.serialize(writer);
     }
 
     @Override
     public BuyTokenTransaction parse(Reader reader) {
-        return BuyTokenTransaction.parseBytes(reader.getBytes(reader.remaining()));
+        return BuyTokenTransaction.parse(reader);
     }
 }
@@ -0,0 +1,177 @@
+package io.horizen.tokenization.token.transaction;
+
+import com.horizen.box.BoxUnlocker;
+import com.horizen.box.NoncedBox;
+import com.horizen.box.RegularBox;
+import com.horizen.box.data.RegularBoxData;
+import io.horizen.tokenization.token.box.TokenBox;
+import com.horizen.proof.Proof;
+import com.horizen.proof.Signature25519;
+import com.horizen.proposition.Proposition;
+import com.horizen.proposition.PublicKey25519Proposition;
+import com.horizen.transaction.TransactionSerializer;
+import com.horizen.utils.ByteArrayWrapper;
+import io.horizen.tokenization.token.info.TokenBuyOrderInfo;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+import java.util.*;
+
+import static io.horizen.tokenization.token.transaction.TokenTransactionsIdsEnum.BuyTokensTransactionId;
+
+// BuyTokensTransaction is the batched version of BuyTokenTransaction: it opens many SellOrders at once, each of them
+// either accepted by its buyer or cancelled by its owner, sharing the same RegularBoxes inputs to pay the fee and the prices.
+// As outputs it contains possible RegularBoxes(to pay fee and make change), a new TokenBox for each opened SellOrder and
+// one payment RegularBox for each previous owner of the accepted SellOrders, holding the sum of their prices.
+// As unlockers it contains RegularBoxes and all the TokenSellOrderBoxes to open.
+public final class BuyTokensTransaction extends AbstractRegularTransaction {
+
+    // Each TokenBuyOrderInfo describes a sell order to open and who will be the next owner. See BuyTokenTransaction.
+    private final List<TokenBuyOrderInfo> tokenBuyOrderInfos;
+
+    public BuyTokensTransaction(List<byte[]> inputRegularBoxIds,
+                                List<Signature25519> inputRegularBoxProofs,
+                                List<RegularBoxData> outputRegularBoxesData,
+                                List<TokenBuyOrderInfo> tokenBuyOrderInfos,
+                                long fee,
+                                long timestamp) {
+        super(inputRegularBoxIds, inputRegularBoxProofs, outputRegularBoxesData, fee, timestamp);
+        this.tokenBuyOrderInfos = tokenBuyOrderInfos;
+    }
+
+    // Specify the unique custom transaction id.
+    @Override
+    public byte transactionTypeId() {
+        return BuyTokensTransactionId.id();
+    }
+
+    public List<TokenBuyOrderInfo> getTokenBuyOrderInfos() {
+        return Collections.unmodifiableList(tokenBuyOrderInfos);
+    }
+
+    // Override unlockers to contains regularBoxes from the parent class appended with the TokenSellOrderBox entries.
+    @Override
+    protected List<BoxUnlocker<Proposition>> buildUnlockers() {
+        // Get Regular unlockers from base class.
+        List<BoxUnlocker<Proposition>> unlockers = super.buildUnlockers();
+
+        for (TokenBuyOrderInfo tokenBuyOrderInfo : tokenBuyOrderInfos) {
+            BoxUnlocker<Proposition> unlocker = new BoxUnlocker<Proposition>() {
+                @Override
+                public byte[] closedBoxId() {
+                    return tokenBuyOrderInfo.getTokenSellOrderBoxToOpen().id();
+                }
+
+                @Override
+                public Proof boxKey() {
+                    return tokenBuyOrderInfo.getTokenSellOrderSpendingProof();
+                }
+            };
+            unlockers.add(unlocker);
+        }
+
+        return unlockers;
+    }
+
+    // Override newBoxes to contains regularBoxes from the parent class appended with a TokenBox for each opened SellOrder
+    // and the payments for the previous owners.
+    // The nonce calculation algorithm for Boxes is the same as in parent class.
+    @Override
+    protected List<NoncedBox<Proposition>> buildNewBoxes() {
+        // Get new boxes from base class.
+        List<NoncedBox<Proposition>> newBoxes = new ArrayList<>(super.buildNewBoxes());
+
+        // Set TokenBox with specific owner depends on proof. See TokenBuyOrderInfo.getNewOwnerTokenBoxData() definition.
+        for (TokenBuyOrderInfo tokenBuyOrderInfo : tokenBuyOrderInfos) {
+            long nonce = getNewBoxNonce(tokenBuyOrderInfo.getNewOwnerTokenBoxData().proposition(), newBoxes.size());
+            newBoxes.add((NoncedBox) new TokenBox(tokenBuyOrderInfo.getNewOwnerTokenBoxData(), nonce));
+        }
+
+        // The Sell Orders opened by the buyer are paid with a single box per previous owner,
+        // in the order the owners first appear in the transaction.
+        for (RegularBoxData paymentBoxData : getPaymentBoxesData()) {
+            long nonce = getNewBoxNonce(paymentBoxData.proposition(), newBoxes.size());
+            newBoxes.add((NoncedBox) new RegularBox(paymentBoxData, nonce));
+        }
+        return newBoxes;
+    }
+
+    // Coins to be paid to the owners of the Sell orders spent by their buyers, aggregated by owner.
+    public List<RegularBoxData> getPaymentBoxesData() {
+        Map<ByteArrayWrapper, Long> payments = new LinkedHashMap<>();
+        for (TokenBuyOrderInfo tokenBuyOrderInfo : tokenBuyOrderInfos) {
+            if (!tokenBuyOrderInfo.isSpentByOwner()) {
+                RegularBoxData paymentBoxData = tokenBuyOrderInfo.getPaymentBoxData();
+                payments.merge(new ByteArrayWrapper(paymentBoxData.proposition().pubKeyBytes()), paymentBoxData.value(), Math::addExact);
+            }
+        }
+        List<RegularBoxData> paymentBoxesData = new ArrayList<>(payments.size());
+        for (Map.Entry<ByteArrayWrapper, Long> payment : payments.entrySet()) {
+            paymentBoxesData.add(new RegularBoxData(new PublicKey25519Proposition(payment.getKey().data()), payment.getValue()));
+        }
+        return paymentBoxesData;
+    }
+
+    @Override
+    public boolean transactionSemanticValidity() {
+        if (!super.transactionSemanticValidity())
+            return false;
+
+        // At least one order, and each TokenSellOrderBox is opened only once.
+        if (tokenBuyOrderInfos.isEmpty())
+            return false;
+        Set<ByteArrayWrapper> sellOrderBoxIds = new HashSet<>();
+        for (TokenBuyOrderInfo tokenBuyOrderInfo : tokenBuyOrderInfos) {
+            if (!sellOrderBoxIds.add(new ByteArrayWrapper(tokenBuyOrderInfo.getTokenSellOrderBoxToOpen().id())))
+                return false;
+        }
+
+        // The aggregated payments must not overflow.
+        try {
+            getPaymentBoxesData();
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        return true;
+    }
+
+    // Define object serialization, written straight into the given writer without intermediate byte arrays.
+    @Override
+    public void serialize(Writer writer) {
+        serializeRegularData(writer);
+        TransactionSections.putInt(writer, tokenBuyOrderInfos.size());
+        for (TokenBuyOrderInfo tokenBuyOrderInfo : tokenBuyOrderInfos) {
+            Writer infoWriter = writer.newWriter();
+            tokenBuyOrderInfo.serialize(infoWriter);
+            TransactionSections.putSection(writer, infoWriter);
+        }
+    }
+
+    // Define object deserialization similar to 'serialize()' representation.
+    public static BuyTokensTransaction parse(Reader reader) {
+        long fee = TransactionSections.getLong(reader);
+        long timestamp = TransactionSections.getLong(reader);
+        List<byte[]> inputRegularBoxIds = parseInputRegularBoxIds(reader);
+        List<Signature25519> inputRegularBoxProofs = parseInputRegularBoxProofs(reader);
+        List<RegularBoxData> outputRegularBoxesData = parseOutputRegularBoxesData(reader);
+
+        int ordersCount = TransactionSections.getInt(reader);
+        if (ordersCount < 0 || ordersCount > MAX_TRANSACTION_NEW_BOXES)
+            throw new IllegalArgumentException("Invalid number of sell orders to open: " + ordersCount);
+
+        List<TokenBuyOrderInfo> tokenBuyOrderInfos = new ArrayList<>(ordersCount);
+        for (int i = 0; i < ordersCount; i++) {
+            int sectionEnd = TransactionSections.getSectionEnd(reader);
+            tokenBuyOrderInfos.add(TokenBuyOrderInfo.parse(reader));
+            TransactionSections.checkSectionEnd(reader, sectionEnd);
+        }
+
+        return new BuyTokensTransaction(inputRegularBoxIds, inputRegularBoxProofs, outputRegularBoxesData, tokenBuyOrderInfos, fee, timestamp);
+    }
+
+    // Set specific Serializer for BuyTokensTransaction class.
+    @Override
+    public TransactionSerializer serializer() {
+        return BuyTokensTransactionSerializer.getSerializer();
+    }
+}
@@ -0,0 +1,28 @@
+package io.horizen.tokenization.token.transaction;
+
+import com.horizen.transaction.TransactionSerializer;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+public final class BuyTokensTransactionSerializer implements TransactionSerializer<BuyTokensTransaction> {
+
+    private static final BuyTokensTransactionSerializer serializer = new BuyTokensTransactionSerializer();
+
+    private BuyTokensTransactionSerializer() {
+        super();
+    }
+
+    public static BuyTokensTransactionSerializer getSerializer() {
+        return serializer;
+    }
+
+    @Override
+    public void serialize(BuyTokensTransaction transaction, Writer writer) {
+        transaction.serialize(writer);
+    }
+
+    @Override
+    public BuyTokensTransaction parse(Reader reader) {
+        return BuyTokensTransaction.parse(reader);
+    }
+}
@@ -1,24 +1,17 @@
 package io.horizen.tokenization.token.transaction;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
 import com.horizen.box.NoncedBox;
 import com.horizen.box.data.RegularBoxData;
 import io.horizen.tokenization.token.box.TokenBox;
 import com.horizen.proof.Signature25519;
 import com.horizen.proposition.Proposition;
 import com.horizen.transaction.TransactionSerializer;
-import com.horizen.utils.BytesUtils;
 import io.horizen.tokenization.token.box.data.TokenBoxData;
 import io.horizen.tokenization.token.box.data.TokenBoxDataSerializer;
-import scorex.core.NodeViewModifier$;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import static io.horizen.tokenization.token.transaction.TokenTransactionsIdsEnum.CreateTokensTransactionId;
@@ -31,7 +24,6 @@ import static io.horizen.tokenization.token.transaction.TokenTransactionsIdsEnum
 public final class CreateTokensTransaction extends AbstractRegularTransaction {
 
     private final TokenBoxData[] outputTokenBoxData;
-    private List<NoncedBox<Proposition>> newBoxes;
 
     public CreateTokensTransaction(List<byte[]> inputRegularBoxIds,
                                    List<Signature25519> inputRegularBoxProofs,
@@ -50,99 +42,44 @@ public final class CreateTokensTransaction extends AbstractRegularTransaction {
     // Override newBoxes to contains regularBoxes from the parent class appended with CarBox entry.
     // The nonce calculation algorithm for CarBox is the same as in parent class.
     @Override
-    public synchronized List<NoncedBox<Proposition>> newBoxes() {
-        if(newBoxes == null) {
-            newBoxes = new ArrayList<>(super.newBoxes());
-            for (int i=0; i<this.outputTokenBoxData.length; i++) {
-                long nonce = getNewBoxNonce(outputTokenBoxData[i].proposition(), newBoxes.size());
-                newBoxes.add((NoncedBox) new TokenBox(outputTokenBoxData[i], nonce));
-            }
+    protected List<NoncedBox<Proposition>> buildNewBoxes() {
+        List<NoncedBox<Proposition>> newBoxes = new ArrayList<>(super.buildNewBoxes());
+        for (int i=0; i<this.outputTokenBoxData.length; i++) {
+            long nonce = getNewBoxNonce(outputTokenBoxData[i].proposition(), newBoxes.size());
+            newBoxes.add((NoncedBox) new TokenBox(outputTokenBoxData[i], nonce));
         }
-        return Collections.unmodifiableList(newBoxes);
+        return newBoxes;
     }
 
-    // Define object serialization, that should serialize both parent class entries and CarBoxData as well
+    // Define object serialization, written straight into the given writer without intermediate byte arrays.
     @Override
-    public byte[] bytes() {
-        ByteArrayOutputStream inputsIdsStream = new ByteArrayOutputStream();
-        for(byte[] id: inputRegularBoxIds)
-            inputsIdsStream.write(id, 0, id.length);
-
-        ByteArrayOutputStream outputTokenStream = new ByteArrayOutputStream();
-        for(TokenBoxData token: outputTokenBoxData) {
-            try {
-                outputTokenStream.write(Ints.toByteArray(token.bytes().length));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            outputTokenStream.write(token.bytes(), 0, token.bytes().length);
+    public void serialize(Writer writer) {
+        serializeRegularData(writer);
+        TransactionSections.putInt(writer, outputTokenBoxData.length);
+        for (TokenBoxData tokenBoxData : outputTokenBoxData) {
+            Writer tokenWriter = writer.newWriter();
+            TokenBoxDataSerializer.getSerializer().serialize(tokenBoxData, tokenWriter);
+            TransactionSections.putSection(writer, tokenWriter);
         }
-
-        byte[] inputRegularBoxIdsBytes = inputsIdsStream.toByteArray();
-
-        byte[] inputRegularBoxProofsBytes = regularBoxProofsSerializer.toBytes(inputRegularBoxProofs);
-
-        byte[] outputRegularBoxesDataBytes = regularBoxDataListSerializer.toBytes(outputRegularBoxesData);
-
-        byte[] outputTokenBoxDataBytes = outputTokenStream.toByteArray();
-
-        return Bytes.concat(
-                Longs.toByteArray(fee()),                               // 8 bytes
-                Longs.toByteArray(timestamp()),                         // 8 bytes
-                Ints.toByteArray(inputRegularBoxIdsBytes.length),       // 4 bytes
-                inputRegularBoxIdsBytes,                                // depends on previous value (>=4 bytes)
-                Ints.toByteArray(inputRegularBoxProofsBytes.length),    // 4 bytes
-                inputRegularBoxProofsBytes,                             // depends on previous value (>=4 bytes)
-                Ints.toByteArray(outputRegularBoxesDataBytes.length),   // 4 bytes
-                outputRegularBoxesDataBytes,                            // depends on previous value (>=4 bytes)
-                Ints.toByteArray(outputTokenBoxData.length),         // 4 bytes
-                outputTokenBoxDataBytes                                   // depends on previous value (>=4 bytes)
-        );
     }
 
-    // Define object deserialization similar to 'toBytes()' representation.
-    public static CreateTokensTransaction parseBytes(byte[] bytes) {
-        int offset = 0;
-
-        long fee = BytesUtils.getLong(bytes, offset);
-        offset += 8;
-
-        long timestamp = BytesUtils.getLong(bytes, offset);
-        offset += 8;
-
-        int batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        ArrayList<byte[]> inputRegularBoxIds = new ArrayList<>();
-        int idLength = NodeViewModifier$.MODULE$.ModifierIdSize();
-        while(batchSize > 0) {
-            inputRegularBoxIds.add(Arrays.copyOfRange(bytes, offset, offset + idLength));
-            offset += idLength;
-            batchSize -= idLength;
-        }
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        List<Signature25519> inputRegularBoxProofs = regularBoxProofsSerializer.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        List<RegularBoxData> outputRegularBoxesData = regularBoxDataListSerializer.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        int before_offset = offset;
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        TokenBoxData[] outputBoxData = new TokenBoxData[batchSize];
-        for (int i = 0; i < batchSize; i++) {
-            int size = BytesUtils.getInt(bytes, offset);
-            offset += 4;
-            outputBoxData[i] = (TokenBoxDataSerializer.getSerializer().parseBytes(Arrays.copyOfRange(bytes, offset, offset + size)));
-            offset += size;
+    // Define object deserialization similar to 'serialize()' representation.
+    public static CreateTokensTransaction parse(Reader reader) {
+        long fee = TransactionSections.getLong(reader);
+        long timestamp = TransactionSections.getLong(reader);
+        List<byte[]> inputRegularBoxIds = parseInputRegularBoxIds(reader);
+        List<Signature25519> inputRegularBoxProofs = parseInputRegularBoxProofs(reader);
+        List<RegularBoxData> outputRegularBoxesData = parseOutputRegularBoxesData(reader);
+
+        int tokensCount = TransactionSections.getInt(reader);
+        if (tokensCount < 0 || tokensCount > MAX_TRANSACTION_NEW_BOXES)
+            throw new IllegalArgumentException("Invalid number of tokens: " + tokensCount);
+
+        TokenBoxData[] outputBoxData = new TokenBoxData[tokensCount];
+        for (int i = 0; i < tokensCount; i++) {
+            int sectionEnd = TransactionSections.getSectionEnd(reader);
+            outputBoxData[i] = TokenBoxDataSerializer.getSerializer().parse(reader);
+            TransactionSections.checkSectionEnd(reader, sectionEnd);
         }
 
         return new CreateTokensTransaction(inputRegularBoxIds, inputRegularBoxProofs, outputRegularBoxesData, outputBoxData, fee, timestamp);
@@ -18,11 +18,11 @@ public final class CreateTokensTransactionSerializer implements TransactionSeria
 
     @Override
     public void serialize(CreateTokensTransaction transaction, Writer writer) {
-        writer.putBytes(transaction.bytes());
+        transaction.serialize(writer);
     }
 
     @Override
     public CreateTokensTransaction parse(Reader reader) {
-        return CreateTokensTransaction.parseBytes(reader.getBytes(reader.remaining()));
+        return CreateTokensTransaction.parse(reader);
     }
 }
@@ -1,8 +1,5 @@
 package io.horizen.tokenization.token.transaction;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
 import com.horizen.box.BoxUnlocker;
 import com.horizen.box.NoncedBox;
 import com.horizen.box.data.RegularBoxData;
@@ -11,14 +8,11 @@ import com.horizen.proof.Proof;
 import com.horizen.proof.Signature25519;
 import com.horizen.proposition.Proposition;
 import com.horizen.transaction.TransactionSerializer;
-import com.horizen.utils.BytesUtils;
 import io.horizen.tokenization.token.info.TokenSellOrderInfo;
-import scorex.core.NodeViewModifier$;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
 
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import static io.horizen.tokenization.token.transaction.TokenTransactionsIdsEnum.SellTokenTransactionId;
@@ -36,8 +30,6 @@ public final class SellTokenTransaction extends AbstractRegularTransaction {
     // For example, if CarBox was opened, the CarSellOrder obliged to contains the same car attributes and owner info.
     private final TokenSellOrderInfo tokenSellOrderInfo;
 
-    private List<NoncedBox<Proposition>> newBoxes;
-
     public SellTokenTransaction(List<byte[]> inputRegularBoxIds,
                               List<Signature25519> inputRegularBoxProofs,
                               List<RegularBoxData> outputRegularBoxesData,
@@ -56,9 +48,9 @@ public final class SellTokenTransaction extends AbstractRegularTransaction {
 
     // Override unlockers to contains regularBoxes from the parent class appended with CarBox entry to be opened.
     @Override
-    public List<BoxUnlocker<Proposition>> unlockers() {
+    protected List<BoxUnlocker<Proposition>> buildUnlockers() {
         // Get Regular unlockers from base class.
-        List<BoxUnlocker<Proposition>> unlockers = super.unlockers();
+        List<BoxUnlocker<Proposition>> unlockers = super.buildUnlockers();
 
         BoxUnlocker<Proposition> unlocker = new BoxUnlocker<Proposition>() {
             @Override
@@ -80,84 +72,35 @@ public final class SellTokenTransaction extends AbstractRegularTransaction {
     // Override newBoxes to contains regularBoxes from the parent class appended with CarSellOrderBox and payment entries.
     // The nonce calculation algorithm for CarSellOrderBox is the same as in parent class.
     @Override
-    public List<NoncedBox<Proposition>> newBoxes() {
-        if(newBoxes == null) {
-            newBoxes = new ArrayList<>(super.newBoxes());
-            long nonce = getNewBoxNonce(tokenSellOrderInfo.getSellOrderBoxData().proposition(), newBoxes.size());
-            // Here we enforce output CarSellOrder data calculation.
-            // Any malicious action will lead to different inconsistent data to the honest nodes State.
-            newBoxes.add((NoncedBox) new TokenSellOrderBox(tokenSellOrderInfo.getSellOrderBoxData(), nonce));
-
-        }
-        return Collections.unmodifiableList(newBoxes);
+    protected List<NoncedBox<Proposition>> buildNewBoxes() {
+        List<NoncedBox<Proposition>> newBoxes = new ArrayList<>(super.buildNewBoxes());
+        long nonce = getNewBoxNonce(tokenSellOrderInfo.getSellOrderBoxData().proposition(), newBoxes.size());
+        // Here we enforce output CarSellOrder data calculation.
+        // Any malicious action will lead to different inconsistent data to the honest nodes State.
+        newBoxes.add((NoncedBox) new TokenSellOrderBox(tokenSellOrderInfo.getSellOrderBoxData(), nonce));
+        return newBoxes;
     }
 
-    // Define object serialization, that should serialize both parent class entries and CarSellOrderInfo as well
+    // Define object serialization, written straight into the given writer without intermediate byte arrays.
     @Override
-    public byte[] bytes() {
-        ByteArrayOutputStream inputsIdsStream = new ByteArrayOutputStream();
-        for(byte[] id: inputRegularBoxIds)
-            inputsIdsStream.write(id, 0, id.length);
-
-        byte[] inputRegularBoxIdsBytes = inputsIdsStream.toByteArray();
-
-        byte[] inputRegularBoxProofsBytes = regularBoxProofsSerializer.toBytes(inputRegularBoxProofs);
-
-        byte[] outputRegularBoxesDataBytes = regularBoxDataListSerializer.toBytes(outputRegularBoxesData);
-
-        byte[] tokenSellOrderInfoBytes = tokenSellOrderInfo.bytes();
-
-        return Bytes.concat(
-                Longs.toByteArray(fee()),                               // 8 bytes
-                Longs.toByteArray(timestamp()),                         // 8 bytes
-                Ints.toByteArray(inputRegularBoxIdsBytes.length),       // 4 bytes
-                inputRegularBoxIdsBytes,                                // depends on previous value (>=4 bytes)
-                Ints.toByteArray(inputRegularBoxProofsBytes.length),    // 4 bytes
-                inputRegularBoxProofsBytes,                             // depends on previous value (>=4 bytes)
-                Ints.toByteArray(outputRegularBoxesDataBytes.length),   // 4 bytes
-                outputRegularBoxesDataBytes,                            // depends on previous value (>=4 bytes)
-                Ints.toByteArray(tokenSellOrderInfoBytes.length),         // 4 bytes
-                tokenSellOrderInfoBytes                                   // depends on previous value (>=4 bytes)
-        );
+    public void serialize(Writer writer) {
+        serializeRegularData(writer);
+        Writer infoWriter = writer.newWriter();
+        tokenSellOrderInfo.serialize(infoWriter);
+        TransactionSections.putSection(writer, infoWriter);
     }
 
-    // Define object deserialization similar to 'toBytes()' representation.
-    public static SellTokenTransaction parseBytes(byte[] bytes) {
-        int offset = 0;
-
-        long fee = BytesUtils.getLong(bytes, offset);
-        offset += 8;
-
-        long timestamp = BytesUtils.getLong(bytes, offset);
-        offset += 8;
-
-        int batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        ArrayList<byte[]> inputRegularBoxIds = new ArrayList<>();
-        int idLength = NodeViewModifier$.MODULE$.ModifierIdSize();
-        while(batchSize > 0) {
-            inputRegularBoxIds.add(Arrays.copyOfRange(bytes, offset, offset + idLength));
-            offset += idLength;
-            batchSize -= idLength;
-        }
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        List<Signature25519> inputRegularBoxProofs = regularBoxProofsSerializer.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        List<RegularBoxData> outputRegularBoxesData = regularBoxDataListSerializer.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
-        offset += batchSize;
-
-        batchSize = BytesUtils.getInt(bytes, offset);
-        offset += 4;
-
-        TokenSellOrderInfo tokenSellOrderInfo = TokenSellOrderInfo.parseBytes(Arrays.copyOfRange(bytes, offset, offset + batchSize));
+    // Define object deserialization similar to 'serialize()' representation.
+    public static SellTokenTransaction parse(Reader reader) {
+        long fee = TransactionSections.getLong(reader);
+        long timestamp = TransactionSections.getLong(reader);
+        List<byte[]> inputRegularBoxIds = parseInputRegularBoxIds(reader);
+        List<Signature25519> inputRegularBoxProofs = parseInputRegularBoxProofs(reader);
+        List<RegularBoxData> outputRegularBoxesData = parseOutputRegularBoxesData(reader);
+
+        int sectionEnd = TransactionSections.getSectionEnd(reader);
+        TokenSellOrderInfo tokenSellOrderInfo = TokenSellOrderInfo.parse(reader);
+        TransactionSections.checkSectionEnd(reader, sectionEnd);
 
         return new SellTokenTransaction(inputRegularBoxIds, inputRegularBoxProofs, outputRegularBoxesData, tokenSellOrderInfo, fee, timestamp);
     }
@@ -18,11 +18,11 @@ public final class SellTokenTransactionSerializer implements TransactionSerializ
 
     @Override
     public void serialize(SellTokenTransaction transaction, Writer writer) {
-        writer.putBytes(transaction.bytes());
+        transaction.serialize(writer);
     }
 
     @Override
     public SellTokenTransaction parse(Reader reader) {
-        return SellTokenTransaction.parseBytes(reader.getBytes(reader.remaining()));
+        return SellTokenTransaction.parse(reader);
     }
 }
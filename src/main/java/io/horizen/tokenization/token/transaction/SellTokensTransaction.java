@@ -0,0 +1,140 @@
+package io.horizen.tokenization.token.transaction;
+
+import com.horizen.box.BoxUnlocker;
+import com.horizen.box.NoncedBox;
+import com.horizen.box.data.RegularBoxData;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import com.horizen.proof.Proof;
+import com.horizen.proof.Signature25519;
+import com.horizen.proposition.Proposition;
+import com.horizen.transaction.TransactionSerializer;
+import com.horizen.utils.ByteArrayWrapper;
+import io.horizen.tokenization.token.info.TokenSellOrderInfo;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+import java.util.*;
+
+import static io.horizen.tokenization.token.transaction.TokenTransactionsIdsEnum.SellTokensTransactionId;
+
+// SellTokensTransaction is the batched version of SellTokenTransaction: it creates many SellOrders at once,
+// sharing the same RegularBoxes inputs to pay the fee and the same change output.
+// As outputs it contains possible RegularBoxes(to pay fee and make change) and a new TokenSellOrderBox for each order.
+// As unlockers it contains RegularBoxes and all the TokenBoxes to open.
+public final class SellTokensTransaction extends AbstractRegularTransaction {
+
+    // Each TokenSellOrderInfo describes a TokenBox to open and the sell order to be created for it.
+    private final List<TokenSellOrderInfo> tokenSellOrderInfos;
+
+    public SellTokensTransaction(List<byte[]> inputRegularBoxIds,
+                                 List<Signature25519> inputRegularBoxProofs,
+                                 List<RegularBoxData> outputRegularBoxesData,
+                                 List<TokenSellOrderInfo> tokenSellOrderInfos,
+                                 long fee,
+                                 long timestamp) {
+        super(inputRegularBoxIds, inputRegularBoxProofs, outputRegularBoxesData, fee, timestamp);
+        this.tokenSellOrderInfos = tokenSellOrderInfos;
+    }
+
+    // Specify the unique custom transaction id.
+    @Override
+    public byte transactionTypeId() {
+        return SellTokensTransactionId.id();
+    }
+
+    public List<TokenSellOrderInfo> getTokenSellOrderInfos() {
+        return Collections.unmodifiableList(tokenSellOrderInfos);
+    }
+
+    // Override unlockers to contains regularBoxes from the parent class appended with the TokenBox entries to be opened.
+    @Override
+    protected List<BoxUnlocker<Proposition>> buildUnlockers() {
+        // Get Regular unlockers from base class.
+        List<BoxUnlocker<Proposition>> unlockers = super.buildUnlockers();
+
+        for (TokenSellOrderInfo tokenSellOrderInfo : tokenSellOrderInfos) {
+            BoxUnlocker<Proposition> unlocker = new BoxUnlocker<Proposition>() {
+                @Override
+                public byte[] closedBoxId() {
+                    return tokenSellOrderInfo.getTokenBoxToOpen().id();
+                }
+
+                @Override
+                public Proof boxKey() {
+                    return tokenSellOrderInfo.getCarBoxSpendingProof();
+                }
+            };
+            unlockers.add(unlocker);
+        }
+
+        return unlockers;
+    }
+
+    // Override newBoxes to contains regularBoxes from the parent class appended with a TokenSellOrderBox for each order.
+    // The nonce calculation algorithm for TokenSellOrderBox is the same as in parent class.
+    @Override
+    protected List<NoncedBox<Proposition>> buildNewBoxes() {
+        List<NoncedBox<Proposition>> newBoxes = new ArrayList<>(super.buildNewBoxes());
+        for (TokenSellOrderInfo tokenSellOrderInfo : tokenSellOrderInfos) {
+            long nonce = getNewBoxNonce(tokenSellOrderInfo.getSellOrderBoxData().proposition(), newBoxes.size());
+            newBoxes.add((NoncedBox) new TokenSellOrderBox(tokenSellOrderInfo.getSellOrderBoxData(), nonce));
+        }
+        return newBoxes;
+    }
+
+    @Override
+    public boolean transactionSemanticValidity() {
+        if (!super.transactionSemanticValidity())
+            return false;
+
+        // At least one order, and each TokenBox is opened only once.
+        if (tokenSellOrderInfos.isEmpty())
+            return false;
+        Set<ByteArrayWrapper> tokenBoxIds = new HashSet<>();
+        for (TokenSellOrderInfo tokenSellOrderInfo : tokenSellOrderInfos) {
+            if (!tokenBoxIds.add(new ByteArrayWrapper(tokenSellOrderInfo.getTokenBoxToOpen().id())))
+                return false;
+        }
+        return true;
+    }
+
+    // Define object serialization, written straight into the given writer without intermediate byte arrays.
+    @Override
+    public void serialize(Writer writer) {
+        serializeRegularData(writer);
+        TransactionSections.putInt(writer, tokenSellOrderInfos.size());
+        for (TokenSellOrderInfo tokenSellOrderInfo : tokenSellOrderInfos) {
+            Writer infoWriter = writer.newWriter();
+            tokenSellOrderInfo.serialize(infoWriter);
+            TransactionSections.putSection(writer, infoWriter);
+        }
+    }
+
+    // Define object deserialization similar to 'serialize()' representation.
+    public static SellTokensTransaction parse(Reader reader) {
+        long fee = TransactionSections.getLong(reader);
+        long timestamp = TransactionSections.getLong(reader);
+        List<byte[]> inputRegularBoxIds = parseInputRegularBoxIds(reader);
+        List<Signature25519> inputRegularBoxProofs = parseInputRegularBoxProofs(reader);
+        List<RegularBoxData> outputRegularBoxesData = parseOutputRegularBoxesData(reader);
+
+        int ordersCount = TransactionSections.getInt(reader);
+        if (ordersCount < 0 || ordersCount > MAX_TRANSACTION_NEW_BOXES)
+            throw new IllegalArgumentException("Invalid number of sell orders: " + ordersCount);
+
+        List<TokenSellOrderInfo> tokenSellOrderInfos = new ArrayList<>(ordersCount);
+        for (int i = 0; i < ordersCount; i++) {
+            int sectionEnd = TransactionSections.getSectionEnd(reader);
+            tokenSellOrderInfos.add(TokenSellOrderInfo.parse(reader));
+            TransactionSections.checkSectionEnd(reader, sectionEnd);
+        }
+
+        return new SellTokensTransaction(inputRegularBoxIds, inputRegularBoxProofs, outputRegularBoxesData, tokenSellOrderInfos, fee, timestamp);
+    }
+
+    // Set specific Serializer for SellTokensTransaction class.
+    @Override
+    public TransactionSerializer serializer() {
+        return SellTokensTransactionSerializer.getSerializer();
+    }
+}
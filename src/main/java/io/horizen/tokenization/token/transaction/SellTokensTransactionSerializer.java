@@ -0,0 +1,28 @@
+package io.horizen.tokenization.token.transaction;
+
+import com.horizen.transaction.TransactionSerializer;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+public final class SellTokensTransactionSerializer implements TransactionSerializer<SellTokensTransaction> {
+
+    private static SellTokensTransactionSerializer serializer = new SellTokensTransactionSerializer();
+
+    private SellTokensTransactionSerializer() {
+        super();
+    }
+
+    public static SellTokensTransactionSerializer getSerializer() {
+        return serializer;
+    }
+
+    @Override
+    public void serialize(SellTokensTransaction transaction, Writer writer) {
+        transaction.serialize(writer);
+    }
+
+    @Override
+    public SellTokensTransaction parse(Reader reader) {
+        return SellTokensTransaction.parse(reader);
+    }
+}
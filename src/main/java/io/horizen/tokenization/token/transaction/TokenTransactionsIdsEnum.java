@@ -3,7 +3,9 @@ package io.horizen.tokenization.token.transaction;
 public enum TokenTransactionsIdsEnum {
     CreateTokensTransactionId((byte)1),
     SellTokenTransactionId((byte)2),
-    BuyTokenTransactionId((byte)3);
+    BuyTokenTransactionId((byte)3),
+    SellTokensTransactionId((byte)4),
+    BuyTokensTransactionId((byte)5);
 
     private final byte id;
 
@@ -0,0 +1,51 @@
+package io.horizen.tokenization.token.transaction;
+
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import scorex.util.serialization.Reader;
+import scorex.util.serialization.Writer;
+
+// Helpers to write the transactions and their infos with their original byte layout:
+// fixed size integers, and sections prefixed by their length in bytes as a 4-byte integer.
+// Note: Writer.putInt/putLong use a variable length encoding, so they must not be used for these fields.
+public final class TransactionSections {
+
+    private TransactionSections() {
+    }
+
+    public static void putInt(Writer writer, int value) {
+        writer.putBytes(Ints.toByteArray(value));
+    }
+
+    public static void putLong(Writer writer, long value) {
+        writer.putBytes(Longs.toByteArray(value));
+    }
+
+    public static int getInt(Reader reader) {
+        return Ints.fromByteArray(reader.getBytes(Ints.BYTES));
+    }
+
+    public static long getLong(Reader reader) {
+        return Longs.fromByteArray(reader.getBytes(Longs.BYTES));
+    }
+
+    // Write the content of the section writer, obtained with 'writer.newWriter()', prefixed by its length.
+    public static void putSection(Writer writer, Writer section) {
+        putInt(writer, section.length());
+        writer.append(section);
+    }
+
+    // Read the length of a section and return the reader position where the section ends.
+    public static int getSectionEnd(Reader reader) {
+        int size = getInt(reader);
+        if (size < 0 || size > reader.remaining())
+            throw new IllegalArgumentException("Invalid section size: " + size);
+        return reader.position() + size;
+    }
+
+    // Check that the content of a section was read entirely, and nothing beyond it.
+    public static void checkSectionEnd(Reader reader, int sectionEnd) {
+        if (reader.position() != sectionEnd)
+            throw new IllegalArgumentException("Section content doesn't match its size.");
+    }
+}
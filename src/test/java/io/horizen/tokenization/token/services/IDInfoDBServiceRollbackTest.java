@@ -0,0 +1,117 @@
+package io.horizen.tokenization.token.services;
+
+import com.horizen.storage.IODBStorageUtil;
+import com.horizen.storage.Storage;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+// The undo journal keeps only token.retainedVersions versions: the deeper rollbacks go to the storages alone, and the
+// ones the storages can't serve leave everything as it was.
+public class IDInfoDBServiceRollbackTest {
+
+    private File dataDir;
+    private TokenSupplyDBService supplyDBService;
+    private IDInfoDBService idInfoDBService;
+
+    @Before
+    public void setUp() throws IOException {
+        Config config = ConfigFactory.parseString(
+                "token {\n" +
+                "  typeLimit { ABC = 1000 }\n" +
+                "  retainedVersions = 2\n" +
+                "}");
+        dataDir = Files.createTempDirectory("id-info-rollback").toFile();
+        supplyDBService = new TokenSupplyDBService(storage("supply"), config);
+        idInfoDBService = new IDInfoDBService(storage("ids"), supplyDBService, new TokenIdSequenceDBService(storage("sequences")),
+                new MempoolIndex(), new TokenMetrics(), config);
+        for (int i = 1; i <= 4; i++) {
+            apply(i);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        delete(dataDir);
+    }
+
+    @Test
+    public void rollbackBeyondTheJournalIsServedByTheStorages() {
+        idInfoDBService.rollback(version(1));
+
+        assertFalse(idInfoDBService.validateId(id(1), false));
+        for (int i = 2; i <= 4; i++) {
+            assertTrue(idInfoDBService.validateId(id(i), false));
+        }
+        assertEquals(1, supplyDBService.getTypeCount("ABC"));
+
+        // The storages go on from the rolled back version.
+        apply(5);
+        assertFalse(idInfoDBService.validateId(id(5), false));
+        assertEquals(2, supplyDBService.getTypeCount("ABC"));
+    }
+
+    @Test
+    public void rollbackToAVersionNotKeptChangesNothing() {
+        try {
+            // A version the storages no longer keep, as one older than the retained ones.
+            idInfoDBService.rollback(version(0));
+            fail("The rollback to a version not kept by the storages must fail");
+        } catch (IllegalStateException expected) {
+            // the storages are left as they were
+        }
+
+        for (int i = 1; i <= 4; i++) {
+            assertFalse(idInfoDBService.validateId(id(i), false));
+        }
+        assertEquals(4, supplyDBService.getTypeCount("ABC"));
+
+        idInfoDBService.rollback(version(3));
+        assertTrue(idInfoDBService.validateId(id(4), false));
+        assertEquals(3, supplyDBService.getTypeCount("ABC"));
+    }
+
+    private void apply(int i) {
+        HashMap<String, Integer> types = new HashMap<>();
+        types.put("ABC", 1);
+        idInfoDBService.updateAll(version(i), Collections.singleton(id(i)), types);
+    }
+
+    private static byte[] version(int i) {
+        byte[] version = new byte[32];
+        Arrays.fill(version, (byte) i);
+        return version;
+    }
+
+    private static String id(int i) {
+        return "token" + i;
+    }
+
+    private Storage storage(String name) {
+        File directory = new File(dataDir, name);
+        directory.mkdirs();
+        return IODBStorageUtil.getStorage(directory);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,138 @@
+package io.horizen.tokenization.token.services;
+
+import com.horizen.node.NodeMemoryPool;
+import com.horizen.secret.PrivateKey25519;
+import com.horizen.secret.PrivateKey25519Creator;
+import com.horizen.storage.IODBStorageUtil;
+import com.horizen.storage.Storage;
+import com.horizen.utils.BytesUtils;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.box.data.TokenBoxData;
+import io.horizen.tokenization.token.metrics.TokenMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// The slot of an allocator ID takes as many digits as needed, so the creators listed after the 99th get IDs too.
+public class TokenIdAllocatorTest {
+
+    private static final int CREATORS = 120;
+
+    private final List<PrivateKey25519> creators = new ArrayList<>();
+    private File dataDir;
+    private IDInfoDBService idInfoDBService;
+    private TokenIdAllocator allocator;
+
+    @Before
+    public void setUp() throws IOException {
+        StringBuilder propositions = new StringBuilder();
+        for (int i = 0; i < CREATORS; i++) {
+            PrivateKey25519 creator = PrivateKey25519Creator.getInstance().generateSecret(("creator" + i).getBytes());
+            creators.add(creator);
+            propositions.append(i > 0 ? ", " : "").append('"').append(BytesUtils.toHexString(creator.publicImage().bytes())).append('"');
+        }
+        Config config = ConfigFactory.parseString(
+                "token {\n" +
+                "  creatorPropositions = [" + propositions + "]\n" +
+                "  typeLimit { ABC = 1000 }\n" +
+                "}");
+
+        dataDir = Files.createTempDirectory("token-id-allocator").toFile();
+        TokenSupplyDBService supplyDBService = new TokenSupplyDBService(storage("supply"), config);
+        MempoolIndex mempoolIndex = new MempoolIndex();
+        TokenIdSequenceDBService sequenceDBService = new TokenIdSequenceDBService(storage("sequences"));
+        idInfoDBService = new IDInfoDBService(storage("ids"), supplyDBService, sequenceDBService,
+                mempoolIndex, new TokenMetrics(), config);
+        allocator = new TokenIdAllocator(idInfoDBService, sequenceDBService, mempoolIndex, new CreatorAuthorization(config));
+    }
+
+    @After
+    public void tearDown() {
+        delete(dataDir);
+    }
+
+    @Test
+    public void slotAndSequenceAreFoundFromTheIdLength() {
+        for (int slot : Arrays.asList(1, 99, 100, 12345, TokenIdAllocator.MAX_SLOT)) {
+            String id = TokenIdAllocator.formatId(slot, 42);
+            assertEquals(slot, TokenIdAllocator.slotOf(id));
+            assertEquals(42, TokenIdAllocator.sequenceOf(id));
+        }
+        assertEquals("0100000001", TokenIdAllocator.formatId(1, 1));
+        assertEquals("10000000001", TokenIdAllocator.formatId(100, 1));
+    }
+
+    @Test
+    public void otherIdsAreNotInTheAllocatorFormat() {
+        for (String id : Arrays.asList("0000000001", "01000000001", "100000001", "12345678901234567", "01234567a9", "legacy-id")) {
+            assertEquals(-1, TokenIdAllocator.slotOf(id));
+            assertEquals(-1, TokenIdAllocator.sequenceOf(id));
+        }
+    }
+
+    @Test
+    public void creatorAfterTheFirst99GetsIdsInItsRange() {
+        PrivateKey25519 creator = creators.get(100);
+        List<String> ids = allocator.allocate(BytesUtils.toHexString(creator.publicImage().bytes()), 3, emptyMemoryPool());
+
+        assertEquals(Arrays.asList("10100000001", "10100000002", "10100000003"), ids);
+        for (String id : ids) {
+            TokenBox box = new TokenBox(new TokenBoxData(creator.publicImage(), id, "ABC"), 1);
+            assertEquals(id, TokenBox.parseTypedBytes(box.typedBytes()).getID());
+        }
+    }
+
+    @Test
+    public void allocationContinuesAboveTheDeclaredSequences() {
+        PrivateKey25519 creator = creators.get(0);
+        HashMap<String, Integer> types = new HashMap<>();
+        types.put("ABC", 1);
+        idInfoDBService.updateAll(new byte[32], Collections.singleton("0100000007"), types);
+
+        List<String> ids = allocator.allocate(BytesUtils.toHexString(creator.publicImage().bytes()), 1, emptyMemoryPool());
+        assertEquals(Collections.singletonList("0100000008"), ids);
+        // The sequences are kept apart: only the declared token ID is in the token info storage.
+        assertFalse(idInfoDBService.validateId("0100000007", false));
+        assertTrue(idInfoDBService.validateId("0100000008", false));
+    }
+
+    private Storage storage(String name) {
+        File directory = new File(dataDir, name);
+        directory.mkdirs();
+        return IODBStorageUtil.getStorage(directory);
+    }
+
+    private static NodeMemoryPool emptyMemoryPool() {
+        return (NodeMemoryPool) Proxy.newProxyInstance(NodeMemoryPool.class.getClassLoader(), new Class<?>[]{NodeMemoryPool.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getTransactions")) {
+                        return Collections.emptyList();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
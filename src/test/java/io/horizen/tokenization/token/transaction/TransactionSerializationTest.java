@@ -0,0 +1,358 @@
+package io.horizen.tokenization.token.transaction;
+
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.horizen.box.BoxUnlocker;
+import com.horizen.box.NoncedBox;
+import com.horizen.box.data.RegularBoxData;
+import com.horizen.proof.Signature25519;
+import com.horizen.proof.Signature25519Serializer;
+import com.horizen.proposition.Proposition;
+import com.horizen.proposition.PublicKey25519Proposition;
+import com.horizen.proposition.PublicKey25519PropositionSerializer;
+import com.horizen.secret.PrivateKey25519;
+import com.horizen.secret.PrivateKey25519Creator;
+import io.horizen.tokenization.token.box.TokenBox;
+import io.horizen.tokenization.token.box.TokenBoxesIdsEnum;
+import io.horizen.tokenization.token.box.TokenSellOrderBox;
+import io.horizen.tokenization.token.box.data.TokenBoxData;
+import io.horizen.tokenization.token.box.data.TokenSellOrderBoxData;
+import io.horizen.tokenization.token.info.TokenBuyOrderInfo;
+import io.horizen.tokenization.token.info.TokenSellOrderInfo;
+import io.horizen.tokenization.token.proof.SellOrderSpendingProof;
+import io.horizen.tokenization.token.proposition.SellOrderProposition;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// The transactions are part of the blocks, so their byte layout must stay the one of the original 'bytes()'
+// implementations. The 'baseline*' methods below are those implementations, kept here as the reference encoder.
+public class TransactionSerializationTest {
+
+    private static final long FEE = 10;
+    private static final long TIMESTAMP = 1600000000000L;
+
+    private final PrivateKey25519 owner = secret("owner");
+    private final PrivateKey25519 buyer = secret("buyer");
+
+    @Test
+    public void createTokensTransactionKeepsBaselineLayout() {
+        TokenBoxData[] tokens = new TokenBoxData[] {
+                new TokenBoxData(owner.publicImage(), "legacy-id", "ABC"),
+                new TokenBoxData(owner.publicImage(), "0100000001", "ABC")
+        };
+        CreateTokensTransaction transaction = new CreateTokensTransaction(
+                inputIds(2), proofs(2), outputs(), tokens, FEE, TIMESTAMP);
+
+        byte[] expected = Bytes.concat(baselineRegularBytes(inputIds(2), proofs(2), outputs()), baselineTokensBytes(tokens));
+        assertArrayEquals(expected, transaction.bytes());
+
+        CreateTokensTransaction parsed = CreateTokensTransactionSerializer.getSerializer().parseBytes(expected);
+        assertRoundTrip(transaction, parsed);
+    }
+
+    @Test
+    public void sellTokenTransactionKeepsBaselineLayout() {
+        TokenSellOrderInfo info = sellOrderInfo("0100000002", 0);
+        SellTokenTransaction transaction = new SellTokenTransaction(
+                inputIds(1), proofs(1), outputs(), info, FEE, TIMESTAMP);
+
+        byte[] infoBytes = baselineSellOrderInfoBytes(info);
+        byte[] expected = Bytes.concat(baselineRegularBytes(inputIds(1), proofs(1), outputs()),
+                Ints.toByteArray(infoBytes.length), infoBytes);
+        assertArrayEquals(expected, transaction.bytes());
+
+        SellTokenTransaction parsed = SellTokenTransactionSerializer.getSerializer().parseBytes(expected);
+        assertRoundTrip(transaction, parsed);
+    }
+
+    @Test
+    public void buyTokenTransactionKeepsBaselineLayout() {
+        TokenBuyOrderInfo info = buyOrderInfo("legacy-id", 0);
+        BuyTokenTransaction transaction = new BuyTokenTransaction(
+                inputIds(1), proofs(1), outputs(), info, FEE, TIMESTAMP);
+
+        byte[] infoBytes = baselineBuyOrderInfoBytes(info);
+        byte[] expected = Bytes.concat(baselineRegularBytes(inputIds(1), proofs(1), outputs()),
+                Ints.toByteArray(infoBytes.length), infoBytes);
+        assertArrayEquals(expected, transaction.bytes());
+
+        BuyTokenTransaction parsed = BuyTokenTransactionSerializer.getSerializer().parseBytes(expected);
+        assertRoundTrip(transaction, parsed);
+    }
+
+    @Test
+    public void sellTokensTransactionUsesLengthPrefixedOrders() {
+        List<TokenSellOrderInfo> infos = Arrays.asList(sellOrderInfo("0100000003", 1), sellOrderInfo("legacy-id", 2));
+        SellTokensTransaction transaction = new SellTokensTransaction(
+                inputIds(1), proofs(1), outputs(), infos, FEE, TIMESTAMP);
+
+        ByteArrayOutputStream ordersStream = new ByteArrayOutputStream();
+        ordersStream.write(Ints.toByteArray(infos.size()), 0, Ints.BYTES);
+        for (TokenSellOrderInfo info : infos) {
+            byte[] infoBytes = baselineSellOrderInfoBytes(info);
+            ordersStream.write(Ints.toByteArray(infoBytes.length), 0, Ints.BYTES);
+            ordersStream.write(infoBytes, 0, infoBytes.length);
+        }
+        byte[] expected = Bytes.concat(baselineRegularBytes(inputIds(1), proofs(1), outputs()), ordersStream.toByteArray());
+        assertArrayEquals(expected, transaction.bytes());
+
+        SellTokensTransaction parsed = SellTokensTransactionSerializer.getSerializer().parseBytes(expected);
+        assertRoundTrip(transaction, parsed);
+    }
+
+    @Test
+    public void buyTokensTransactionUsesLengthPrefixedOrders() {
+        List<TokenBuyOrderInfo> infos = Arrays.asList(buyOrderInfo("0100000004", 1), buyOrderInfo("legacy-id", 2));
+        BuyTokensTransaction transaction = new BuyTokensTransaction(
+                inputIds(1), proofs(1), outputs(), infos, FEE, TIMESTAMP);
+
+        ByteArrayOutputStream ordersStream = new ByteArrayOutputStream();
+        ordersStream.write(Ints.toByteArray(infos.size()), 0, Ints.BYTES);
+        for (TokenBuyOrderInfo info : infos) {
+            byte[] infoBytes = baselineBuyOrderInfoBytes(info);
+            ordersStream.write(Ints.toByteArray(infoBytes.length), 0, Ints.BYTES);
+            ordersStream.write(infoBytes, 0, infoBytes.length);
+        }
+        byte[] expected = Bytes.concat(baselineRegularBytes(inputIds(1), proofs(1), outputs()), ordersStream.toByteArray());
+        assertArrayEquals(expected, transaction.bytes());
+
+        BuyTokensTransaction parsed = BuyTokensTransactionSerializer.getSerializer().parseBytes(expected);
+        assertRoundTrip(transaction, parsed);
+    }
+
+    @Test
+    public void createTokensMessageToSignKeepsBaselineBoxes() {
+        TokenBoxData[] tokens = new TokenBoxData[] {
+                new TokenBoxData(owner.publicImage(), "0100000005", "ABC"),
+                new TokenBoxData(owner.publicImage(), "0100000006", "ABC")
+        };
+        CreateTokensTransaction transaction = new CreateTokensTransaction(
+                inputIds(1), proofs(1), outputs(), tokens, FEE, TIMESTAMP);
+
+        assertArrayEquals(baselineMessageToSign(transaction), transaction.messageToSign());
+    }
+
+    @Test
+    public void sellTokenMessageToSignKeepsBaselineBoxes() {
+        SellTokenTransaction transaction = new SellTokenTransaction(
+                inputIds(1), proofs(1), outputs(), sellOrderInfo("0100000007", 0), FEE, TIMESTAMP);
+
+        assertArrayEquals(baselineMessageToSign(transaction), transaction.messageToSign());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sectionSizeMismatchIsRejected() {
+        TokenSellOrderInfo info = sellOrderInfo("legacy-id", 0);
+        byte[] bytes = new SellTokenTransaction(inputIds(1), proofs(1), outputs(), info, FEE, TIMESTAMP).bytes();
+
+        // Declare one more byte for the sell order info section, the last one of the transaction.
+        byte[] infoBytes = baselineSellOrderInfoBytes(info);
+        int sizeOffset = bytes.length - infoBytes.length - Ints.BYTES;
+        byte[] corrupted = Bytes.concat(
+                Arrays.copyOf(bytes, sizeOffset),
+                Ints.toByteArray(infoBytes.length + 1),
+                infoBytes,
+                new byte[] { 0 });
+
+        SellTokenTransactionSerializer.getSerializer().parseBytes(corrupted);
+    }
+
+    private static void assertRoundTrip(AbstractRegularTransaction expected, AbstractRegularTransaction parsed) {
+        assertArrayEquals(expected.bytes(), parsed.bytes());
+        assertEquals(expected.id(), parsed.id());
+        assertEquals(expected.fee(), parsed.fee());
+        assertEquals(expected.timestamp(), parsed.timestamp());
+
+        List<NoncedBox<Proposition>> expectedBoxes = expected.newBoxes();
+        List<NoncedBox<Proposition>> parsedBoxes = parsed.newBoxes();
+        assertEquals(expectedBoxes.size(), parsedBoxes.size());
+        for (int i = 0; i < expectedBoxes.size(); i++) {
+            assertArrayEquals(expectedBoxes.get(i).id(), parsedBoxes.get(i).id());
+            assertEquals(expectedBoxes.get(i).boxTypeId(), parsedBoxes.get(i).boxTypeId());
+        }
+    }
+
+    // Message signed by the proofs, as built by the SDK BoxTransaction: the ids of the opened boxes, the new boxes
+    // and the timestamp and fee. The custom boxes are written with their original encoding whatever their ID is,
+    // so the transactions signed before the compact v2 encoding was added still verify.
+    private static byte[] baselineMessageToSign(AbstractRegularTransaction transaction) {
+        ByteArrayOutputStream unlockersStream = new ByteArrayOutputStream();
+        for (BoxUnlocker<Proposition> unlocker : transaction.unlockers())
+            unlockersStream.write(unlocker.closedBoxId(), 0, unlocker.closedBoxId().length);
+
+        ByteArrayOutputStream newBoxesStream = new ByteArrayOutputStream();
+        for (NoncedBox<Proposition> box : transaction.newBoxes()) {
+            byte[] boxBytes;
+            if (box instanceof TokenBox) {
+                assertEquals(TokenBoxesIdsEnum.TokenBoxId.id(), box.boxTypeId());
+                boxBytes = baselineTokenBoxBytes((TokenBox) box);
+            } else if (box instanceof TokenSellOrderBox) {
+                assertEquals(TokenBoxesIdsEnum.TokenSellOrderBoxId.id(), box.boxTypeId());
+                boxBytes = baselineSellOrderBoxBytes((TokenSellOrderBox) box);
+            } else {
+                boxBytes = box.bytes();
+            }
+            newBoxesStream.write(boxBytes, 0, boxBytes.length);
+        }
+
+        return Bytes.concat(
+                unlockersStream.toByteArray(),
+                newBoxesStream.toByteArray(),
+                Longs.toByteArray(TIMESTAMP),
+                Longs.toByteArray(FEE)
+        );
+    }
+
+    // Original TokenBoxData 'bytes()'.
+    private static byte[] baselineTokenBoxDataBytes(PublicKey25519Proposition proposition, String id, String type) {
+        return Bytes.concat(
+                proposition.bytes(),
+                Ints.toByteArray(id.getBytes().length),
+                id.getBytes(),
+                Ints.toByteArray(type.getBytes().length),
+                type.getBytes()
+        );
+    }
+
+    // Original TokenBox 'bytes()'.
+    private static byte[] baselineTokenBoxBytes(TokenBox box) {
+        return Bytes.concat(
+                Longs.toByteArray(box.nonce()),
+                baselineTokenBoxDataBytes(box.proposition(), box.getID(), box.getType())
+        );
+    }
+
+    // Original TokenSellOrderBox 'bytes()'.
+    private static byte[] baselineSellOrderBoxBytes(TokenSellOrderBox box) {
+        byte[] propositionBytes = box.proposition().bytes();
+        return Bytes.concat(
+                Longs.toByteArray(box.nonce()),
+                Ints.toByteArray(propositionBytes.length),
+                propositionBytes,
+                Longs.toByteArray(box.getPrice()),
+                Ints.toByteArray(box.getID().getBytes().length),
+                box.getID().getBytes(),
+                Ints.toByteArray(box.getType().getBytes().length),
+                box.getType().getBytes()
+        );
+    }
+
+    // Regular part written by the original 'bytes()' of all the transactions.
+    private static byte[] baselineRegularBytes(List<byte[]> inputRegularBoxIds,
+                                               List<Signature25519> inputRegularBoxProofs,
+                                               List<RegularBoxData> outputRegularBoxesData) {
+        ByteArrayOutputStream inputsIdsStream = new ByteArrayOutputStream();
+        for(byte[] id: inputRegularBoxIds)
+            inputsIdsStream.write(id, 0, id.length);
+
+        byte[] inputRegularBoxIdsBytes = inputsIdsStream.toByteArray();
+
+        byte[] inputRegularBoxProofsBytes = AbstractRegularTransaction.regularBoxProofsSerializer.toBytes(inputRegularBoxProofs);
+
+        byte[] outputRegularBoxesDataBytes = AbstractRegularTransaction.regularBoxDataListSerializer.toBytes(outputRegularBoxesData);
+
+        return Bytes.concat(
+                Longs.toByteArray(FEE),
+                Longs.toByteArray(TIMESTAMP),
+                Ints.toByteArray(inputRegularBoxIdsBytes.length),
+                inputRegularBoxIdsBytes,
+                Ints.toByteArray(inputRegularBoxProofsBytes.length),
+                inputRegularBoxProofsBytes,
+                Ints.toByteArray(outputRegularBoxesDataBytes.length),
+                outputRegularBoxesDataBytes
+        );
+    }
+
+    // Token part written by the original CreateTokensTransaction 'bytes()'.
+    private static byte[] baselineTokensBytes(TokenBoxData[] outputTokenBoxData) {
+        ByteArrayOutputStream outputTokenStream = new ByteArrayOutputStream();
+        for(TokenBoxData token: outputTokenBoxData) {
+            byte[] tokenBytes = baselineTokenBoxDataBytes(token.proposition(), token.getID(), token.getType());
+            outputTokenStream.write(Ints.toByteArray(tokenBytes.length), 0, Ints.BYTES);
+            outputTokenStream.write(tokenBytes, 0, tokenBytes.length);
+        }
+
+        return Bytes.concat(
+                Ints.toByteArray(outputTokenBoxData.length),
+                outputTokenStream.toByteArray()
+        );
+    }
+
+    // Original TokenSellOrderInfo 'bytes()'.
+    private static byte[] baselineSellOrderInfoBytes(TokenSellOrderInfo info) {
+        byte[] tokenBoxToOpenBytes = baselineTokenBoxBytes(info.getTokenBoxToOpen());
+        byte[] proofBytes = Signature25519Serializer.getSerializer().toBytes(info.getCarBoxSpendingProof());
+
+        byte[] buyerPropositionBytes = PublicKey25519PropositionSerializer.getSerializer().toBytes(
+                new PublicKey25519Proposition(info.getSellOrderBoxData().proposition().getBuyerPublicKeyBytes()));
+
+        return Bytes.concat(
+                Ints.toByteArray(tokenBoxToOpenBytes.length),
+                tokenBoxToOpenBytes,
+                Ints.toByteArray(proofBytes.length),
+                proofBytes,
+                Longs.toByteArray(info.getSellOrderBoxData().value()),
+                Ints.toByteArray(buyerPropositionBytes.length),
+                buyerPropositionBytes
+        );
+    }
+
+    // Original TokenBuyOrderInfo 'bytes()'.
+    private static byte[] baselineBuyOrderInfoBytes(TokenBuyOrderInfo info) {
+        byte[] tokenSellOrderBoxToOpenBytes = baselineSellOrderBoxBytes(info.getTokenSellOrderBoxToOpen());
+        byte[] proofBytes = info.getTokenSellOrderSpendingProof().bytes();
+
+        return Bytes.concat(
+                Ints.toByteArray(tokenSellOrderBoxToOpenBytes.length),
+                tokenSellOrderBoxToOpenBytes,
+                Ints.toByteArray(proofBytes.length),
+                proofBytes
+        );
+    }
+
+    private TokenSellOrderInfo sellOrderInfo(String id, long nonce) {
+        TokenBox tokenBox = new TokenBox(new TokenBoxData(owner.publicImage(), id, "ABC"), nonce);
+        return new TokenSellOrderInfo(tokenBox, owner.sign(tokenBox.id()), 1000, buyer.publicImage());
+    }
+
+    private TokenBuyOrderInfo buyOrderInfo(String id, long nonce) {
+        SellOrderProposition proposition = new SellOrderProposition(
+                owner.publicImage().pubKeyBytes(), buyer.publicImage().pubKeyBytes());
+        TokenSellOrderBox sellOrderBox = new TokenSellOrderBox(
+                new TokenSellOrderBoxData(proposition, 1000, id, "ABC"), nonce);
+        SellOrderSpendingProof proof = new SellOrderSpendingProof(buyer.sign(sellOrderBox.id()).bytes(), false);
+        return new TokenBuyOrderInfo(sellOrderBox, proof);
+    }
+
+    private static List<byte[]> inputIds(int count) {
+        List<byte[]> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] id = new byte[32];
+            Arrays.fill(id, (byte) (i + 1));
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private List<Signature25519> proofs(int count) {
+        List<Signature25519> proofs = new ArrayList<>();
+        for (byte[] id : inputIds(count))
+            proofs.add(owner.sign(id));
+        return proofs;
+    }
+
+    private List<RegularBoxData> outputs() {
+        return Arrays.asList(new RegularBoxData(owner.publicImage(), 500));
+    }
+
+    private static PrivateKey25519 secret(String seed) {
+        return PrivateKey25519Creator.getInstance().generateSecret(seed.getBytes());
+    }
+}